@@ -1,59 +1,321 @@
 package com.example;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A client account.
+ * Either owns its state on the heap, or is a flyweight view over one row
+ * of an {@link AccountStore}, in which case every call goes to the store.
+ *
+ * Heap accounts under heavy deposit fan-in switch to a hot mode once
+ * {@link #HOT_CONTENTION_THRESHOLD} deposit CAS attempts fail within
+ * {@link #HOT_WINDOW_NANOS}: deposits then go to LongAdder cells spread over
+ * cores and are folded into the balance when a withdrawal or a balance read
+ * needs them. Contention from earlier windows does not count, so a slowly
+ * contended account never turns hot.
+ */
 public class Account {
 
+    /** Failed balance CAS attempts after which deposits switch to striped cells. */
+    public static final long HOT_CONTENTION_THRESHOLD = 1_000;
+
+    /** Window within which the threshold must be reached. */
+    public static final long HOT_WINDOW_NANOS = 1_000_000_000L;
+
+    // Hot deposits skip the exact overflow check while the balance plus pending
+    // deposits stays below this, far enough from the limit for racing deposits
+    private static final long HOT_DEPOSIT_LIMIT = Long.MAX_VALUE / 2;
+
+    private static final VarHandle BALANCE;
+    private static final VarHandle CONTENTION;
+    private static final VarHandle HOT_DEPOSITS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            BALANCE = lookup.findVarHandle(Account.class, "balance", long.class);
+            CONTENTION = lookup.findVarHandle(Account.class, "contentionCount", long.class);
+            HOT_DEPOSITS = lookup.findVarHandle(Account.class, "hotDeposits", LongAdder.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private String clientId;
     private String clientName;
-    private double balance;
-    private AccountStatus status;
+    private volatile long balance; // minor units, see Money
+    private volatile AccountStatus status;
+    private volatile long contentionCount;
+    private volatile LongAdder hotDeposits; // null until the account turns hot
+    // Start of the current contention window and the count when it opened;
+    // racing updates only shift the window slightly
+    private volatile long windowStart;
+    private volatile long windowBase;
+
+    // Set only for store-backed views
+    private final AccountStore store;
+    private final int row;
 
     public Account(String clientId, String clientName,
                    double balance, AccountStatus status) {
         this.clientId = clientId;
         this.clientName = clientName;
-        this.balance = balance;
+        this.balance = checkedMinor(balance);
         this.status = status;
+        this.store = null;
+        this.row = -1;
+        this.windowStart = System.nanoTime();
+    }
+
+    /**
+     * Flyweight over a store row; see {@link AccountStore#view(int)}.
+     */
+    Account(AccountStore store, int row) {
+        this.store = store;
+        this.row = row;
     }
 
+    /**
+     * Creates an account whose opening balance is already in minor units.
+     */
+    public static Account ofMinor(String clientId, String clientName,
+                                  long balanceMinor, AccountStatus status) {
+        Account account = new Account(clientId, clientName, 0.0, status);
+        account.balance = balanceMinor;
+        return account;
+    }
+
+    /**
+     * Withdraws using a CAS retry loop, so concurrent callers can neither
+     * lose an update nor overdraw the account.
+     */
     public boolean withdraw(double amount) {
-        if (status != AccountStatus.VERIFIED) return false;
-        if (amount <= 0) return false;  // ← ADD THIS LINE
-        if (amount > balance) return false;
-        balance -= amount;
-        return true;
+        return debit(Money.toMinor(amount));
+    }
+
+    public boolean withdrawMinor(long amountMinor) {
+        return debit(amountMinor);
     }
 
     public double getBalance() {
+        return Money.toMajor(getBalanceMinor());
+    }
+
+    /**
+     * For a hot account this folds pending deposits first, taking the fold lock.
+     */
+    public long getBalanceMinor() {
+        if (store != null) return store.balanceMinor(row);
+        LongAdder hot = hotDeposits;
+        if (hot != null) {
+            synchronized (hot) {
+                fold(hot);
+                return balance;
+            }
+        }
         return balance;
     }
 
     public AccountStatus getStatus() {
+        if (store != null) return store.status(row);
         return status;
     }
 
     public boolean deposit(double amount) {
-        if (status == AccountStatus.CLOSED || amount <= 0) return false;
-        balance += amount;
-        return true;
+        return depositMinor(Money.toMinor(amount));
+    }
+
+    public boolean depositMinor(long amountMinor) {
+        if (store != null) return store.depositMinor(row, amountMinor);
+        if (status == AccountStatus.CLOSED || amountMinor <= 0) return false;
+        long current = balance;
+        while (true) {
+            LongAdder hot = hotDeposits;
+            if (hot != null) return depositHot(hot, amountMinor);
+            if (Money.addOverflows(current, amountMinor)) return false;
+            if (BALANCE.compareAndSet(this, current, current + amountMinor)) return true;
+            countContention();
+            if (status == AccountStatus.CLOSED) return false;
+            current = balance;
+        }
     }
 
     public void setStatus(AccountStatus status) {
+        if (store != null) {
+            store.setStatus(row, status);
+            return;
+        }
         this.status = status;
     }
 
     public boolean transfer(double amount) {
-        if (status != AccountStatus.VERIFIED) return false;
-        if (amount <= 0) return false;  
-        if (amount > balance) return false;
-        balance -= amount;
-        return true;
+        return debit(Money.toMinor(amount));
+    }
+
+    public boolean transferMinor(long amountMinor) {
+        return debit(amountMinor);
     }
 
     public String getClientName() {
+        if (store != null) return store.clientName(row);
         return clientName;
     }
 
     public String getClientId() {
+        if (store != null) return store.clientId(row);
         return clientId;
     }
-}
\ No newline at end of file
+
+    /**
+     * Number of failed CAS attempts on this account's balance.
+     * A steadily growing value marks a hot account.
+     */
+    public long getContentionCount() {
+        if (store != null) return store.contentionCount(row);
+        return contentionCount;
+    }
+
+    /**
+     * Switches deposits to striped cells, e.g. for a known collection account.
+     * Has no effect on store views, which keep their balance in the store.
+     */
+    public void enableHotMode() {
+        if (store == null && hotDeposits == null) {
+            HOT_DEPOSITS.compareAndSet(this, (LongAdder) null, new LongAdder());
+        }
+    }
+
+    public boolean isHot() {
+        return hotDeposits != null;
+    }
+
+    /**
+     * Key for {@link StripedLocks}: the row for store views (so every view of
+     * a row shares a stripe), otherwise the client id hash.
+     */
+    int lockKey() {
+        return store != null ? row : clientId.hashCode();
+    }
+
+    /**
+     * Adds a signed amount ignoring status and limits.
+     * Only used under stripe locks to undo legs of a multi-account operation.
+     */
+    void adjustMinor(long deltaMinor) {
+        if (store != null) {
+            store.adjustMinor(row, deltaMinor);
+            return;
+        }
+        BALANCE.getAndAdd(this, deltaMinor);
+    }
+
+    /**
+     * Row index in the backing store, or -1 for a heap account.
+     */
+    public int getRow() {
+        return row;
+    }
+
+    // Views of the same store row are interchangeable; heap accounts keep identity
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (store == null || !(o instanceof Account)) return false;
+        Account other = (Account) o;
+        return other.store == store && other.row == row;
+    }
+
+    @Override
+    public int hashCode() {
+        if (store == null) return System.identityHashCode(this);
+        return 31 * System.identityHashCode(store) + row;
+    }
+
+    // ---------- Balance CAS ----------
+
+    private boolean debit(long amount) {
+        if (store != null) return store.withdrawMinor(row, amount);
+        if (status != AccountStatus.VERIFIED) return false;
+        if (amount <= 0) return false;
+        long current = balance;
+        while (true) {
+            if (amount > current) {
+                LongAdder hot = hotDeposits;
+                return hot != null && debitFolded(hot, amount);
+            }
+            if (BALANCE.compareAndSet(this, current, current - amount)) return true;
+            CONTENTION.getAndAdd(this, 1L);
+            // Re-check the status on every retry: it may have changed meanwhile
+            if (status != AccountStatus.VERIFIED) return false;
+            current = balance;
+        }
+    }
+
+    // ---------- Hot Mode ----------
+
+    private void countContention() {
+        long count = (long) CONTENTION.getAndAdd(this, 1L) + 1;
+        if (count - windowBase < HOT_CONTENTION_THRESHOLD) return;
+        long now = System.nanoTime();
+        if (now - windowStart <= HOT_WINDOW_NANOS) {
+            enableHotMode();
+        } else {
+            // The threshold took longer than a window: start a new one
+            windowStart = now;
+            windowBase = count;
+        }
+    }
+
+    // Pending deposits count toward the limit; reading them before the balance
+    // can only count a concurrent fold twice, never miss it
+    private boolean depositHot(LongAdder hot, long amountMinor) {
+        long pending = hot.sum();
+        long current = balance;
+        if (current <= HOT_DEPOSIT_LIMIT - pending && amountMinor <= HOT_DEPOSIT_LIMIT - pending - current) {
+            hot.add(amountMinor);
+            return true;
+        }
+        // Near the limit: fold and check the exact balance under the fold lock
+        synchronized (hot) {
+            fold(hot);
+            current = balance;
+            while (true) {
+                if (Money.addOverflows(current, amountMinor)) return false;
+                if (BALANCE.compareAndSet(this, current, current + amountMinor)) return true;
+                current = balance;
+            }
+        }
+    }
+
+    // The balance alone is short: fold pending deposits in and try again
+    private boolean debitFolded(LongAdder hot, long amount) {
+        synchronized (hot) {
+            fold(hot);
+            long current = balance;
+            while (true) {
+                if (amount > current) return false;
+                if (BALANCE.compareAndSet(this, current, current - amount)) return true;
+                if (status != AccountStatus.VERIFIED) return false;
+                current = balance;
+            }
+        }
+    }
+
+    // Caller holds the fold lock, so no other thread has money in transit
+    private void fold(LongAdder hot) {
+        long pending = hot.sumThenReset();
+        if (pending != 0) {
+            BALANCE.getAndAdd(this, pending);
+        }
+    }
+
+    private static long checkedMinor(double amount) {
+        long minor = Money.toMinor(amount);
+        if (minor == Money.INVALID) {
+            throw new IllegalArgumentException("Balance out of range: " + amount);
+        }
+        return minor;
+    }
+}
@@ -0,0 +1,315 @@
+package com.example;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Daily and monthly totals per account, updated as each transaction commits.
+ *
+ * Every account keeps two sorted bucket arrays, one keyed by day and one by
+ * month, with deposits, withdrawals, transfers in and out and a count per
+ * bucket. A summary over a date range adds whole months from the monthly
+ * buckets and only the partial months at its edges from the daily ones, so
+ * it costs O(buckets) however many transactions the range holds.
+ *
+ * The totals live in memory; after a restart they are rebuilt from the
+ * {@link PersistentLedger}, one segment per task.
+ */
+public final class AccountAggregates {
+
+    /**
+     * Totals of one bucket or range, in minor units.
+     */
+    public record Summary(long depositsMinor, long withdrawalsMinor, long transfersInMinor,
+                          long transfersOutMinor, long count) {
+
+        public static final Summary EMPTY = new Summary(0, 0, 0, 0, 0);
+
+        /** Change to the balance over the period. */
+        public long netFlowMinor() {
+            return depositsMinor + transfersInMinor - withdrawalsMinor - transfersOutMinor;
+        }
+    }
+
+    public record DailyBucket(LocalDate day, Summary summary) {
+    }
+
+    public record MonthlyBucket(YearMonth month, Summary summary) {
+    }
+
+    // Bucket layout, in longs
+    private static final int FIELDS = 5;
+    private static final int DEPOSITS = 0;
+    private static final int WITHDRAWALS = 1;
+    private static final int TRANSFERS_IN = 2;
+    private static final int TRANSFERS_OUT = 3;
+    private static final int COUNT = 4;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    private final long fixedOffsetMillis;
+    private final Map<String, AccountBuckets> accounts = new ConcurrentHashMap<>();
+
+    public AccountAggregates() {
+        this(ZoneOffset.UTC);
+    }
+
+    /**
+     * @param zone Zone whose calendar days and months the buckets follow
+     */
+    public AccountAggregates(ZoneId zone) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+        this.fixedOffsetMillis = rules.isFixedOffset()
+                ? rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L : Long.MIN_VALUE;
+    }
+
+    /**
+     * Adds one committed transaction: a deposit or withdrawal to its account,
+     * a transfer to both accounts.
+     *
+     * @param counterpartyId Target of a transfer, otherwise null
+     */
+    public void record(TransactionType type, String clientId, String counterpartyId, long amountMinor,
+                       long timestampMillis) {
+        int day = dayOf(timestampMillis);
+        int month = monthOf(day);
+        switch (type) {
+            case DEPOSIT -> bucketsOf(clientId).add(day, month, DEPOSITS, amountMinor);
+            case WITHDRAWAL -> bucketsOf(clientId).add(day, month, WITHDRAWALS, amountMinor);
+            case TRANSFER -> {
+                bucketsOf(clientId).add(day, month, TRANSFERS_OUT, amountMinor);
+                bucketsOf(counterpartyId).add(day, month, TRANSFERS_IN, amountMinor);
+            }
+        }
+    }
+
+    // ---------- Queries ----------
+
+    /**
+     * Totals of one account for the days {@code from <= day < to}.
+     */
+    public Summary summary(String clientId, LocalDate from, LocalDate to) {
+        AccountBuckets buckets = accounts.get(clientId);
+        if (buckets == null) return Summary.EMPTY;
+        long[] totals = new long[FIELDS];
+        synchronized (buckets) {
+            LocalDate day = from;
+            while (day.isBefore(to)) {
+                LocalDate nextMonth = day.withDayOfMonth(1).plusMonths(1);
+                if (day.getDayOfMonth() == 1 && !nextMonth.isAfter(to)) {
+                    int month = monthOf((int) day.toEpochDay());
+                    buckets.monthly.sumInto(month, month + 1, totals);
+                } else {
+                    LocalDate end = nextMonth.isAfter(to) ? to : nextMonth;
+                    buckets.daily.sumInto((int) day.toEpochDay(), (int) end.toEpochDay(), totals);
+                }
+                day = nextMonth;
+            }
+        }
+        return summaryOf(totals, 0);
+    }
+
+    /**
+     * Non-empty daily buckets of one account for {@code from <= day < to}, oldest first.
+     */
+    public List<DailyBucket> daily(String clientId, LocalDate from, LocalDate to) {
+        List<DailyBucket> result = new ArrayList<>();
+        AccountBuckets buckets = accounts.get(clientId);
+        if (buckets == null) return result;
+        synchronized (buckets) {
+            Buckets daily = buckets.daily;
+            for (int i = daily.indexOf((int) from.toEpochDay()); i < daily.size
+                    && daily.keys[i] < to.toEpochDay(); i++) {
+                result.add(new DailyBucket(LocalDate.ofEpochDay(daily.keys[i]), summaryOf(daily.values, i)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Non-empty monthly buckets of one account for {@code from <= month < to}, oldest first.
+     */
+    public List<MonthlyBucket> monthly(String clientId, YearMonth from, YearMonth to) {
+        List<MonthlyBucket> result = new ArrayList<>();
+        AccountBuckets buckets = accounts.get(clientId);
+        if (buckets == null) return result;
+        int end = monthKey(to);
+        synchronized (buckets) {
+            Buckets monthly = buckets.monthly;
+            for (int i = monthly.indexOf(monthKey(from)); i < monthly.size && monthly.keys[i] < end; i++) {
+                int key = monthly.keys[i];
+                result.add(new MonthlyBucket(YearMonth.of(Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1),
+                        summaryOf(monthly.values, i)));
+            }
+        }
+        return result;
+    }
+
+    /** Accounts with at least one transaction. */
+    public int accountCount() {
+        return accounts.size();
+    }
+
+    public ZoneId zone() {
+        return zone;
+    }
+
+    // ---------- Rebuild ----------
+
+    /**
+     * Recomputes the aggregates from a ledger, e.g. after a crash. Segments
+     * are summed in parallel into partial aggregates that are then merged.
+     *
+     * @param parallelism Segments scanned at once
+     */
+    public static AccountAggregates rebuild(PersistentLedger ledger, ZoneId zone, int parallelism)
+            throws InterruptedException {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        int segments = ledger.segmentCount();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, segments),
+                DaemonThreads.named("aggregates-rebuild"));
+        try {
+            List<Future<AccountAggregates>> futures = new ArrayList<>(segments);
+            for (int s = 0; s < segments; s++) {
+                int segment = s;
+                futures.add(pool.submit(() -> {
+                    AccountAggregates partial = new AccountAggregates(zone);
+                    ledger.scan(segment, (seq, time, type, fromId, toId, amount) ->
+                            partial.record(type, fromId, toId, amount, time));
+                    return partial;
+                }));
+            }
+            AccountAggregates result = new AccountAggregates(zone);
+            for (Future<AccountAggregates> future : futures) {
+                result.merge(future.get());
+            }
+            return result;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Rebuilding aggregates failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void merge(AccountAggregates other) {
+        for (Map.Entry<String, AccountBuckets> entry : other.accounts.entrySet()) {
+            AccountBuckets target = bucketsOf(entry.getKey());
+            synchronized (target) {
+                target.daily.addAll(entry.getValue().daily);
+                target.monthly.addAll(entry.getValue().monthly);
+            }
+        }
+    }
+
+    // ---------- Internals ----------
+
+    private AccountBuckets bucketsOf(String clientId) {
+        return accounts.computeIfAbsent(clientId, id -> new AccountBuckets());
+    }
+
+    private int dayOf(long timestampMillis) {
+        long offset = fixedOffsetMillis != Long.MIN_VALUE ? fixedOffsetMillis
+                : rules.getOffset(Instant.ofEpochMilli(timestampMillis)).getTotalSeconds() * 1000L;
+        return (int) Math.floorDiv(timestampMillis + offset, MILLIS_PER_DAY);
+    }
+
+    private static int monthOf(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    private static int monthKey(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    private static Summary summaryOf(long[] values, int index) {
+        int base = index * FIELDS;
+        return new Summary(values[base + DEPOSITS], values[base + WITHDRAWALS], values[base + TRANSFERS_IN],
+                values[base + TRANSFERS_OUT], values[base + COUNT]);
+    }
+
+    private static final class AccountBuckets {
+        final Buckets daily = new Buckets();
+        final Buckets monthly = new Buckets();
+
+        synchronized void add(int day, int month, int field, long amountMinor) {
+            daily.add(day, field, amountMinor);
+            monthly.add(month, field, amountMinor);
+        }
+    }
+
+    // Sorted keys with FIELDS longs each; commits arrive mostly in key order
+    private static final class Buckets {
+        int[] keys = new int[4];
+        long[] values = new long[4 * FIELDS];
+        int size;
+
+        void add(int key, int field, long amountMinor) {
+            int base = slot(key) * FIELDS;
+            values[base + field] += amountMinor;
+            values[base + COUNT]++;
+        }
+
+        void addAll(Buckets other) {
+            for (int i = 0; i < other.size; i++) {
+                int base = slot(other.keys[i]) * FIELDS;
+                for (int f = 0; f < FIELDS; f++) {
+                    values[base + f] += other.values[i * FIELDS + f];
+                }
+            }
+        }
+
+        void sumInto(int fromKey, int toKey, long[] totals) {
+            for (int i = indexOf(fromKey); i < size && keys[i] < toKey; i++) {
+                for (int f = 0; f < FIELDS; f++) {
+                    totals[f] += values[i * FIELDS + f];
+                }
+            }
+        }
+
+        // First index whose key is >= key
+        int indexOf(int key) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid] < key) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        private int slot(int key) {
+            if (size > 0 && keys[size - 1] == key) return size - 1;
+            int i = size > 0 && keys[size - 1] < key ? size : indexOf(key);
+            if (i < size && keys[i] == key) return i;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2 * FIELDS);
+            }
+            System.arraycopy(keys, i, keys, i + 1, size - i);
+            System.arraycopy(values, i * FIELDS, values, (i + 1) * FIELDS, (size - i) * FIELDS);
+            keys[i] = key;
+            Arrays.fill(values, i * FIELDS, (i + 1) * FIELDS, 0);
+            size++;
+            return i;
+        }
+    }
+}
@@ -1,22 +1,271 @@
 package com.example;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
 public class AccountController {
 
     private final TransactionProcessor processor;
+    private final AccountStore store;
+    private final ShardedEngine engine; // null = apply directly on the caller thread
+    private AsyncExecutor asyncExecutor = AsyncExecutor.shared();
+    private IdempotencyCache idempotencyCache; // null = keys are ignored
 
     public AccountController() {
-        this.processor = new TransactionProcessor();
+        this(null, null);
+    }
+
+    /**
+     * @param store Account store used by the id-based operations, may be null
+     */
+    public AccountController(AccountStore store) {
+        this(store, null);
+    }
+
+    /**
+     * Routes withdraw, deposit and transfer, by account or by id, through a
+     * single-writer sharded engine.
+     */
+    public AccountController(ShardedEngine engine) {
+        this(null, engine);
+    }
+
+    public AccountController(AccountStore store, ShardedEngine engine) {
+        this.processor = engine != null ? engine.getProcessor() : new TransactionProcessor();
+        this.store = store;
+        this.engine = engine;
+    }
+
+    /**
+     * Processor that applies or records every operation, e.g. to attach a log.
+     * With an engine this is the engine's processor, so its commits are recorded too.
+     */
+    public TransactionProcessor getProcessor() {
+        return processor;
     }
 
     public boolean withdraw(Account account, double amount) {
-        return processor.processWithdraw(account, amount);
+        return withdrawMinor(account, Money.toMinor(amount));
     }
 
     public boolean deposit(Account account, double amount) {
-        return processor.processDeposit(account, amount);
+        return depositMinor(account, Money.toMinor(amount));
     }
 
     public boolean transfer(Account from, Account to, double amount) {
-        return processor.processTransfer(from, to, amount);
+        return transferMinor(from, to, Money.toMinor(amount));
+    }
+
+    // ---------- Async (virtual threads) ----------
+
+    /**
+     * Sets the executor and concurrency limits used by the *Async methods.
+     */
+    public void setAsyncExecutor(AsyncExecutor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    public AsyncExecutor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    public CompletableFuture<Boolean> withdrawAsync(Account account, double amount) {
+        return asyncExecutor.submit(() -> withdraw(account, amount));
+    }
+
+    public CompletableFuture<Boolean> depositAsync(Account account, double amount) {
+        return asyncExecutor.submit(() -> deposit(account, amount));
+    }
+
+    public CompletableFuture<Boolean> transferAsync(Account from, Account to, double amount) {
+        return asyncExecutor.submit(() -> transfer(from, to, amount));
+    }
+
+    public CompletableFuture<Boolean> withdrawAsync(Account account, double amount, String idempotencyKey) {
+        return asyncExecutor.submit(() -> withdraw(account, amount, idempotencyKey));
+    }
+
+    public CompletableFuture<Boolean> depositAsync(Account account, double amount, String idempotencyKey) {
+        return asyncExecutor.submit(() -> deposit(account, amount, idempotencyKey));
+    }
+
+    public CompletableFuture<Boolean> transferAsync(Account from, Account to, double amount,
+                                                    String idempotencyKey) {
+        return asyncExecutor.submit(() -> transfer(from, to, amount, idempotencyKey));
+    }
+
+    /**
+     * Applies a batch of transfers atomically; see {@link TransactionProcessor#processBatch}.
+     * With an engine the items go through its shards one by one instead; see
+     * {@link ShardedEngine#transferBatch}.
+     *
+     * @return One TransactionProcessor.TRANSFER_* code per request
+     */
+    public byte[] transferBatch(List<TransferRequest> requests) {
+        if (engine != null) return engine.transferBatch(requests);
+        return processor.processBatch(requests);
+    }
+
+    public boolean withdrawMinor(Account account, long amountMinor) {
+        if (engine != null) return engine.withdraw(account, amountMinor);
+        return processor.processWithdrawMinor(account, amountMinor);
+    }
+
+    public boolean depositMinor(Account account, long amountMinor) {
+        if (engine != null) return engine.deposit(account, amountMinor);
+        return processor.processDepositMinor(account, amountMinor);
+    }
+
+    public boolean transferMinor(Account from, Account to, long amountMinor) {
+        if (engine != null) return engine.transfer(from, to, amountMinor);
+        return processor.processTransferMinor(from, to, amountMinor);
+    }
+
+    // ---------- Id-based operations (store lookups) ----------
+
+    /**
+     * @return A view of the account with this client id, or null if unknown
+     */
+    public Account findAccount(String clientId) {
+        int row = rowOf(clientId);
+        return row == ClientIdIndex.NOT_FOUND ? null : store.view(row);
+    }
+
+    public boolean withdrawById(String clientId, double amount) {
+        if (engine != null) return withdrawMinor(findAccount(clientId), Money.toMinor(amount));
+        return processor.processWithdrawMinor(store, rowOf(clientId), Money.toMinor(amount));
+    }
+
+    public boolean depositById(String clientId, double amount) {
+        if (engine != null) return depositMinor(findAccount(clientId), Money.toMinor(amount));
+        return processor.processDepositMinor(store, rowOf(clientId), Money.toMinor(amount));
+    }
+
+    public boolean transferById(String fromId, String toId, double amount) {
+        if (engine != null) {
+            return transferMinor(findAccount(fromId), findAccount(toId), Money.toMinor(amount));
+        }
+        return processor.processTransferMinor(store, rowOf(fromId), rowOf(toId), Money.toMinor(amount));
+    }
+
+    /**
+     * Opens an account in the store; logged like a transaction when the
+     * processor has a write-ahead log.
+     */
+    public void openAccount(String clientId, String clientName, double balance, AccountStatus status) {
+        if (store == null) throw new IllegalStateException("No account store");
+        processor.openAccount(store, clientId, clientName, Money.toMinor(balance), status);
+    }
+
+    /**
+     * @return false if the client id is unknown
+     */
+    public boolean setStatusById(String clientId, AccountStatus status) {
+        int row = rowOf(clientId);
+        if (row == ClientIdIndex.NOT_FOUND) return false;
+        processor.setStatus(store, row, status);
+        return true;
+    }
+
+    private int rowOf(String clientId) {
+        if (store == null) return ClientIdIndex.NOT_FOUND;
+        return store.rowOf(clientId);
+    }
+
+    // ---------- Idempotency keys ----------
+
+    /**
+     * Enables deduplication of operations that carry an idempotency key:
+     * a retry with a key seen within the cache's TTL returns the first
+     * outcome without touching the accounts. Reusing a key for a different
+     * kind of operation, other accounts or another amount throws
+     * IllegalArgumentException.
+     */
+    public void setIdempotencyCache(IdempotencyCache idempotencyCache) {
+        this.idempotencyCache = idempotencyCache;
+    }
+
+    public IdempotencyCache getIdempotencyCache() {
+        return idempotencyCache;
+    }
+
+    public boolean withdraw(Account account, double amount, String idempotencyKey) {
+        return once(idempotencyKey, "withdraw", idOf(account), null, Money.toMinor(amount),
+                () -> withdraw(account, amount));
+    }
+
+    public boolean deposit(Account account, double amount, String idempotencyKey) {
+        return once(idempotencyKey, "deposit", idOf(account), null, Money.toMinor(amount),
+                () -> deposit(account, amount));
+    }
+
+    public boolean transfer(Account from, Account to, double amount, String idempotencyKey) {
+        return once(idempotencyKey, "transfer", idOf(from), idOf(to), Money.toMinor(amount),
+                () -> transfer(from, to, amount));
+    }
+
+    public boolean withdrawMinor(Account account, long amountMinor, String idempotencyKey) {
+        return once(idempotencyKey, "withdraw", idOf(account), null, amountMinor,
+                () -> withdrawMinor(account, amountMinor));
+    }
+
+    public boolean depositMinor(Account account, long amountMinor, String idempotencyKey) {
+        return once(idempotencyKey, "deposit", idOf(account), null, amountMinor,
+                () -> depositMinor(account, amountMinor));
+    }
+
+    public boolean transferMinor(Account from, Account to, long amountMinor, String idempotencyKey) {
+        return once(idempotencyKey, "transfer", idOf(from), idOf(to), amountMinor,
+                () -> transferMinor(from, to, amountMinor));
+    }
+
+    public boolean withdrawById(String clientId, double amount, String idempotencyKey) {
+        return once(idempotencyKey, "withdraw", clientId, null, Money.toMinor(amount),
+                () -> withdrawById(clientId, amount));
+    }
+
+    public boolean depositById(String clientId, double amount, String idempotencyKey) {
+        return once(idempotencyKey, "deposit", clientId, null, Money.toMinor(amount),
+                () -> depositById(clientId, amount));
+    }
+
+    public boolean transferById(String fromId, String toId, double amount, String idempotencyKey) {
+        return once(idempotencyKey, "transfer", fromId, toId, Money.toMinor(amount),
+                () -> transferById(fromId, toId, amount));
+    }
+
+    /**
+     * Batch variant; a retried batch gets the first batch's result codes.
+     */
+    public byte[] transferBatch(List<TransferRequest> requests, String idempotencyKey) {
+        IdempotencyCache cache = idempotencyCache;
+        if (cache == null || idempotencyKey == null) return transferBatch(requests);
+        StringBuilder request = new StringBuilder();
+        for (TransferRequest r : requests) {
+            if (r == null) {
+                request.append("null;");
+            } else {
+                request.append(fingerprint(idOf(r.from()), idOf(r.to()), r.amountMinor())).append(';');
+            }
+        }
+        return cache.execute(idempotencyKey, "transferBatch", request.toString(),
+                () -> transferBatch(requests)).clone();
+    }
+
+    private boolean once(String idempotencyKey, String kind, String firstId, String secondId,
+                         long amountMinor, Supplier<Boolean> operation) {
+        IdempotencyCache cache = idempotencyCache;
+        if (cache == null || idempotencyKey == null) return operation.get();
+        return cache.execute(idempotencyKey, kind, fingerprint(firstId, secondId, amountMinor), operation);
+    }
+
+    // Arguments a retry must repeat exactly to reuse its key
+    private static String fingerprint(String firstId, String secondId, long amountMinor) {
+        return firstId + ">" + secondId + ":" + amountMinor;
+    }
+
+    private static String idOf(Account account) {
+        return account == null ? null : account.getClientId();
     }
 }
@@ -0,0 +1,268 @@
+package com.example;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Binary snapshot of an {@link AccountStore}.
+ *
+ * File layout (big-endian):
+ * header: magic:int | version:int | count:int | reserved:int | walSeq:long | namesOffset:long
+ * rows:   count fixed-width records of
+ *         balance:long | nameOffset:long | nameLen:int | status:byte | pad:3 | id:16
+ * names:  UTF-8 display names, addressed by the row records
+ *
+ * Fixed-width rows let the loader map the file and restore disjoint row
+ * ranges on several threads at once. {@code walSeq} is the last write-ahead
+ * log record already reflected in the snapshot, so recovery only replays
+ * the log tail after it.
+ */
+public final class AccountSnapshot {
+
+    static final int MAGIC = 0x424B534E; // "BKSN"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int ROW_BYTES = 40;
+
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final ValueLayout.OfInt INT =
+            ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong LONG =
+            ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final AccountStatus[] STATUSES = AccountStatus.values();
+
+    private AccountSnapshot() {
+    }
+
+    /**
+     * Contents of a loaded snapshot.
+     */
+    public record Loaded(AccountStore store, long walSeq) {
+    }
+
+    /**
+     * Row count and log position of a snapshot, read from its header alone.
+     */
+    public record Header(int count, long walSeq) {
+    }
+
+    // ---------- Write ----------
+
+    /**
+     * Writes every row of the store to {@code file}, replacing it atomically.
+     * The store must not change while the snapshot is written, otherwise the
+     * snapshot and {@code walSeq} disagree and recovery would apply some
+     * transactions twice.
+     *
+     * @param walSeq Last write-ahead log sequence number reflected in the store
+     */
+    public static void write(AccountStore store, long walSeq, Path file) throws IOException {
+        int count = store.size();
+        long namesOffset = HEADER_BYTES + (long) count * ROW_BYTES;
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0)
+                    .putLong(walSeq).putLong(namesOffset).flip();
+            writeFully(channel, header, 0);
+
+            ByteBuffer rows = ByteBuffer.allocate(BUFFER_BYTES);
+            ByteBuffer names = ByteBuffer.allocate(BUFFER_BYTES);
+            byte[] id = new byte[AccountStore.ID_BYTES];
+            long rowPosition = HEADER_BYTES;
+            long namePosition = namesOffset;
+            long nameOffset = namesOffset;
+
+            for (int row = 0; row < count; row++) {
+                String name = store.clientName(row);
+                byte[] nameBytes = name == null ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+                store.copyId(row, id, 0);
+
+                if (rows.remaining() < ROW_BYTES) {
+                    rows.flip();
+                    rowPosition += writeFully(channel, rows, rowPosition);
+                    rows.clear();
+                }
+                rows.putLong(store.balanceMinor(row));
+                rows.putLong(nameOffset);
+                rows.putInt(name == null ? -1 : nameBytes.length);
+                rows.put((byte) store.status(row).ordinal());
+                rows.put((byte) 0).put((byte) 0).put((byte) 0);
+                rows.put(id);
+                nameOffset += nameBytes.length;
+
+                if (names.remaining() < nameBytes.length) {
+                    names.flip();
+                    namePosition += writeFully(channel, names, namePosition);
+                    names.clear();
+                }
+                if (nameBytes.length > names.capacity()) {
+                    namePosition += writeFully(channel, ByteBuffer.wrap(nameBytes), namePosition);
+                } else {
+                    names.put(nameBytes);
+                }
+            }
+            rows.flip();
+            writeFully(channel, rows, rowPosition);
+            names.flip();
+            writeFully(channel, names, namePosition);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ---------- Load ----------
+
+    /**
+     * Maps the snapshot and restores it into a new store, splitting the rows
+     * across {@code threads} loader threads.
+     *
+     * @param capacity Capacity of the new store; raised to the snapshot's row count if smaller
+     * @throws IOException if the file is not a valid snapshot
+     */
+    public static Loaded load(Path file, int capacity, int threads) throws IOException {
+        try (Arena arena = Arena.ofShared();
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("Snapshot too short: " + file);
+            }
+            MemorySegment map = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize, arena);
+            Header header = checkHeader(map, fileSize, file);
+            int count = header.count();
+            long walSeq = header.walSeq();
+
+            AccountStore store = new AccountStore(Math.max(1, Math.max(capacity, count)));
+            try {
+                restoreParallel(map, store, count, Math.max(1, threads));
+                store.finishRestore(count);
+            } catch (IOException | RuntimeException e) {
+                store.close();
+                throw e;
+            }
+            return new Loaded(store, walSeq);
+        }
+    }
+
+    /**
+     * Reads the header of a snapshot without loading its rows.
+     *
+     * @throws IOException if the file is not a valid snapshot
+     */
+    public static Header readHeader(Path file) throws IOException {
+        try (Arena arena = Arena.ofConfined();
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("Snapshot too short: " + file);
+            }
+            MemorySegment map = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES, arena);
+            return checkHeader(map, fileSize, file);
+        }
+    }
+
+    private static Header checkHeader(MemorySegment map, long fileSize, Path file) throws IOException {
+        if (map.get(INT, 0) != MAGIC) {
+            throw new IOException("Not an account snapshot: " + file);
+        }
+        if (map.get(INT, 4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + map.get(INT, 4) + ": " + file);
+        }
+        int count = map.get(INT, 8);
+        long walSeq = map.get(LONG, 16);
+        long namesOffset = map.get(LONG, 24);
+        if (count < 0 || namesOffset != HEADER_BYTES + (long) count * ROW_BYTES || namesOffset > fileSize) {
+            throw new IOException("Corrupt snapshot header: " + file);
+        }
+        return new Header(count, walSeq);
+    }
+
+    private static void restoreParallel(MemorySegment map, AccountStore store,
+                                        int count, int threads) throws IOException {
+        int chunks = Math.min(threads, Math.max(1, count / 4096));
+        if (chunks == 1) {
+            restoreRows(map, store, 0, count);
+            return;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(chunks);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>(chunks);
+            for (int c = 0; c < chunks; c++) {
+                int from = (int) ((long) count * c / chunks);
+                int to = (int) ((long) count * (c + 1) / chunks);
+                tasks.add(() -> {
+                    restoreRows(map, store, from, to);
+                    return null;
+                });
+            }
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading snapshot", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void restoreRows(MemorySegment map, AccountStore store, int from, int to) throws IOException {
+        long fileSize = map.byteSize();
+        byte[] nameBuffer = new byte[256];
+        for (int row = from; row < to; row++) {
+            long base = HEADER_BYTES + (long) row * ROW_BYTES;
+            long balance = map.get(LONG, base);
+            long nameOffset = map.get(LONG, base + 8);
+            int nameLength = map.get(INT, base + 16);
+            int status = map.get(ValueLayout.JAVA_BYTE, base + 20);
+            if (status < 0 || status >= STATUSES.length
+                    || nameLength < -1 || nameOffset < 0 || nameOffset + Math.max(0, nameLength) > fileSize) {
+                throw new IOException("Corrupt snapshot row " + row);
+            }
+
+            String name = null;
+            if (nameLength >= 0) {
+                if (nameLength > nameBuffer.length) {
+                    nameBuffer = new byte[nameLength];
+                }
+                MemorySegment.copy(map, ValueLayout.JAVA_BYTE, nameOffset, nameBuffer, 0, nameLength);
+                name = new String(nameBuffer, 0, nameLength, StandardCharsets.UTF_8);
+            }
+            store.restoreRow(row, map, base + 24, name, balance, STATUSES[status]);
+        }
+    }
+
+    // ---------- Helpers ----------
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+}
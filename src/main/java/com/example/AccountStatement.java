@@ -0,0 +1,148 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Paginated statements over a {@link TransactionJournal}.
+ *
+ * A page holds at most {@code pageSize} entries plus a cursor for the next
+ * page, so memory stays bounded however long the history is. Pages walk
+ * only the account's own entry chain, newest or oldest first, and can be
+ * limited to a time range. A cursor whose entry has meanwhile dropped out
+ * of the journal ends the statement.
+ */
+public final class AccountStatement {
+
+    public enum Order { NEWEST_FIRST, OLDEST_FIRST }
+
+    /** Cursor for the first page, in either order. */
+    public static final long START = Long.MAX_VALUE;
+    /** Cursor returned when there are no more pages. */
+    public static final long END = -1;
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    public record Entry(long seq, long timestampMillis, TransactionType type, long amountMinor,
+                        String counterpartyId) {
+    }
+
+    public record Page(List<Entry> entries, long nextCursor) {
+        public boolean hasMore() {
+            return nextCursor != END;
+        }
+    }
+
+    private final TransactionJournal journal;
+
+    public AccountStatement(TransactionJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Reads one page.
+     *
+     * @param fromMillis First timestamp included, e.g. {@code Long.MIN_VALUE}
+     * @param toMillis   First timestamp excluded, e.g. {@code Long.MAX_VALUE}
+     * @param cursor     {@link #START}, or the {@code nextCursor} of the previous page
+     */
+    public Page page(String clientId, long fromMillis, long toMillis, Order order, long cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        if (cursor == END) return new Page(List.of(), END);
+        boolean forward = order == Order.OLDEST_FIRST;
+        long start = cursor != START ? cursor
+                : forward ? firstFrom(clientId, fromMillis) : journal.newestSeq(clientId);
+        if (start < 0) return new Page(List.of(), END);
+
+        List<Entry> entries = new ArrayList<>(Math.min(pageSize, DEFAULT_PAGE_SIZE));
+        long[] next = { END };
+        journal.walk(clientId, start, forward, (seq, time, type, amount, counterpartyId) -> {
+            if (forward ? time >= toMillis : time < fromMillis) return false;  // past the range
+            if (forward ? time < fromMillis : time >= toMillis) return true;   // not in it yet
+            if (entries.size() == pageSize) {
+                next[0] = seq;
+                return false;
+            }
+            entries.add(new Entry(seq, time, type, amount, counterpartyId));
+            return true;
+        });
+        return new Page(entries, next[0]);
+    }
+
+    /**
+     * Lazily streams every entry in the range, one page at a time.
+     */
+    public Stream<Entry> stream(String clientId, long fromMillis, long toMillis, Order order) {
+        Iterator<Entry> pages = new Iterator<>() {
+            private Page page = page(clientId, fromMillis, toMillis, order, START, DEFAULT_PAGE_SIZE);
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                if (index == page.entries().size() && page.hasMore()) {
+                    page = page(clientId, fromMillis, toMillis, order, page.nextCursor(), DEFAULT_PAGE_SIZE);
+                    index = 0;
+                }
+                return index < page.entries().size();
+            }
+
+            @Override
+            public Entry next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return page.entries().get(index++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // Oldest retained entry at or after fromMillis. The walk starts at whichever
+    // end of the chain is closer in time, so an unbounded range costs one step
+    private long firstFrom(String clientId, long fromMillis) {
+        long tail = journal.oldestSeq(clientId);
+        long[] oldest = null;
+        while (tail >= 0 && (oldest = peek(clientId, tail)) == null) {
+            long moved = journal.oldestSeq(clientId);  // the tail was overwritten meanwhile
+            if (moved == tail) break;
+            tail = moved;
+        }
+        if (oldest == null) return END;
+        if (oldest[1] >= fromMillis) return oldest[0];
+        long[] newest = peek(clientId, journal.newestSeq(clientId));
+        if (newest == null || newest[1] < fromMillis) return END;
+
+        long[] first = { END };
+        if (fromMillis - oldest[1] <= newest[1] - fromMillis) {
+            journal.walk(clientId, oldest[0], true, (seq, time, type, amount, counterpartyId) -> {
+                if (time < fromMillis) return true;
+                first[0] = seq;
+                return false;
+            });
+        } else {
+            journal.walk(clientId, newest[0], false, (seq, time, type, amount, counterpartyId) -> {
+                if (time < fromMillis) return false;
+                first[0] = seq;
+                return true;
+            });
+        }
+        return first[0];
+    }
+
+    // {seq, timestamp} of one retained entry, or null
+    private long[] peek(String clientId, long seq) {
+        long[] entry = { END, 0 };
+        journal.walk(clientId, seq, true, (s, time, type, amount, counterpartyId) -> {
+            entry[0] = s;
+            entry[1] = time;
+            return false;
+        });
+        return entry[0] == END ? null : entry;
+    }
+}
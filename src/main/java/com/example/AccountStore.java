@@ -0,0 +1,282 @@
+package com.example;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Columnar account storage kept off-heap.
+ * Balances, status ordinals and client ids live in native memory segments,
+ * one column each, so millions of accounts cost no per-account heap objects
+ * and add nothing to GC marking. Display names stay on the heap.
+ *
+ * Rows are addressed by a dense int index; {@link #view(int)} returns a
+ * cheap {@link Account} flyweight over a row.
+ */
+public final class AccountStore implements AutoCloseable {
+
+    /** Maximum length of a client id, in ASCII characters. */
+    public static final int ID_BYTES = 16;
+
+    private static final VarHandle LONG = ValueLayout.JAVA_LONG.varHandle();
+    private static final VarHandle BYTE = ValueLayout.JAVA_BYTE.varHandle();
+    private static final AccountStatus[] STATUSES = AccountStatus.values();
+
+    private final Arena arena;
+    private final MemorySegment balances;   // long per row, minor units
+    private final MemorySegment contention; // long per row, failed CAS attempts
+    private final MemorySegment statuses;   // byte per row, AccountStatus ordinal
+    private final MemorySegment ids;        // ID_BYTES per row, zero padded
+    private final String[] names;
+    private final ClientIdIndex index;
+    private final int capacity;
+    private volatile int size;
+
+    public AccountStore(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.arena = Arena.ofShared();
+        this.balances = arena.allocate((long) capacity * Long.BYTES, Long.BYTES);
+        this.contention = arena.allocate((long) capacity * Long.BYTES, Long.BYTES);
+        this.statuses = arena.allocate(capacity, 1);
+        this.ids = arena.allocate((long) capacity * ID_BYTES, Long.BYTES);
+        this.names = new String[capacity];
+        this.index = new ClientIdIndex(capacity);
+    }
+
+    /**
+     * Appends a new account row.
+     *
+     * @return Row index of the new account
+     * @throws IllegalStateException if the store is full
+     * @throws IllegalArgumentException if the client id does not fit the id column
+     *                                  or is already present
+     */
+    public synchronized int add(String clientId, String clientName,
+                                long balanceMinor, AccountStatus status) {
+        if (size == capacity) {
+            throw new IllegalStateException("Account store is full: " + capacity);
+        }
+        byte[] id = encodeId(clientId);
+        if (index.contains(clientId)) {
+            throw new IllegalArgumentException("Duplicate client id: " + clientId);
+        }
+        int row = size;
+        MemorySegment.copy(id, 0, ids, ValueLayout.JAVA_BYTE, (long) row * ID_BYTES, id.length);
+        names[row] = clientName;
+        LONG.setVolatile(balances, longOffset(row), balanceMinor);
+        BYTE.setVolatile(statuses, (long) row, (byte) status.ordinal());
+        size = row + 1;
+        index.put(clientId, row);
+        return row;
+    }
+
+    /**
+     * @return Row of the client id, or {@link ClientIdIndex#NOT_FOUND}
+     */
+    public int rowOf(String clientId) {
+        return index.get(clientId);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns a flyweight {@link Account} backed by the given row.
+     */
+    public Account view(int row) {
+        checkRow(row);
+        return new Account(this, row);
+    }
+
+    // ---------- Column Access ----------
+
+    public long balanceMinor(int row) {
+        checkRow(row);
+        return (long) LONG.getVolatile(balances, longOffset(row));
+    }
+
+    public AccountStatus status(int row) {
+        checkRow(row);
+        return STATUSES[(byte) BYTE.getVolatile(statuses, (long) row)];
+    }
+
+    public void setStatus(int row, AccountStatus status) {
+        checkRow(row);
+        BYTE.setVolatile(statuses, (long) row, (byte) status.ordinal());
+    }
+
+    public long contentionCount(int row) {
+        checkRow(row);
+        return (long) LONG.getVolatile(contention, longOffset(row));
+    }
+
+    /**
+     * Decodes the client id of a row. Allocates a String.
+     */
+    public String clientId(int row) {
+        checkRow(row);
+        return decodeId(row);
+    }
+
+    private String decodeId(int row) {
+        long base = (long) row * ID_BYTES;
+        int length = 0;
+        while (length < ID_BYTES && ids.get(ValueLayout.JAVA_BYTE, base + length) != 0) {
+            length++;
+        }
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(ids, ValueLayout.JAVA_BYTE, base, bytes, 0, length);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    public String clientName(int row) {
+        checkRow(row);
+        return names[row];
+    }
+
+    /**
+     * Compares a row's client id with the given id without decoding it.
+     */
+    public boolean idEquals(int row, String clientId) {
+        checkRow(row);
+        int length = clientId.length();
+        if (length > ID_BYTES) return false;
+        long base = (long) row * ID_BYTES;
+        for (int i = 0; i < length; i++) {
+            if (ids.get(ValueLayout.JAVA_BYTE, base + i) != (byte) clientId.charAt(i)) return false;
+        }
+        return length == ID_BYTES || ids.get(ValueLayout.JAVA_BYTE, base + length) == 0;
+    }
+
+    // ---------- Balance CAS ----------
+
+    public boolean withdrawMinor(int row, long amountMinor) {
+        if (status(row) != AccountStatus.VERIFIED) return false;
+        if (amountMinor <= 0) return false;
+        long offset = longOffset(row);
+        long current = (long) LONG.getVolatile(balances, offset);
+        while (true) {
+            if (amountMinor > current) return false;
+            if (LONG.compareAndSet(balances, offset, current, current - amountMinor)) return true;
+            LONG.getAndAdd(contention, offset, 1L);
+            if (status(row) != AccountStatus.VERIFIED) return false;
+            current = (long) LONG.getVolatile(balances, offset);
+        }
+    }
+
+    public boolean depositMinor(int row, long amountMinor) {
+        if (status(row) == AccountStatus.CLOSED || amountMinor <= 0) return false;
+        long offset = longOffset(row);
+        long current = (long) LONG.getVolatile(balances, offset);
+        while (true) {
+            if (Money.addOverflows(current, amountMinor)) return false;
+            if (LONG.compareAndSet(balances, offset, current, current + amountMinor)) return true;
+            LONG.getAndAdd(contention, offset, 1L);
+            if (status(row) == AccountStatus.CLOSED) return false;
+            current = (long) LONG.getVolatile(balances, offset);
+        }
+    }
+
+    /**
+     * Adds a signed amount ignoring status and limits; see {@link Account#adjustMinor(long)}.
+     */
+    void adjustMinor(int row, long deltaMinor) {
+        checkRow(row);
+        LONG.getAndAdd(balances, longOffset(row), deltaMinor);
+    }
+
+    // ---------- Snapshot Support ----------
+
+    /**
+     * Copies a row's zero-padded id bytes into {@code target}.
+     */
+    void copyId(int row, byte[] target, int offset) {
+        checkRow(row);
+        MemorySegment.copy(ids, ValueLayout.JAVA_BYTE, (long) row * ID_BYTES, target, offset, ID_BYTES);
+    }
+
+    /**
+     * Writes a row of an empty store without indexing it. Distinct rows may be
+     * restored from several threads; {@link #finishRestore(int)} publishes them.
+     */
+    void restoreRow(int row, MemorySegment idSource, long idOffset, String clientName,
+                    long balanceMinor, AccountStatus status) {
+        Objects.checkIndex(row, capacity);
+        MemorySegment.copy(idSource, idOffset, ids, (long) row * ID_BYTES, ID_BYTES);
+        names[row] = clientName;
+        balances.set(ValueLayout.JAVA_LONG, longOffset(row), balanceMinor);
+        statuses.set(ValueLayout.JAVA_BYTE, row, (byte) status.ordinal());
+    }
+
+    /**
+     * Indexes restored rows {@code [0, count)} and makes them visible.
+     *
+     * @throws IllegalArgumentException if two rows share a client id
+     */
+    synchronized void finishRestore(int count) {
+        if (size != 0 || count > capacity) {
+            throw new IllegalStateException("Restore needs an empty store with room for " + count);
+        }
+        for (int row = 0; row < count; row++) {
+            long base = (long) row * ID_BYTES;
+            long numericId = ClientIdIndex.parseNumericId(ids, base, ID_BYTES);
+            if (numericId >= 0) {
+                if (index.get(numericId) != ClientIdIndex.NOT_FOUND) {
+                    throw new IllegalArgumentException("Duplicate client id: " + numericId);
+                }
+                index.put(numericId, row);
+            } else {
+                String clientId = decodeId(row);
+                if (index.contains(clientId)) {
+                    throw new IllegalArgumentException("Duplicate client id: " + clientId);
+                }
+                index.put(clientId, row);
+            }
+        }
+        size = count;
+    }
+
+    /**
+     * Releases the off-heap columns. Views must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    // ---------- Helpers ----------
+
+    private void checkRow(int row) {
+        Objects.checkIndex(row, size);
+    }
+
+    private static long longOffset(int row) {
+        return (long) row * Long.BYTES;
+    }
+
+    private static byte[] encodeId(String clientId) {
+        if (clientId == null || clientId.isEmpty() || clientId.length() > ID_BYTES) {
+            throw new IllegalArgumentException("Client id must be 1-" + ID_BYTES + " characters: " + clientId);
+        }
+        byte[] bytes = new byte[clientId.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = clientId.charAt(i);
+            if (c == 0 || c > 127) {
+                throw new IllegalArgumentException("Client id must be ASCII: " + clientId);
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+}
@@ -1,13 +1,29 @@
 package com.example;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 /**
  * Hello world!
  *
+ * With arguments {@code <snapshotFile> <walDirectory> [threads] [capacity]}
+ * it instead recovers the account store from a snapshot and the log tail
+ * and reports the time to ready. The store holds at least the accounts the
+ * snapshot and log hold; {@code capacity} leaves room for more.
  */
 public class App 
 {
-    public static void main( String[] args )
+    public static void main( String[] args ) throws IOException
     {
-        System.out.println( "Hello World!" );
+        if ( args.length < 2 )
+        {
+            System.out.println( "Hello World!" );
+            return;
+        }
+        int threads = args.length > 2 ? Integer.parseInt( args[2] ) : Runtime.getRuntime().availableProcessors();
+        int capacity = args.length > 3 ? Integer.parseInt( args[3] ) : 0;
+        Recovery.Result result = Recovery.recover( Path.of( args[0] ), Path.of( args[1] ), capacity, threads );
+        System.out.println( result );
+        result.store().close();
     }
 }
@@ -0,0 +1,122 @@
+package com.example;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking calls on virtual threads, one per task, with two limits:
+ * how many tasks may run at once (e.g. calls into the credit backend) and
+ * how many may be in flight in total. Tasks over the first limit wait on a
+ * parked virtual thread; tasks over the second are rejected immediately.
+ */
+public final class AsyncExecutor implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_CONCURRENT = 10_000;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 100_000;
+
+    private static final AsyncExecutor SHARED =
+            new AsyncExecutor(DEFAULT_MAX_CONCURRENT, DEFAULT_MAX_IN_FLIGHT);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore running;
+    private final Semaphore admitted;
+    private final int maxConcurrent;
+    private final int maxInFlight;
+
+    /**
+     * @param maxConcurrent Tasks allowed to execute at the same time
+     * @param maxInFlight   Tasks allowed to be queued or executing; more are rejected
+     */
+    public AsyncExecutor(int maxConcurrent, int maxInFlight) {
+        if (maxConcurrent <= 0 || maxInFlight < maxConcurrent) {
+            throw new IllegalArgumentException(
+                    "Need 0 < maxConcurrent <= maxInFlight: " + maxConcurrent + ", " + maxInFlight);
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxInFlight = maxInFlight;
+        this.running = new Semaphore(maxConcurrent);
+        this.admitted = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Process-wide executor with the default limits, used when none is configured.
+     */
+    public static AsyncExecutor shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return Future of the task's result; failed with RejectedExecutionException
+     *         when the in-flight limit is reached. Cancelling it before the task
+     *         starts skips the task.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (!admitted.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("In-flight limit reached: " + maxInFlight));
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> run(task, future));
+        } catch (RejectedExecutionException e) {
+            admitted.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public int inFlight() {
+        return maxInFlight - admitted.availablePermits();
+    }
+
+    public int executing() {
+        return maxConcurrent - running.availablePermits();
+    }
+
+    public int maxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    // Permits are released before the future completes, so a caller that
+    // sees the result also sees the freed capacity
+    private <T> void run(Supplier<T> task, CompletableFuture<T> future) {
+        T result = null;
+        Throwable failure = null;
+        try {
+            running.acquire();
+            try {
+                // Skipped if cancelled while it waited: nobody wants the result any more
+                if (!future.isDone()) {
+                    result = task.get();
+                }
+            } finally {
+                running.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            admitted.release();
+        }
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else {
+            future.complete(result);
+        }
+    }
+}
@@ -4,9 +4,7 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.GridLayout;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -20,12 +18,17 @@ import javax.swing.JTextField;
 
 public class BankSystemGUI {
 
+    private static final int STATEMENT_PAGE_SIZE = 10;
+
     public static void main(String[] args) {
 
         // ---------- Backend Setup ----------
         CreditService creditService = clientId -> 620; // Mock credit score
         AccountController controller = new AccountController();
         CreditScoreFeature creditFeature = new CreditScoreFeature(creditService, controller);
+        TransactionJournal journal = new TransactionJournal();
+        controller.getProcessor().setJournal(journal);
+        AccountStatement statements = new AccountStatement(journal);
 
         // ---------- Accounts ----------
         List<Account> accounts = new ArrayList<>();
@@ -34,22 +37,19 @@ public class BankSystemGUI {
         accounts.add(new Account("1003", "Maryam", 300.0, AccountStatus.SUSPENDED));
         accounts.add(new Account("1004", "Nourhan", 800.0, AccountStatus.UNVERIFIED));
 
-        // Map for quick lookup (Transfers)
-        Map<String, Account> accountMap = new HashMap<>();
-        for (Account acc : accounts) {
-            accountMap.put(acc.getClientId(), acc);
-        }
-
-        // Transaction History (ClientId -> Logs)
-        Map<String, List<String>> historyMap = new HashMap<>();
-        for (Account acc : accounts) {
-            historyMap.put(acc.getClientId(), new ArrayList<>());
+        // Index for quick lookup (ClientId -> position in accounts)
+        ClientIdIndex accountIndex = new ClientIdIndex(accounts.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            accountIndex.put(accounts.get(i).getClientId(), i);
         }
 
         // Current User (index-based switching)
         final int[] currentIndex = {0};
         final Account[] currentAccount = {accounts.get(0)};
 
+        // Statement paging: cursor of the next page for the current user
+        final long[] statementCursor = {AccountStatement.END};
+
         // ---------- GUI Setup ----------
         JFrame frame = new JFrame("Bank System - Term Project");
         frame.setSize(600, 500);
@@ -87,7 +87,7 @@ public class BankSystemGUI {
         frame.add(infoPanel, BorderLayout.NORTH);
 
         // ---------- Action Panel ----------
-        JPanel actionPanel = new JPanel(new GridLayout(3, 2, 8, 8));
+        JPanel actionPanel = new JPanel(new GridLayout(4, 2, 8, 8));
         actionPanel.setBorder(BorderFactory.createTitledBorder("Actions"));
 
         actionPanel.add(new JLabel("Amount:"));
@@ -98,11 +98,14 @@ public class BankSystemGUI {
         JButton withdrawButton = new JButton("Withdraw");
         JButton transferButton = new JButton("Transfer");
         JButton viewStatementButton = new JButton("View Statement");
+        JButton moreHistoryButton = new JButton("More History");
+        moreHistoryButton.setEnabled(false);
 
         actionPanel.add(depositButton);
         actionPanel.add(withdrawButton);
         actionPanel.add(transferButton);
         actionPanel.add(viewStatementButton);
+        actionPanel.add(moreHistoryButton);
 
         frame.add(actionPanel, BorderLayout.CENTER);
 
@@ -119,7 +122,7 @@ public class BankSystemGUI {
 
             nameField.setText(acc.getClientName());
             accountNumField.setText(acc.getClientId());
-            balanceField.setText(String.valueOf(acc.getBalance()));
+            balanceField.setText(Money.format(acc.getBalanceMinor()));
             statusLabel.setText(acc.getStatus().toString());
 
             boolean isVerified = acc.getStatus() == AccountStatus.VERIFIED;
@@ -131,15 +134,14 @@ public class BankSystemGUI {
             depositButton.setEnabled(!isSuspended && !isClosed);
         };
 
-        java.util.function.BiConsumer<Account, String> logTransaction
-                = (acc, msg) -> historyMap.get(acc.getClientId()).add(msg);
-
         updateUI.run();
 
 
         switchUserButton.addActionListener(e -> {
             currentIndex[0] = (currentIndex[0] + 1) % accounts.size();
             currentAccount[0] = accounts.get(currentIndex[0]);
+            statementCursor[0] = AccountStatement.END;
+            moreHistoryButton.setEnabled(false);
 
             notificationBox.append(">>> Switched to user: "
                     + currentAccount[0].getClientName() + "\n");
@@ -149,11 +151,10 @@ public class BankSystemGUI {
         depositButton.addActionListener(e -> {
             Account acc = currentAccount[0];
             try {
-                double amount = Double.parseDouble(amountField.getText());
-                if (controller.deposit(acc, amount)) {
-                    String msg = "Deposit Successful: $" + amount;
+                long amount = Money.parse(amountField.getText());
+                if (controller.depositMinor(acc, amount)) {
+                    String msg = "Deposit Successful: $" + Money.format(amount);
                     notificationBox.append(msg + "\n");
-                    logTransaction.accept(acc, msg);
                     updateUI.run();
                 } else {
                     notificationBox.append("Deposit Failed.\n");
@@ -165,11 +166,8 @@ public class BankSystemGUI {
 
         withdrawButton.addActionListener(e -> {
             Account acc = currentAccount[0];
-            String result = creditFeature.handleWithdrawal(acc, amountField.getText());
-            notificationBox.append(result + "\n");
-            if (result.toLowerCase().contains("successful")) {
-                logTransaction.accept(acc, "Withdrawal: $" + amountField.getText());
-            }
+            WithdrawalOutcome outcome = creditFeature.handleWithdrawalOutcome(acc, amountField.getText());
+            notificationBox.append(outcome.message() + "\n");
             updateUI.run();
         });
 
@@ -188,22 +186,18 @@ public class BankSystemGUI {
                 return;
             }
 
-            Account to = accountMap.get(targetId);
-            if (to == null) {
+            int targetSlot = accountIndex.get(targetId.trim());
+            if (targetSlot == ClientIdIndex.NOT_FOUND) {
                 notificationBox.append("Target account not found.\n");
                 return;
             }
+            Account to = accounts.get(targetSlot);
 
             try {
-                double amount = Double.parseDouble(amountField.getText());
-
-                // Now calling controller.transfer(from, to, amount)
-                if (controller.transfer(from, to, amount)) {
-                    logTransaction.accept(from,
-                            "Transferred $" + amount + " to " + to.getClientName());
-                    logTransaction.accept(to,
-                            "Received $" + amount + " from " + from.getClientName());
+                long amount = Money.parse(amountField.getText());
 
+                // Now calling controller.transferMinor(from, to, amount)
+                if (controller.transferMinor(from, to, amount)) {
                     notificationBox.append("Transfer completed to " + to.getClientName() + "\n");
                     updateUI.run();
                 } else {
@@ -215,25 +209,51 @@ public class BankSystemGUI {
             }
         });
 
-        // Statement
+        // Statement, newest first, one page at a time
+        java.util.function.LongConsumer showStatementPage = cursor -> {
+            Account acc = currentAccount[0];
+            AccountStatement.Page page = statements.page(acc.getClientId(), Long.MIN_VALUE, Long.MAX_VALUE,
+                    AccountStatement.Order.NEWEST_FIRST, cursor, STATEMENT_PAGE_SIZE);
+            if (page.entries().isEmpty() && cursor == AccountStatement.START) {
+                notificationBox.append(" (No transactions)\n");
+            }
+            for (AccountStatement.Entry entry : page.entries()) {
+                String name = entry.counterpartyId() == null ? null
+                        : accounts.get(accountIndex.get(entry.counterpartyId())).getClientName();
+                notificationBox.append(" - " + describe(entry.type(), entry.amountMinor(), name) + "\n");
+            }
+            notificationBox.append(page.hasMore() ? "(More History for older transactions)\n" : "-----------------\n");
+            statementCursor[0] = page.nextCursor();
+            moreHistoryButton.setEnabled(page.hasMore());
+        };
+
         viewStatementButton.addActionListener(e -> {
             Account acc = currentAccount[0];
             notificationBox.append("\n--- Statement ---\n");
             notificationBox.append("Name: " + acc.getClientName() + "\n");
             notificationBox.append("Acc#: " + acc.getClientId() + "\n");
             notificationBox.append("Status: " + acc.getStatus() + "\n");
-            notificationBox.append("Balance: $" + acc.getBalance() + "\n");
-            notificationBox.append("Transactions:\n");
-
-            List<String> logs = historyMap.get(acc.getClientId());
-            if (logs.isEmpty()) {
-                notificationBox.append(" (No transactions)\n");
-            } else {
-                logs.forEach(log -> notificationBox.append(" - " + log + "\n"));
-            }
-            notificationBox.append("-----------------\n");
+            notificationBox.append("Balance: $" + Money.format(acc.getBalanceMinor()) + "\n");
+            notificationBox.append("Transactions (newest first):\n");
+            showStatementPage.accept(AccountStatement.START);
         });
 
+        moreHistoryButton.addActionListener(e -> showStatementPage.accept(statementCursor[0]));
+
         frame.setVisible(true);
     }
+
+    private static String describe(TransactionType type, long amountMinor, String counterpartyName) {
+        String amount = "$" + Money.format(Math.abs(amountMinor));
+        switch (type) {
+            case DEPOSIT:
+                return "Deposit Successful: " + amount;
+            case WITHDRAWAL:
+                return "Withdrawal: " + amount;
+            default:
+                return amountMinor < 0
+                        ? "Transferred " + amount + " to " + counterpartyName
+                        : "Received " + amount + " from " + counterpartyName;
+        }
+    }
 }
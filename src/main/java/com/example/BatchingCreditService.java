@@ -0,0 +1,180 @@
+package com.example;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link CreditService} decorator that turns single lookups into bulk calls.
+ * Lookups are gathered until {@code maxBatchSize} distinct ids are waiting
+ * or {@code windowMillis} has passed since the first of them, then sent as
+ * one {@link CreditService#getCreditScores(Collection)} call. Each caller
+ * still receives its own score.
+ */
+public class BatchingCreditService implements CreditService, AutoCloseable {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final long DEFAULT_WINDOW_MILLIS = 2;
+
+    private final CreditService delegate;
+    private final int maxBatchSize;
+    private final long windowMillis;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Map<String, CompletableFuture<Integer>> pending; // guarded by lock
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedIds = new LongAdder();
+
+    public BatchingCreditService(CreditService delegate) {
+        this(delegate, DEFAULT_MAX_BATCH_SIZE, DEFAULT_WINDOW_MILLIS);
+    }
+
+    public BatchingCreditService(CreditService delegate, int maxBatchSize, long windowMillis) {
+        if (maxBatchSize <= 0 || windowMillis < 0) {
+            throw new IllegalArgumentException("Invalid batch settings: " + maxBatchSize + ", " + windowMillis);
+        }
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.windowMillis = windowMillis;
+        this.timer = Executors.newSingleThreadScheduledExecutor(DaemonThreads.named("credit-batch-timer"));
+    }
+
+    /**
+     * Blocks until the batch holding this lookup has been answered.
+     */
+    @Override
+    public int getCreditScore(String clientId) {
+        try {
+            return getCreditScoreAsync(clientId).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Integer> getCreditScoreAsync(String clientId) {
+        requests.increment();
+        CompletableFuture<Integer> result;
+        Map<String, CompletableFuture<Integer>> full = null;
+        lock.lock();
+        try {
+            if (pending == null) {
+                Map<String, CompletableFuture<Integer>> batch = new LinkedHashMap<>();
+                pending = batch;
+                timer.schedule(() -> flush(batch), windowMillis, TimeUnit.MILLISECONDS);
+            }
+            result = pending.computeIfAbsent(clientId, id -> new CompletableFuture<>());
+            if (pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return result.copy();
+    }
+
+    /**
+     * Already a bulk call: passed straight to the delegate.
+     */
+    @Override
+    public Map<String, Integer> getCreditScores(Collection<String> clientIds) {
+        requests.add(clientIds.size());
+        batches.increment();
+        batchedIds.add(clientIds.size());
+        return delegate.getCreditScores(clientIds);
+    }
+
+    // ---------- Statistics ----------
+
+    /** Individual ids asked for. */
+    public long requestCount() {
+        return requests.sum();
+    }
+
+    /** Bulk calls made to the delegate. */
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    public double averageBatchSize() {
+        long b = batches.sum();
+        return b == 0 ? 0.0 : (double) batchedIds.sum() / b;
+    }
+
+    /**
+     * Sends any waiting lookups and stops the batching threads.
+     */
+    @Override
+    public void close() {
+        Map<String, CompletableFuture<Integer>> batch;
+        lock.lock();
+        try {
+            batch = pending;
+            pending = null;
+        } finally {
+            lock.unlock();
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+        timer.shutdownNow();
+        dispatcher.close();
+    }
+
+    // ---------- Internals ----------
+
+    // Window elapsed: send the batch unless it already went out full
+    private void flush(Map<String, CompletableFuture<Integer>> batch) {
+        lock.lock();
+        try {
+            if (pending != batch) return;
+            pending = null;
+        } finally {
+            lock.unlock();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<String, CompletableFuture<Integer>> batch) {
+        batches.increment();
+        batchedIds.add(batch.size());
+        dispatcher.execute(() -> {
+            try {
+                Map<String, Integer> scores = delegate.getCreditScores(batch.keySet());
+                for (Map.Entry<String, CompletableFuture<Integer>> e : batch.entrySet()) {
+                    Integer score = scores.get(e.getKey());
+                    if (score != null) {
+                        e.getValue().complete(score);
+                    } else {
+                        e.getValue().completeExceptionally(
+                                new NoSuchElementException("No credit score for " + e.getKey()));
+                    }
+                }
+            } catch (Throwable t) {
+                for (CompletableFuture<Integer> f : batch.values()) {
+                    f.completeExceptionally(t);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,486 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link CreditService} decorator that caches scores for a limited time.
+ *
+ * The cache is bounded and uses a W-TinyLFU style policy: new entries land
+ * in a small LRU window; an entry leaving the window only enters the main
+ * area (a segmented LRU of probation and protected entries) if a count-min
+ * sketch says it was requested more often than the entry it would evict.
+ * One-off lookups therefore cannot flush out frequently used scores.
+ *
+ * Lookups read a concurrent map without locking; policy bookkeeping on a
+ * hit is skipped when another thread holds the policy lock.
+ *
+ * With {@link #setRefreshAhead(long)} a hit on an entry close to expiry
+ * reloads it in the background, so frequently used scores never expire
+ * in front of a caller.
+ *
+ * Every load notes the version of its key's stripe before calling the
+ * delegate; {@link #invalidate(String)} bumps it, so a load that was
+ * already in flight cannot write the invalidated score back.
+ */
+public class CachingCreditService implements CreditService {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+    private static final byte REMOVED = 3;
+    private static final int VERSION_STRIPES = 64;
+
+    private final CreditService delegate;
+    private final long ttlNanos;
+    private final int maximumSize;
+    private final int windowCapacity;
+    private final int protectedCapacity;
+
+    private final ConcurrentHashMap<String, Node> data = new ConcurrentHashMap<>();
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final Queue window = new Queue();
+    private final Queue probation = new Queue();
+    private final Queue protectedQueue = new Queue();
+    private final FrequencySketch sketch;
+
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private volatile long refreshAfterNanos;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder prefetched = new LongAdder();
+
+    public CachingCreditService(CreditService delegate) {
+        this(delegate, DEFAULT_MAXIMUM_SIZE, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * @param maximumSize Maximum cached client ids
+     * @param ttlMillis   How long a score is served before it is fetched again
+     */
+    public CachingCreditService(CreditService delegate, int maximumSize, long ttlMillis) {
+        if (maximumSize <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Size and TTL must be positive: " + maximumSize + ", " + ttlMillis);
+        }
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.windowCapacity = Math.max(1, maximumSize / 100);
+        this.protectedCapacity = (maximumSize - windowCapacity) * 4 / 5;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    @Override
+    public int getCreditScore(String clientId) {
+        long now = System.nanoTime();
+        Node node = data.get(clientId);
+        if (node != null) {
+            if (now - node.expiresAt < 0) {
+                hits.increment();
+                onHit(node);
+                if (refreshAfterNanos > 0 && now - (node.expiresAt - ttlNanos) >= refreshAfterNanos) {
+                    refreshAhead(node);
+                }
+                return node.score;
+            }
+            expirations.increment();
+            invalidate(clientId, node);
+        }
+        misses.increment();
+        long version = versionOf(clientId);
+        int score = delegate.getCreditScore(clientId);
+        if (score >= 0) {
+            // Markers such as SCORE_UNAVAILABLE are not cached
+            put(clientId, score, System.nanoTime(), version);
+        }
+        return score;
+    }
+
+    /**
+     * Loads the scores of the given clients that are not cached yet with
+     * one bulk call, e.g. to warm the cache before traffic is admitted.
+     *
+     * @return Number of scores loaded
+     */
+    public int prefetch(Collection<String> clientIds) {
+        long now = System.nanoTime();
+        List<String> missing = new ArrayList<>();
+        for (String clientId : clientIds) {
+            Node node = data.get(clientId);
+            if (node == null || now - node.expiresAt >= 0) {
+                missing.add(clientId);
+            }
+        }
+        if (missing.isEmpty()) return 0;
+        long[] loadVersions = new long[missing.size()];
+        for (int i = 0; i < loadVersions.length; i++) {
+            loadVersions[i] = versionOf(missing.get(i));
+        }
+
+        Map<String, Integer> scores = delegate.getCreditScores(missing);
+        long loadedAt = System.nanoTime();
+        int loaded = 0;
+        for (int i = 0; i < loadVersions.length; i++) {
+            String clientId = missing.get(i);
+            Integer score = scores.get(clientId);
+            if (score != null && score >= 0 && put(clientId, score, loadedAt, loadVersions[i])) {
+                loaded++;
+            }
+        }
+        prefetched.add(loaded);
+        return loaded;
+    }
+
+    /**
+     * Enables refresh-ahead: a hit on an entry older than
+     * {@code refreshAfterMillis} reloads it asynchronously while the cached
+     * score is still served. Must be less than the TTL; 0 disables it.
+     */
+    public void setRefreshAhead(long refreshAfterMillis) {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(refreshAfterMillis);
+        if (nanos < 0 || nanos >= ttlNanos) {
+            throw new IllegalArgumentException("Refresh-ahead must be within the TTL: " + refreshAfterMillis);
+        }
+        this.refreshAfterNanos = nanos;
+    }
+
+    /**
+     * Drops the cached score of a client, e.g. after a credit event.
+     */
+    public void invalidate(String clientId) {
+        policyLock.lock();
+        try {
+            versions.incrementAndGet(stripeOf(clientId));
+            Node node = data.remove(clientId);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        policyLock.lock();
+        try {
+            for (int i = 0; i < VERSION_STRIPES; i++) {
+                versions.incrementAndGet(i);
+            }
+            for (Node node : data.values()) {
+                unlink(node);
+            }
+            data.clear();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    // ---------- Statistics ----------
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /** Entries removed or refused admission to stay within the size bound. */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public long expirationCount() {
+        return expirations.sum();
+    }
+
+    /** Background reloads started by refresh-ahead. */
+    public long refreshCount() {
+        return refreshes.sum();
+    }
+
+    /** Scores loaded by {@link #prefetch(Collection)}. */
+    public long prefetchCount() {
+        return prefetched.sum();
+    }
+
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    // ---------- Policy ----------
+
+    private void onHit(Node node) {
+        // Bookkeeping is best effort: under contention a hit just skips it
+        if (!policyLock.tryLock()) return;
+        try {
+            sketch.increment(node.key);
+            switch (node.queue) {
+                case WINDOW:
+                    window.moveToHead(node);
+                    break;
+                case PROBATION:
+                    probation.remove(node);
+                    node.queue = PROTECTED;
+                    protectedQueue.addHead(node);
+                    if (protectedQueue.size > protectedCapacity) {
+                        Node demoted = protectedQueue.tail;
+                        protectedQueue.remove(demoted);
+                        demoted.queue = PROBATION;
+                        probation.addHead(demoted);
+                    }
+                    break;
+                case PROTECTED:
+                    protectedQueue.moveToHead(node);
+                    break;
+                default:
+                    break; // removed concurrently
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void refreshAhead(Node node) {
+        String clientId = node.key;
+        if (!refreshing.add(clientId)) return;
+        refreshes.increment();
+        long version = versionOf(clientId);
+        CompletableFuture<Integer> reload;
+        try {
+            reload = delegate.getCreditScoreAsync(clientId);
+        } catch (RuntimeException e) {
+            refreshing.remove(clientId);
+            return;
+        }
+        reload.whenComplete((score, error) -> {
+            // Keep the old entry if the reload failed or was overtaken by another load
+            if (error == null && score >= 0 && data.get(clientId) == node) {
+                put(clientId, score, System.nanoTime(), version);
+            }
+            refreshing.remove(clientId);
+        });
+    }
+
+    // Returns false, caching nothing, if the key was invalidated since the load began
+    private boolean put(String clientId, int score, long now, long version) {
+        Node node = new Node(clientId, score, now + ttlNanos);
+        policyLock.lock();
+        try {
+            if (versions.get(stripeOf(clientId)) != version) return false;
+            sketch.increment(clientId);
+            Node previous = data.put(clientId, node);
+            if (previous != null) {
+                unlink(previous);
+            }
+            node.queue = WINDOW;
+            window.addHead(node);
+            if (window.size > windowCapacity) {
+                admitFromWindow();
+            }
+        } finally {
+            policyLock.unlock();
+        }
+        return true;
+    }
+
+    private long versionOf(String clientId) {
+        return versions.get(stripeOf(clientId));
+    }
+
+    private static int stripeOf(String clientId) {
+        int h = clientId.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    // Moves the window's LRU entry to probation, or evicts it if it loses
+    // the frequency contest against probation's LRU entry
+    private void admitFromWindow() {
+        Node candidate = window.tail;
+        window.remove(candidate);
+        candidate.queue = REMOVED;
+        int mainSize = probation.size + protectedQueue.size;
+        if (mainSize < maximumSize - windowCapacity) {
+            candidate.queue = PROBATION;
+            probation.addHead(candidate);
+            return;
+        }
+        Node victim = probation.tail != null ? probation.tail : protectedQueue.tail;
+        if (victim != null && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            evict(victim);
+            candidate.queue = PROBATION;
+            probation.addHead(candidate);
+        } else {
+            evict(candidate);
+        }
+    }
+
+    private void evict(Node node) {
+        unlink(node);
+        data.remove(node.key, node);
+        evictions.increment();
+    }
+
+    private void invalidate(String clientId, Node node) {
+        policyLock.lock();
+        try {
+            if (data.remove(clientId, node)) {
+                unlink(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    // Caller holds policyLock
+    private void unlink(Node node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.remove(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            case PROTECTED:
+                protectedQueue.remove(node);
+                break;
+            default:
+                break;
+        }
+        node.queue = REMOVED;
+    }
+
+    // ---------- Structures ----------
+
+    private static final class Node {
+        final String key;
+        final int score;
+        final long expiresAt;
+        byte queue = REMOVED;
+        Node prev;
+        Node next;
+
+        Node(String key, int score, long expiresAt) {
+            this.key = key;
+            this.score = score;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // Intrusive doubly linked LRU list, head = most recently used
+    private static final class Queue {
+        Node head;
+        Node tail;
+        int size;
+
+        void addHead(Node node) {
+            node.prev = null;
+            node.next = head;
+            if (head != null) head.prev = node;
+            head = node;
+            if (tail == null) tail = node;
+            size++;
+        }
+
+        void remove(Node node) {
+            if (node.prev != null) node.prev.next = node.next;
+            else head = node.next;
+            if (node.next != null) node.next.prev = node.prev;
+            else tail = node.prev;
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToHead(Node node) {
+            if (head == node) return;
+            remove(node);
+            addHead(node);
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters, halved periodically so that old
+     * popularity fades.
+     */
+    private static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+
+        private final byte[][] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maximumSize) {
+            int width = Integer.highestOneBit(Math.max(16, maximumSize) * 2 - 1);
+            this.counters = new byte[DEPTH][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * Math.max(16, maximumSize);
+        }
+
+        int frequency(String key) {
+            int hash = key.hashCode();
+            int min = 15;
+            for (int i = 0; i < DEPTH; i++) {
+                min = Math.min(min, counters[i][index(hash, i)]);
+            }
+            return min;
+        }
+
+        void increment(String key) {
+            int hash = key.hashCode();
+            for (int i = 0; i < DEPTH; i++) {
+                int index = index(hash, i);
+                if (counters[i][index] < 15) {
+                    counters[i][index]++;
+                }
+            }
+            if (++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            for (byte[] row : counters) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+            additions /= 2;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
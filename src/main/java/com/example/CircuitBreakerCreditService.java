@@ -0,0 +1,286 @@
+package com.example;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link CreditService} decorator that stops calling a failing backend.
+ *
+ * The breaker is CLOSED while the failure rate over the last
+ * {@code windowSize} calls stays below the threshold. Above it the breaker
+ * OPENs and every lookup returns {@link CreditService#SCORE_CIRCUIT_OPEN}
+ * at once. After the open period a few trial calls are let through
+ * (HALF_OPEN); if they all succeed the breaker closes, otherwise it opens again.
+ *
+ * A bulkhead caps the calls in progress, so a slow backend cannot tie up
+ * every withdrawal thread; calls over the cap return
+ * {@link CreditService#SCORE_BUSY}. A thrown exception or a negative
+ * score counts as a failure.
+ */
+public class CircuitBreakerCreditService implements CreditService {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public static final int DEFAULT_WINDOW_SIZE = 20;
+    public static final int DEFAULT_FAILURE_RATE_PERCENT = 50;
+    public static final long DEFAULT_OPEN_MILLIS = 5_000;
+    public static final int DEFAULT_MAX_CONCURRENT_CALLS = 64;
+
+    private static final int HALF_OPEN_CALLS = 3;
+
+    private final CreditService delegate;
+    private final int failureRatePercent;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final Semaphore bulkhead;
+    private final int maxConcurrentCalls;
+
+    // Sliding window of the last calls while closed, true = failed
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+
+    private volatile State state = State.CLOSED;
+    // Bumped on every transition; results of calls admitted in an older epoch are ignored
+    private volatile int epoch;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder halfOpened = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder bulkheadRejected = new LongAdder();
+
+    public CircuitBreakerCreditService(CreditService delegate) {
+        this(delegate, DEFAULT_WINDOW_SIZE, DEFAULT_FAILURE_RATE_PERCENT,
+                DEFAULT_OPEN_MILLIS, DEFAULT_MAX_CONCURRENT_CALLS);
+    }
+
+    /**
+     * @param windowSize         Recent calls the failure rate is computed over
+     * @param failureRatePercent Failure rate at which the breaker opens
+     * @param openMillis         How long the breaker stays open before trial calls
+     * @param maxConcurrentCalls Bulkhead size
+     */
+    public CircuitBreakerCreditService(CreditService delegate, int windowSize, int failureRatePercent,
+                                       long openMillis, int maxConcurrentCalls) {
+        if (windowSize <= 0 || failureRatePercent <= 0 || failureRatePercent > 100
+                || openMillis <= 0 || maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("Invalid circuit breaker settings");
+        }
+        this.delegate = delegate;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.max(1, windowSize / 2);
+        this.failureRatePercent = failureRatePercent;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+    }
+
+    @Override
+    public int getCreditScore(String clientId) {
+        int permit = acquire();
+        if (permit < 0) return permit;
+        boolean failed = true;
+        try {
+            int score = delegate.getCreditScore(clientId);
+            failed = score < 0;
+            return score;
+        } finally {
+            release(permit, failed);
+        }
+    }
+
+    /**
+     * One bulk call counts as a single call for the breaker and the bulkhead.
+     */
+    @Override
+    public Map<String, Integer> getCreditScores(Collection<String> clientIds) {
+        int permit = acquire();
+        if (permit < 0) {
+            Map<String, Integer> scores = new HashMap<>();
+            for (String clientId : clientIds) {
+                scores.put(clientId, permit);
+            }
+            return scores;
+        }
+        boolean failed = true;
+        try {
+            Map<String, Integer> scores = delegate.getCreditScores(clientIds);
+            failed = false;
+            return scores;
+        } finally {
+            release(permit, failed);
+        }
+    }
+
+    public State state() {
+        State current = state;
+        if (current == State.OPEN) {
+            synchronized (this) {
+                if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+                    toHalfOpen();
+                }
+                return state;
+            }
+        }
+        return current;
+    }
+
+    // ---------- Statistics ----------
+
+    /** Transitions into OPEN, from CLOSED or from a failed trial. */
+    public long openCount() {
+        return opened.sum();
+    }
+
+    public long halfOpenCount() {
+        return halfOpened.sum();
+    }
+
+    /** Transitions from HALF_OPEN back to CLOSED. */
+    public long closeCount() {
+        return closed.sum();
+    }
+
+    /** Lookups refused because the breaker was open. */
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    /** Lookups refused because the bulkhead was full. */
+    public long bulkheadRejectedCount() {
+        return bulkheadRejected.sum();
+    }
+
+    public int activeCalls() {
+        return maxConcurrentCalls - bulkhead.availablePermits();
+    }
+
+    /** Failure rate of the current window, in percent. */
+    public synchronized int failureRatePercent() {
+        return windowCount == 0 ? 0 : windowFailures * 100 / windowCount;
+    }
+
+    // ---------- State Machine ----------
+
+    // Returns the epoch the call is admitted in, otherwise the (negative) score to return
+    private int acquire() {
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRejected.increment();
+            return SCORE_BUSY;
+        }
+        int permit = permitCall();
+        if (permit < 0) {
+            bulkhead.release();
+            rejected.increment();
+            return SCORE_CIRCUIT_OPEN;
+        }
+        return permit;
+    }
+
+    // Returns the current epoch, or -1 if the breaker refuses the call
+    private int permitCall() {
+        int current = epoch;
+        if (state == State.CLOSED) return current;
+        synchronized (this) {
+            switch (state) {
+                case CLOSED:
+                    return epoch;
+                case OPEN:
+                    if (System.nanoTime() - openedAt < openNanos) return -1;
+                    toHalfOpen();
+                    return startTrial();
+                default:
+                    return startTrial();
+            }
+        }
+    }
+
+    // Caller holds the monitor
+    private int startTrial() {
+        if (trialsStarted >= HALF_OPEN_CALLS) return -1;
+        trialsStarted++;
+        return epoch;
+    }
+
+    private void release(int permit, boolean failed) {
+        bulkhead.release();
+        synchronized (this) {
+            // e.g. a slow call started before the breaker opened is no trial
+            if (permit != epoch) return;
+            switch (state) {
+                case CLOSED:
+                    record(failed);
+                    if (windowCount >= minimumCalls
+                            && windowFailures * 100 >= failureRatePercent * windowCount) {
+                        toOpen();
+                    }
+                    break;
+                case HALF_OPEN:
+                    if (failed) {
+                        toOpen();
+                    } else if (++trialsSucceeded >= HALF_OPEN_CALLS) {
+                        toClosed();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    // Caller holds the monitor
+    private void record(boolean failed) {
+        if (windowCount == window.length) {
+            if (window[windowIndex]) windowFailures--;
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failed;
+        if (failed) windowFailures++;
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void toOpen() {
+        nextEpoch();
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        opened.increment();
+    }
+
+    private void toHalfOpen() {
+        nextEpoch();
+        state = State.HALF_OPEN;
+        trialsStarted = 0;
+        trialsSucceeded = 0;
+        halfOpened.increment();
+    }
+
+    private void toClosed() {
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+        nextEpoch();
+        state = State.CLOSED;
+        closed.increment();
+    }
+
+    private void nextEpoch() {
+        epoch = (epoch + 1) & Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("circuit=%s failureRate=%d%% opened=%d halfOpened=%d closed=%d rejected=%d bulkheadRejected=%d",
+                state(), failureRatePercent(), openCount(), halfOpenCount(), closeCount(),
+                rejectedCount(), bulkheadRejectedCount());
+    }
+}
@@ -0,0 +1,228 @@
+package com.example;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Maps client ids to dense int slots (store rows, list positions).
+ * Canonical numeric ids such as "1001" are parsed to a long and kept in a
+ * primitive open-addressing table (linear probing), so lookups allocate
+ * nothing and entries cost 12 bytes instead of a HashMap node.
+ * Any other id falls back to a small String map.
+ *
+ * Writers are serialized; readers use optimistic stamps and never block.
+ */
+public final class ClientIdIndex {
+
+    public static final int NOT_FOUND = -1;
+
+    private static final long EMPTY = -1L;
+
+    private final StampedLock lock = new StampedLock();
+    private final Map<String, Integer> fallback = new HashMap<>();
+    private long[] keys;
+    private int[] slots;
+    private int numericSize;
+
+    public ClientIdIndex(int expectedSize) {
+        int tableSize = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        this.keys = newKeyTable(tableSize);
+        this.slots = new int[tableSize];
+    }
+
+    /**
+     * Associates a client id with a slot, replacing any previous slot.
+     */
+    public void put(String clientId, int slot) {
+        long id = parseNumericId(clientId);
+        long stamp = lock.writeLock();
+        try {
+            if (id == EMPTY) {
+                fallback.put(clientId, slot);
+            } else {
+                putNumeric(id, slot);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Associates an already parsed numeric id (see {@link #parseNumericId}) with a slot.
+     */
+    public void put(long numericId, int slot) {
+        if (numericId < 0) {
+            throw new IllegalArgumentException("Numeric id must not be negative: " + numericId);
+        }
+        long stamp = lock.writeLock();
+        try {
+            putNumeric(numericId, slot);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return Slot of the client id, or {@link #NOT_FOUND}
+     */
+    public int get(String clientId) {
+        if (clientId == null) return NOT_FOUND;
+        long id = parseNumericId(clientId);
+        if (id != EMPTY) return get(id);
+
+        long stamp = lock.readLock();
+        try {
+            Integer slot = fallback.get(clientId);
+            return slot == null ? NOT_FOUND : slot;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Looks up an already parsed numeric id.
+     *
+     * @return Slot of the client id, or {@link #NOT_FOUND}
+     */
+    public int get(long numericId) {
+        if (numericId < 0) return NOT_FOUND;
+        long stamp = lock.tryOptimisticRead();
+        int slot = probe(numericId);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                slot = probe(numericId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return slot;
+    }
+
+    public boolean contains(String clientId) {
+        return get(clientId) != NOT_FOUND;
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return numericSize + fallback.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Parses a canonical decimal id ("0" or digits without a leading zero, at most 18).
+     *
+     * @return The numeric id, or -1 if the id must be matched as a String
+     */
+    public static long parseNumericId(CharSequence clientId) {
+        int length = clientId.length();
+        if (length == 0 || length > 18) return EMPTY;
+        if (length > 1 && clientId.charAt(0) == '0') return EMPTY;
+        long id = 0;
+        for (int i = 0; i < length; i++) {
+            int d = clientId.charAt(i) - '0';
+            if (d < 0 || d > 9) return EMPTY;
+            id = id * 10 + d;
+        }
+        return id;
+    }
+
+    /**
+     * Parses a zero-padded id held in native memory with the same rules as
+     * {@link #parseNumericId(CharSequence)}, without decoding it to a String.
+     */
+    static long parseNumericId(MemorySegment segment, long offset, int maxLength) {
+        int length = 0;
+        while (length < maxLength && segment.get(ValueLayout.JAVA_BYTE, offset + length) != 0) {
+            length++;
+        }
+        if (length == 0 || length > 18) return EMPTY;
+        if (length > 1 && segment.get(ValueLayout.JAVA_BYTE, offset) == '0') return EMPTY;
+        long id = 0;
+        for (int i = 0; i < length; i++) {
+            int d = segment.get(ValueLayout.JAVA_BYTE, offset + i) - '0';
+            if (d < 0 || d > 9) return EMPTY;
+            id = id * 10 + d;
+        }
+        return id;
+    }
+
+    // ---------- Table ----------
+
+    // Caller holds the write lock
+    private void putNumeric(long id, int slot) {
+        if ((numericSize + 1) * 2 > keys.length) {
+            resize();
+        }
+        int mask = keys.length - 1;
+        int i = mix(id) & mask;
+        while (keys[i] != EMPTY && keys[i] != id) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            numericSize++;
+        }
+        slots[i] = slot;
+        keys[i] = id;
+    }
+
+    private int probe(long id) {
+        long[] k = keys;
+        int[] s = slots;
+        if (s.length != k.length) return NOT_FOUND; // mid-resize, the stamp will not validate
+        int mask = k.length - 1;
+        int i = mix(id) & mask;
+        // A torn read during resize is caught by the stamp; cap the walk regardless
+        for (int n = 0; n <= mask; n++) {
+            long key = k[i];
+            if (key == id) return s[i];
+            if (key == EMPTY) return NOT_FOUND;
+            i = (i + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        long[] newKeys = newKeyTable(oldKeys.length * 2);
+        int[] newSlots = new int[newKeys.length];
+        int mask = newKeys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long id = oldKeys[j];
+            if (id == EMPTY) continue;
+            int i = mix(id) & mask;
+            while (newKeys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            newKeys[i] = id;
+            newSlots[i] = oldSlots[j];
+        }
+        keys = newKeys;
+        slots = newSlots;
+    }
+
+    private static long[] newKeyTable(int size) {
+        long[] table = new long[size];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    // Murmur3 fmix64: sequential ids must not cluster in the probe sequence
+    private static int mix(long id) {
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe53ef85bL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
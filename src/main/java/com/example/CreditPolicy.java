@@ -0,0 +1,310 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Declarative withdrawal rules, compiled into a flat decision table.
+ *
+ * A policy is one rule per line, evaluated top to bottom; the first rule
+ * whose conditions all hold decides:
+ * <pre>
+ * # name: condition [and condition ...] -> OUTCOME
+ * not-verified: status != VERIFIED -> NOT_VERIFIED
+ * low-score:    score &lt; 600 -> CREDIT_TOO_LOW
+ * fair-cap:     score in 600..679 and amount &gt; 50% balance -> CREDIT_TOO_LOW
+ * small:        amount &lt;= 20 -> ALLOW
+ * </pre>
+ * Conditions are {@code score <, <=, >, >= N}, {@code score in A..B},
+ * {@code status ==, != STATUS}, {@code amount >, <= X} (major units) and
+ * {@code amount > P% balance}; {@code any} matches everything. The outcome
+ * is {@code ALLOW} or a {@link WithdrawalOutcome} name. If no rule matches,
+ * the withdrawal is allowed.
+ *
+ * Rules without a score condition that come before the first rule with one
+ * are decided by {@link #precheck} without a credit score lookup.
+ *
+ * A policy is immutable apart from its hit counters; to change the rules,
+ * compile a new one and swap it in with
+ * {@link CreditScoreFeature#setCreditPolicy(CreditPolicy)}.
+ */
+public final class CreditPolicy {
+
+    /** Rules used when none are configured; the former hardcoded checks. */
+    public static final String DEFAULT_RULES = String.join("\n",
+            "not-verified: status != VERIFIED -> NOT_VERIFIED",
+            "low-score: score < 600 -> CREDIT_TOO_LOW");
+
+    private static final int ALL_STATUSES = (1 << AccountStatus.values().length) - 1;
+
+    // ---------- Decision Table (one entry per rule) ----------
+    private final String[] names;
+    private final int[] scoreLo;
+    private final int[] scoreHi;
+    private final int[] statusMask;
+    private final long[] amountAbove;
+    private final long[] amountAtMost;
+    private final long[] balancePercent;   // -1 = none; amounts are positive and balances never negative
+    private final WithdrawalOutcome[] outcomes;  // SUCCESS = allow
+    private final int precheckRules;
+
+    private final LongAdder[] hits;
+    private final LongAdder defaultHits = new LongAdder();
+
+    private CreditPolicy(List<Rule> rules) {
+        int n = rules.size();
+        names = new String[n];
+        scoreLo = new int[n];
+        scoreHi = new int[n];
+        statusMask = new int[n];
+        amountAbove = new long[n];
+        amountAtMost = new long[n];
+        balancePercent = new long[n];
+        outcomes = new WithdrawalOutcome[n];
+        hits = new LongAdder[n];
+        int prefix = -1;
+        for (int i = 0; i < n; i++) {
+            Rule rule = rules.get(i);
+            names[i] = rule.name;
+            scoreLo[i] = rule.scoreLo;
+            scoreHi[i] = rule.scoreHi;
+            statusMask[i] = rule.statusMask;
+            amountAbove[i] = rule.amountAbove;
+            amountAtMost[i] = rule.amountAtMost;
+            balancePercent[i] = rule.balancePercent;
+            outcomes[i] = rule.outcome;
+            hits[i] = new LongAdder();
+            if (prefix < 0 && rule.usesScore()) prefix = i;
+        }
+        precheckRules = prefix < 0 ? n : prefix;
+    }
+
+    public static CreditPolicy defaults() {
+        return parse(DEFAULT_RULES);
+    }
+
+    public static CreditPolicy load(Path file) throws IOException {
+        return parse(Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException naming the line of the first invalid rule
+     */
+    public static CreditPolicy parse(String rules) {
+        List<Rule> compiled = new ArrayList<>();
+        String[] lines = rules.split("\\R");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            try {
+                compiled.add(Rule.parse(line));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Policy line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        return new CreditPolicy(compiled);
+    }
+
+    // ---------- Evaluation ----------
+
+    /**
+     * Evaluates the rules that do not need a credit score.
+     *
+     * @return The deciding outcome ({@link WithdrawalOutcome#SUCCESS} = allowed
+     *         without a credit check), or null if a score is needed
+     */
+    public WithdrawalOutcome precheck(AccountStatus status, long amountMinor, long balanceMinor) {
+        int rule = match(0, precheckRules, 0, status, amountMinor, balanceMinor);
+        if (rule < 0) {
+            if (precheckRules < names.length) return null;
+            defaultHits.increment();
+            return WithdrawalOutcome.SUCCESS;
+        }
+        hits[rule].increment();
+        return outcomes[rule];
+    }
+
+    /**
+     * Evaluates the rules after those covered by {@link #precheck}.
+     *
+     * @return The deciding outcome; {@link WithdrawalOutcome#SUCCESS} = allowed
+     */
+    public WithdrawalOutcome decide(int creditScore, AccountStatus status, long amountMinor, long balanceMinor) {
+        int rule = match(precheckRules, names.length, creditScore, status, amountMinor, balanceMinor);
+        if (rule < 0) {
+            defaultHits.increment();
+            return WithdrawalOutcome.SUCCESS;
+        }
+        hits[rule].increment();
+        return outcomes[rule];
+    }
+
+    private int match(int from, int to, int score, AccountStatus status, long amount, long balance) {
+        int statusBit = 1 << status.ordinal();
+        for (int i = from; i < to; i++) {
+            // Non-short-circuit & keeps the loop body free of data-dependent branches
+            boolean matches = (score >= scoreLo[i]) & (score <= scoreHi[i])
+                    & ((statusMask[i] & statusBit) != 0)
+                    & (amount > amountAbove[i]) & (amount <= amountAtMost[i])
+                    & productGreater(amount, 100, balance, balancePercent[i]);
+            if (matches) return i;
+        }
+        return -1;
+    }
+
+    // a * b > c * d, compared as 128-bit products so large balances cannot overflow
+    private static boolean productGreater(long a, long b, long c, long d) {
+        long high = Math.multiplyHigh(a, b);
+        long otherHigh = Math.multiplyHigh(c, d);
+        return (high > otherHigh) | ((high == otherHigh) & (Long.compareUnsigned(a * b, c * d) > 0));
+    }
+
+    // ---------- Statistics ----------
+
+    public int ruleCount() {
+        return names.length;
+    }
+
+    public String ruleName(int rule) {
+        return names[rule];
+    }
+
+    public long hitCount(int rule) {
+        return hits[rule].sum();
+    }
+
+    /**
+     * @return Hits of the named rule, or -1 if there is no such rule
+     */
+    public long hitCount(String ruleName) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(ruleName)) return hits[i].sum();
+        }
+        return -1;
+    }
+
+    /** Evaluations no rule matched, i.e. allowed by default. */
+    public long defaultHitCount() {
+        return defaultHits.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("credit policy:");
+        for (int i = 0; i < names.length; i++) {
+            sb.append(String.format("%n  %-20s -> %-20s hits=%d", names[i], outcomes[i], hitCount(i)));
+        }
+        return sb.append(String.format("%n  %-20s -> %-20s hits=%d", "(default)", WithdrawalOutcome.SUCCESS,
+                defaultHitCount())).toString();
+    }
+
+    // ---------- Parsing ----------
+
+    private static final class Rule {
+        String name;
+        int scoreLo = Integer.MIN_VALUE;
+        int scoreHi = Integer.MAX_VALUE;
+        int statusMask = ALL_STATUSES;
+        long amountAbove = Long.MIN_VALUE;
+        long amountAtMost = Long.MAX_VALUE;
+        long balancePercent = -1;
+        WithdrawalOutcome outcome;
+
+        boolean usesScore() {
+            return scoreLo != Integer.MIN_VALUE || scoreHi != Integer.MAX_VALUE;
+        }
+
+        static Rule parse(String line) {
+            int colon = line.indexOf(':');
+            int arrow = line.lastIndexOf("->");
+            if (colon <= 0 || arrow < colon) {
+                throw new IllegalArgumentException("Expected 'name: conditions -> OUTCOME': " + line);
+            }
+            Rule rule = new Rule();
+            rule.name = line.substring(0, colon).strip();
+            String result = line.substring(arrow + 2).strip().toUpperCase(Locale.ROOT);
+            if (result.isEmpty() || result.split("\\s+").length > 1) {
+                throw new IllegalArgumentException("Expected one outcome after '->': " + result);
+            }
+            rule.outcome = result.equals("ALLOW") ? WithdrawalOutcome.SUCCESS : WithdrawalOutcome.valueOf(result);
+            if (rule.outcome == WithdrawalOutcome.SUCCESS && !result.equals("ALLOW")) {
+                throw new IllegalArgumentException("Use ALLOW instead of SUCCESS");
+            }
+            for (String condition : line.substring(colon + 1, arrow).strip().split("\\s+and\\s+")) {
+                rule.condition(condition.strip().split("\\s+"));
+            }
+            return rule;
+        }
+
+        private void condition(String[] t) {
+            if (t[0].equals("any")) {
+                expectLength(t, 1);
+                return;
+            }
+            if (t.length < 3) {
+                throw new IllegalArgumentException("Incomplete condition: " + String.join(" ", t));
+            }
+            switch (t[0]) {
+                case "score":
+                    expectLength(t, 3);
+                    scoreCondition(t[1], t[2]);
+                    break;
+                case "status":
+                    expectLength(t, 3);
+                    int bit = 1 << AccountStatus.valueOf(t[2].toUpperCase(Locale.ROOT)).ordinal();
+                    if (t[1].equals("==")) statusMask &= bit;
+                    else if (t[1].equals("!=")) statusMask &= ~bit;
+                    else throw new IllegalArgumentException("Unknown status operator: " + t[1]);
+                    break;
+                case "amount":
+                    amountCondition(t);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown field: " + t[0]);
+            }
+        }
+
+        private void scoreCondition(String op, String value) {
+            switch (op) {
+                case "<":  scoreHi = Math.min(scoreHi, Integer.parseInt(value) - 1); break;
+                case "<=": scoreHi = Math.min(scoreHi, Integer.parseInt(value)); break;
+                case ">":  scoreLo = Math.max(scoreLo, Integer.parseInt(value) + 1); break;
+                case ">=": scoreLo = Math.max(scoreLo, Integer.parseInt(value)); break;
+                case "in":
+                    int dots = value.indexOf("..");
+                    if (dots < 0) throw new IllegalArgumentException("Expected a band like 600..679: " + value);
+                    scoreLo = Math.max(scoreLo, Integer.parseInt(value.substring(0, dots)));
+                    scoreHi = Math.min(scoreHi, Integer.parseInt(value.substring(dots + 2)));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown score operator: " + op);
+            }
+        }
+
+        private void amountCondition(String[] t) {
+            if (t.length == 4 && t[1].equals(">") && t[2].endsWith("%") && t[3].equals("balance")) {
+                balancePercent = Long.parseLong(t[2].substring(0, t[2].length() - 1));
+                if (balancePercent < 0) throw new IllegalArgumentException("Negative percentage: " + t[2]);
+                return;
+            }
+            expectLength(t, 3);
+            long minor = Money.tryParse(t[2]);
+            if (minor == Money.INVALID) throw new IllegalArgumentException("Invalid amount: " + t[2]);
+            if (t[1].equals(">")) amountAbove = Math.max(amountAbove, minor);
+            else if (t[1].equals("<=")) amountAtMost = Math.min(amountAtMost, minor);
+            else throw new IllegalArgumentException("Unknown amount operator: " + t[1]);
+        }
+
+        private static void expectLength(String[] t, int length) {
+            if (t.length != length) {
+                throw new IllegalArgumentException("Unexpected tokens in condition: " + String.join(" ", t));
+            }
+        }
+    }
+}
@@ -1,13 +1,59 @@
 package com.example;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
 public class CreditScoreFeature {
 
     private CreditService creditService;
     private AccountController accountController;
+    private AsyncExecutor asyncExecutor;
+    private long fallbackCapMinor;
+    private volatile CreditPolicy creditPolicy = CreditPolicy.defaults();
 
     public CreditScoreFeature(CreditService creditService, AccountController accountController) {
+        this(creditService, accountController, AsyncExecutor.shared());
+    }
+
+    public CreditScoreFeature(CreditService creditService, AccountController accountController,
+                              AsyncExecutor asyncExecutor) {
         this.creditService = creditService;
         this.accountController = accountController;
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * Largest withdrawal allowed while the credit service answers
+     * {@link CreditService#SCORE_UNAVAILABLE_CAPPED}. Defaults to 0 (none).
+     */
+    public void setFallbackCap(double amount) {
+        this.fallbackCapMinor = Money.toMinor(amount);
+    }
+
+    /**
+     * Replaces the credit policy. Safe while withdrawals are running: each
+     * evaluation uses whichever policy was current when it started.
+     */
+    public void setCreditPolicy(CreditPolicy creditPolicy) {
+        this.creditPolicy = creditPolicy;
+    }
+
+    public CreditPolicy getCreditPolicy() {
+        return creditPolicy;
+    }
+
+    /**
+     * Same as {@link #handleWithdrawal(Account, String)}, run on a virtual thread
+     * so the blocking credit score call does not hold a platform thread.
+     *
+     * @return Future of the result message; fails if the in-flight limit is reached
+     */
+    public CompletableFuture<String> handleWithdrawalAsync(Account account, String amount) {
+        return asyncExecutor.submit(() -> handleWithdrawal(account, amount));
     }
 
     /**
@@ -19,47 +65,151 @@ public class CreditScoreFeature {
      * @return Result message for notification box
      */
     public String handleWithdrawal(Account account, String amount) {
+        return handleWithdrawalOutcome(account, amount).message();
+    }
+
+    /**
+     * Allocation-free form of {@link #handleWithdrawal(Account, String)}.
+     *
+     * @param amount Withdrawal amount as typed, e.g. a reused StringBuilder
+     * @return Outcome constant; render it with {@link WithdrawalOutcome#message()}
+     */
+    public WithdrawalOutcome handleWithdrawalOutcome(Account account, CharSequence amount) {
+        long withdrawalAmount = Money.tryParse(amount);
+        CreditPolicy policy = creditPolicy;
+        WithdrawalOutcome outcome = validation(account, amount, withdrawalAmount);
+        if (outcome == null) outcome = precheck(policy, account, withdrawalAmount);
+        if (outcome == null) outcome = creditCheck(policy, account, withdrawalAmount);
+        if (outcome == WithdrawalOutcome.SUCCESS) outcome = execution(account, withdrawalAmount);
+        return outcome;
+    }
+
+    // ---------- Steps (also run as TransactionPipeline stages) ----------
+
+    /**
+     * Input validation and the policy rules that need no credit score.
+     * Finishes the request on any error, otherwise stores the parsed amount.
+     */
+    public void validate(WithdrawalRequest request) {
+        if (request.isDone()) return;
+        long withdrawalAmount = Money.tryParse(request.getAmount());
+        WithdrawalOutcome outcome = validation(request.getAccount(), request.getAmount(), withdrawalAmount);
+        if (outcome == null) outcome = precheck(creditPolicy, request.getAccount(), withdrawalAmount);
+        if (outcome == WithdrawalOutcome.SUCCESS) {
+            request.setCreditApproved(true);
+        } else if (outcome != null) {
+            request.finish(outcome);
+            return;
+        }
+        request.setAmountMinor(withdrawalAmount);
+    }
+
+    /**
+     * Credit score check; a blocking call into the credit service.
+     */
+    public void checkCreditScore(WithdrawalRequest request) {
+        if (request.isDone() || request.isCreditApproved()) return;
+        WithdrawalOutcome outcome = creditCheck(creditPolicy, request.getAccount(), request.getAmountMinor());
+        if (outcome != WithdrawalOutcome.SUCCESS) {
+            request.finish(outcome);
+        }
+    }
+
+    /**
+     * Credit score check for a batch of requests with one bulk lookup.
+     */
+    public void checkCreditScores(List<WithdrawalRequest> requests) {
+        Set<String> clientIds = new HashSet<>();
+        for (WithdrawalRequest request : requests) {
+            if (!request.isDone() && !request.isCreditApproved()) {
+                clientIds.add(request.getAccount().getClientId());
+            }
+        }
+        if (clientIds.isEmpty()) return;
+
+        Map<String, Integer> scores = creditService.getCreditScores(clientIds);
+
+        CreditPolicy policy = creditPolicy;
+        for (WithdrawalRequest request : requests) {
+            if (request.isDone() || request.isCreditApproved()) continue;
+            Integer creditScore = scores.get(request.getAccount().getClientId());
+            if (creditScore == null) {
+                request.fail(new NoSuchElementException(
+                        "No credit score for " + request.getAccount().getClientId()));
+            } else {
+                WithdrawalOutcome outcome = scoreCheck(policy, creditScore, request.getAccount(),
+                        request.getAmountMinor());
+                if (outcome != WithdrawalOutcome.SUCCESS) {
+                    request.finish(outcome);
+                }
+            }
+        }
+    }
+
+    /**
+     * Backend call; always finishes the request.
+     */
+    public void execute(WithdrawalRequest request) {
+        if (request.isDone()) return;
+        request.finish(execution(request.getAccount(), request.getAmountMinor()));
+    }
+
+    // ---------- Checks (validation: null = passed; policy: SUCCESS = approved) ----------
+
+    private static WithdrawalOutcome validation(Account account, CharSequence amount, long withdrawalAmount) {
 
         // ---------- Input Validation ----------
         if (account == null) {
-            return "Error: No account selected.";
+            return WithdrawalOutcome.NO_ACCOUNT;
         }
 
-        if (amount == null || amount.isEmpty()) {
-            return "Error: Amount field is empty.";
+        if (amount == null || amount.length() == 0) {
+            return WithdrawalOutcome.EMPTY_AMOUNT;
         }
 
-        double withdrawalAmount;
-
-        try {
-            withdrawalAmount = Double.parseDouble(amount);
-        } catch (NumberFormatException e) {
-            return "Error: Amount must be a numeric value.";
+        if (withdrawalAmount == Money.INVALID) {
+            return WithdrawalOutcome.NOT_NUMERIC;
         }
 
         if (withdrawalAmount <= 0) {
-            return "Error: Amount must be greater than zero.";
+            return WithdrawalOutcome.NOT_POSITIVE;
         }
 
-        // ---------- State Validation ----------
-        if (!account.getStatus().equals(AccountStatus.VERIFIED)) {
-            return "Error: Transactions allowed only for VERIFIED accounts.";
-        }
+        // State validation is the policy's first rule
+        return null;
+    }
 
-        // ---------- Credit Score Check ----------
+    // Null if the credit score is needed
+    private static WithdrawalOutcome precheck(CreditPolicy policy, Account account, long withdrawalAmount) {
+        return policy.precheck(account.getStatus(), withdrawalAmount, account.getBalanceMinor());
+    }
+
+    private WithdrawalOutcome creditCheck(CreditPolicy policy, Account account, long withdrawalAmount) {
         int creditScore = creditService.getCreditScore(account.getClientId());
+        return scoreCheck(policy, creditScore, account, withdrawalAmount);
+    }
 
-        if (creditScore < 600) {
-            return "Transaction blocked: Credit score too low.";
+    private WithdrawalOutcome scoreCheck(CreditPolicy policy, int creditScore, Account account,
+                                         long withdrawalAmount) {
+        if (creditScore == CreditService.SCORE_UNAVAILABLE_CAPPED) {
+            return withdrawalAmount <= fallbackCapMinor
+                    ? WithdrawalOutcome.SUCCESS : WithdrawalOutcome.CREDIT_UNAVAILABLE;
+        }
+        if (creditScore == CreditService.SCORE_UNAVAILABLE) {
+            return WithdrawalOutcome.CREDIT_UNAVAILABLE;
+        }
+        if (creditScore == CreditService.SCORE_CIRCUIT_OPEN) {
+            return WithdrawalOutcome.CREDIT_SERVICE_DOWN;
         }
+        if (creditScore == CreditService.SCORE_BUSY) {
+            return WithdrawalOutcome.BUSY;
+        }
+        return policy.decide(creditScore, account.getStatus(), withdrawalAmount, account.getBalanceMinor());
+    }
 
-        // ---------- Backend Call ----------
-        boolean success = accountController.withdraw(account, withdrawalAmount);
+    private WithdrawalOutcome execution(Account account, long withdrawalAmount) {
+        boolean success = accountController.withdrawMinor(account, withdrawalAmount);
 
-        if (success) {
-            return "Withdrawal successful.";
-        } else {
-            return "Error: Insufficient balance.";
-        }
+        return success ? WithdrawalOutcome.SUCCESS : WithdrawalOutcome.INSUFFICIENT_BALANCE;
     }
 }
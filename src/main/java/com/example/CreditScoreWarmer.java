@@ -0,0 +1,142 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fills a {@link CachingCreditService} before traffic is admitted, so the
+ * first withdrawals after a restart do not all wait on the credit backend.
+ * The client ids come from the account store or from recent log records and
+ * are fetched in parallel bulk calls.
+ */
+public final class CreditScoreWarmer {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    public record Result(int requested, int loaded, int failedBatches, long nanos) {
+        @Override
+        public String toString() {
+            return String.format("warmed %d of %d credit scores in %.1f ms (%d failed batches)",
+                    loaded, requested, nanos / 1e6, failedBatches);
+        }
+    }
+
+    private final CachingCreditService cache;
+    private final int batchSize;
+    private final int parallelism;
+
+    public CreditScoreWarmer(CachingCreditService cache) {
+        this(cache, DEFAULT_BATCH_SIZE, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * @param batchSize   Client ids per bulk call
+     * @param parallelism Bulk calls in flight at once
+     */
+    public CreditScoreWarmer(CachingCreditService cache, int batchSize, int parallelism) {
+        if (batchSize <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Invalid warm-up settings: " + batchSize + ", " + parallelism);
+        }
+        this.cache = cache;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Prefetches the scores of the given clients and waits for them.
+     * Ids beyond the cache's maximum size are ignored, since loading them
+     * would only evict earlier ones. Failed batches are counted, not thrown.
+     *
+     * @param timeoutMillis Longest time to hold back traffic
+     */
+    public Result warm(Collection<String> clientIds, long timeoutMillis) throws InterruptedException {
+        long start = System.nanoTime();
+        List<String> ids = new ArrayList<>(clientIds);
+        if (ids.size() > cache.maximumSize()) {
+            ids = ids.subList(0, cache.maximumSize());
+        }
+
+        int batches = (ids.size() + batchSize - 1) / batchSize;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, batches)),
+                DaemonThreads.named("credit-warmer"));
+        int loaded = 0;
+        int failed = 0;
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(batches);
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                List<String> batch = ids.subList(from, Math.min(ids.size(), from + batchSize));
+                futures.add(pool.submit(() -> cache.prefetch(batch)));
+            }
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            for (Future<Integer> future : futures) {
+                try {
+                    loaded += future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException | TimeoutException e) {
+                    failed++;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Result(ids.size(), loaded, failed, System.nanoTime() - start);
+    }
+
+    // ---------- Active Clients ----------
+
+    /**
+     * Clients of the store allowed to withdraw, i.e. VERIFIED accounts.
+     */
+    public static Set<String> activeClientIds(AccountStore store) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (int row = 0; row < store.size(); row++) {
+            if (store.status(row) == AccountStatus.VERIFIED) {
+                ids.add(store.clientId(row));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Clients named in log records after {@code afterSeq}, most recent first.
+     */
+    public static Set<String> activeClientIds(Path walDir, long afterSeq) throws IOException {
+        return activeClientIds(walDir, afterSeq, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #activeClientIds(Path, long)}, keeping only the
+     * {@code limit} most recent clients, e.g. the cache's maximum size.
+     * Memory stays bounded by the limit however long the log tail is.
+     */
+    public static Set<String> activeClientIds(Path walDir, long afterSeq, int limit) throws IOException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        // Access order moves a client seen again to the end; the least recent one is evicted
+        LinkedHashMap<String, Boolean> recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > limit;
+            }
+        };
+        WriteAheadLog.replay(walDir, afterSeq, (seq, type, fromId, toId, amountMinor) -> {
+            if (fromId != null) recent.put(fromId, Boolean.TRUE);
+            if (toId != null) recent.put(toId, Boolean.TRUE);
+        });
+        return new LinkedHashSet<>(recent.sequencedKeySet().reversed());
+    }
+}
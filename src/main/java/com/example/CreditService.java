@@ -1,5 +1,49 @@
 package com.example;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 public interface CreditService {
+
+    /** Score returned when no score could be obtained; the withdrawal is refused. */
+    int SCORE_UNAVAILABLE = -1;
+
+    /**
+     * Score returned when no score could be obtained but small withdrawals may
+     * proceed; see {@link CreditScoreFeature#setFallbackCap(double)}.
+     */
+    int SCORE_UNAVAILABLE_CAPPED = -2;
+
+    /** Score returned without calling the backend while its circuit breaker is open. */
+    int SCORE_CIRCUIT_OPEN = -3;
+
+    /** Score returned when too many calls to the backend are already in progress. */
+    int SCORE_BUSY = -4;
+
     int getCreditScore(String clientId);
+
+    /**
+     * Non-blocking lookup. The default runs the blocking call on a virtual
+     * thread of {@link AsyncExecutor#shared()}; remote clients with a native
+     * async API should override it.
+     */
+    default CompletableFuture<Integer> getCreditScoreAsync(String clientId) {
+        return AsyncExecutor.shared().submit(() -> getCreditScore(clientId));
+    }
+
+    /**
+     * Looks up many clients at once. The default makes one call per id;
+     * backends with a bulk endpoint should override it with a single round trip.
+     *
+     * @return Score per client id; ids without a score are absent
+     */
+    default Map<String, Integer> getCreditScores(Collection<String> clientIds) {
+        Map<String, Integer> scores = new HashMap<>();
+        for (String clientId : clientIds) {
+            scores.put(clientId, getCreditScore(clientId));
+        }
+        return scores;
+    }
 }
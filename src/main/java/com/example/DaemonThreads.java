@@ -0,0 +1,25 @@
+package com.example;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factories for background pools, so they never keep the JVM alive.
+ */
+final class DaemonThreads {
+
+    private DaemonThreads() {
+    }
+
+    /**
+     * @param prefix Thread names become {@code prefix-0}, {@code prefix-1}, ...
+     */
+    static ThreadFactory named(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,284 @@
+package com.example;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of operations by idempotency key, so a retried
+ * request gets the first outcome back instead of being applied again.
+ *
+ * The table has a fixed number of slots, grouped into small sets that a key
+ * hashes to, so memory stays flat however many requests arrive. Entries
+ * expire after a time-to-live; a full set evicts its oldest completed entry.
+ * A retry that arrives while the first attempt is still running waits for
+ * that attempt's outcome, and so does a new key whose set holds nothing but
+ * running operations. Each entry records the operation and the arguments it
+ * belongs to, so a key reused for a different request is rejected.
+ *
+ * An operation that throws IllegalArgumentException was refused before it
+ * changed anything, so its key is freed for a corrected retry. Any other
+ * failure may come after side effects; it is remembered like an outcome and
+ * rethrown to retries, which must not apply the operation a second time.
+ */
+public final class IdempotencyCache {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    private static final int WAYS = 8;
+    private static final Object PENDING = new Object();
+
+    private record Failure(Throwable error) {
+    }
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final Object[] locks;
+    private final int setMask;
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder stalls = new LongAdder();
+
+    /**
+     * @param capacity  Maximum remembered keys, rounded up to a power of two
+     * @param ttlMillis How long an outcome is remembered
+     */
+    public IdempotencyCache(int capacity, long ttlMillis) {
+        if (capacity <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Capacity and TTL must be positive: " + capacity + ", " + ttlMillis);
+        }
+        int size = Integer.highestOneBit(Math.max(WAYS, capacity) * 2 - 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.setMask = size / WAYS - 1;
+        this.locks = new Object[Math.min(size / WAYS, 1024)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    public IdempotencyCache() {
+        this(DEFAULT_CAPACITY, DEFAULT_TTL_MILLIS);
+    }
+
+    private static final class Entry {
+        final String key;
+        final String operation;
+        final String request;
+        final long expiresAt;
+        volatile Object outcome = PENDING;
+
+        Entry(String key, String operation, String request, long expiresAt) {
+            this.key = key;
+            this.operation = operation;
+            this.request = request;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Runs the operation once per key within the TTL and returns its outcome,
+     * for caches that only ever see one kind of operation.
+     */
+    public <T> T execute(String key, Supplier<T> operation) {
+        return execute(key, "", operation);
+    }
+
+    /**
+     * Runs the operation once per key within the TTL and returns its outcome,
+     * for operations without arguments to tell apart.
+     */
+    public <T> T execute(String key, String kind, Supplier<T> operation) {
+        return execute(key, kind, "", operation);
+    }
+
+    /**
+     * Runs the operation once per key within the TTL and returns its outcome,
+     * or rethrows its remembered failure. A null key disables deduplication.
+     *
+     * @param kind    Name of the operation, e.g. "withdraw"; callers must use one
+     *                outcome type per kind
+     * @param request Fingerprint of the operation's arguments, e.g. ids and amount
+     * @throws IllegalArgumentException if the key is remembered for another kind
+     *                                  or other arguments
+     */
+    public <T> T execute(String key, String kind, String request, Supplier<T> operation) {
+        if (key == null) return operation.get();
+        int set = setOf(key);
+        int base = set * WAYS;
+
+        while (true) {
+            Entry existing = find(key, base, System.nanoTime());
+            if (existing != null) {
+                checkRequest(existing, kind, request);
+                Object outcome = awaitOutcome(existing);
+                if (outcome == null) continue; // first attempt was refused: try again
+                hits.increment();
+                if (outcome instanceof Failure failure) throw rethrown(failure.error());
+                return cast(outcome);
+            }
+
+            Entry mine = null;
+            Entry blocker = null;
+            int index;
+            // Claims are serialized per set so two threads never both run one key
+            synchronized (locks[set & (locks.length - 1)]) {
+                long now = System.nanoTime();
+                if (find(key, base, now) != null) continue;
+                index = victimOf(base, now);
+                if (index >= 0) {
+                    Entry victim = slots.get(index);
+                    if (victim != null && now - victim.expiresAt < 0) {
+                        evictions.increment();
+                    }
+                    mine = new Entry(key, kind, request, now + ttlNanos);
+                    slots.set(index, mine);
+                } else {
+                    blocker = oldestPending(base);
+                }
+            }
+            if (mine == null) {
+                // Every slot of the set is running an operation; running this one
+                // unclaimed would let a concurrent retry apply it twice
+                stalls.increment();
+                if (blocker != null) awaitOutcome(blocker);
+                continue;
+            }
+            misses.increment();
+            return run(mine, index, operation);
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /** Live entries dropped to make room before their TTL ran out. */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /** Calls that waited for a slot because their set was full of running operations. */
+    public long stalls() {
+        return stalls.sum();
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    // ---------- Internals ----------
+
+    private <T> T run(Entry entry, int index, Supplier<T> operation) {
+        T result;
+        try {
+            result = operation.get();
+        } catch (IllegalArgumentException e) {
+            slots.compareAndSet(index, entry, null);
+            complete(entry, null);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            complete(entry, new Failure(e));
+            throw e;
+        }
+        // Null outcomes cannot be told apart from refusals, so they are not kept
+        if (result == null) {
+            slots.compareAndSet(index, entry, null);
+        }
+        complete(entry, result);
+        return result;
+    }
+
+    private Entry find(String key, int base, long now) {
+        for (int i = base; i < base + WAYS; i++) {
+            Entry e = slots.get(i);
+            if (e != null && now - e.expiresAt < 0 && e.key.equals(key)) return e;
+        }
+        return null;
+    }
+
+    private static void checkRequest(Entry entry, String kind, String request) {
+        if (!Objects.equals(entry.operation, kind)) {
+            throw new IllegalArgumentException("Idempotency key " + entry.key + " was already used for "
+                    + entry.operation + ", not " + kind);
+        }
+        if (!Objects.equals(entry.request, request)) {
+            throw new IllegalArgumentException("Idempotency key " + entry.key
+                    + " was already used with different arguments");
+        }
+    }
+
+    private static RuntimeException rethrown(Throwable error) {
+        if (error instanceof Error e) throw e;
+        return (RuntimeException) error;
+    }
+
+    // Failed operations clear their slot without the set lock, so slots may be empty
+    private Entry oldestPending(int base) {
+        Entry oldest = null;
+        for (int i = base; i < base + WAYS; i++) {
+            Entry e = slots.get(i);
+            if (e != null && (oldest == null || e.expiresAt - oldest.expiresAt < 0)) oldest = e;
+        }
+        return oldest;
+    }
+
+    // A free or expired slot, else the completed entry closest to expiry, else -1
+    private int victimOf(int base, long now) {
+        int oldest = -1;
+        long oldestExpiry = 0;
+        for (int i = base; i < base + WAYS; i++) {
+            Entry e = slots.get(i);
+            if (e == null || now - e.expiresAt >= 0) return i;
+            if (e.outcome != PENDING && (oldest < 0 || e.expiresAt - oldestExpiry < 0)) {
+                oldest = i;
+                oldestExpiry = e.expiresAt;
+            }
+        }
+        return oldest;
+    }
+
+    private static void complete(Entry entry, Object outcome) {
+        synchronized (entry) {
+            entry.outcome = outcome;
+            entry.notifyAll();
+        }
+    }
+
+    private static Object awaitOutcome(Entry entry) {
+        Object outcome = entry.outcome;
+        if (outcome != PENDING) return outcome;
+        boolean interrupted = false;
+        synchronized (entry) {
+            while ((outcome = entry.outcome) == PENDING) {
+                try {
+                    entry.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return outcome;
+    }
+
+    private int setOf(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & setMask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object outcome) {
+        return (T) outcome;
+    }
+}
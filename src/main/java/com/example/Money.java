@@ -0,0 +1,161 @@
+package com.example;
+
+/**
+ * Fixed-point money helpers.
+ * Amounts are carried as {@code long} minor units (cents at {@link #SCALE} 2),
+ * so arithmetic is exact and no objects are allocated on the hot path.
+ * Conversions from {@code double} only happen at the API edge.
+ */
+public final class Money {
+
+    /** Number of decimal places held in a minor unit. */
+    public static final int SCALE = 2;
+
+    /** Minor units per major unit (10^SCALE). */
+    public static final long UNIT = 100L;
+
+    /** Returned by conversions when the input has no exact minor-unit value. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final double MAX_MAJOR = (double) (Long.MAX_VALUE / UNIT);
+
+    private Money() {
+    }
+
+    /**
+     * Converts a major-unit amount to minor units, rounding half-up.
+     *
+     * @param amount Amount in major units (e.g. 12.34)
+     * @return Minor units, or {@link #INVALID} for NaN, infinities and overflow
+     */
+    public static long toMinor(double amount) {
+        if (!(Math.abs(amount) < MAX_MAJOR)) {
+            return INVALID;
+        }
+        return Math.round(amount * UNIT);
+    }
+
+    /**
+     * Converts minor units back to a major-unit double, for display and legacy callers.
+     */
+    public static double toMajor(long minor) {
+        return minor / (double) UNIT;
+    }
+
+    /**
+     * Rescales a minor-unit amount between scales, e.g. mills (3) to cents (2).
+     * Scaling down truncates towards zero.
+     */
+    public static long rescale(long minor, int fromScale, int toScale) {
+        long result = minor;
+        for (int s = fromScale; s < toScale; s++) {
+            result = Math.multiplyExact(result, 10L);
+        }
+        for (int s = fromScale; s > toScale; s--) {
+            result /= 10L;
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if {@code a + b} does not fit in a long.
+     */
+    public static boolean addOverflows(long a, long b) {
+        long sum = a + b;
+        return ((a ^ sum) & (b ^ sum)) < 0;
+    }
+
+    /**
+     * Parses a decimal amount such as "100", "100.5" or "-0.25" into minor units.
+     * Digits beyond {@link #SCALE} are only accepted when they are zeros,
+     * so the result is always exact.
+     *
+     * @param text Amount text entered by user
+     * @return Amount in minor units
+     * @throws NumberFormatException if the text is not an exact decimal amount
+     */
+    public static long parse(CharSequence text) {
+        long minor = tryParse(text);
+        if (minor == INVALID) {
+            throw new NumberFormatException("Not an amount: " + text);
+        }
+        return minor;
+    }
+
+    /**
+     * Same as {@link #parse(CharSequence)} but reports bad input as {@link #INVALID}
+     * instead of throwing, so rejecting an amount costs no exception or allocation.
+     */
+    public static long tryParse(CharSequence text) {
+        if (text == null) return INVALID;
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+
+        boolean negative = false;
+        if (start < end && (text.charAt(start) == '-' || text.charAt(start) == '+')) {
+            negative = text.charAt(start) == '-';
+            start++;
+        }
+
+        long major = 0;
+        int digits = 0;
+        int i = start;
+        for (; i < end && text.charAt(i) != '.'; i++) {
+            int d = text.charAt(i) - '0';
+            if (d < 0 || d > 9 || major > (Long.MAX_VALUE / UNIT - d) / 10) {
+                return INVALID;
+            }
+            major = major * 10 + d;
+            digits++;
+        }
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (i < end) {
+            for (i++; i < end; i++) {
+                int d = text.charAt(i) - '0';
+                if (d < 0 || d > 9 || (fractionDigits >= SCALE && d != 0)) {
+                    return INVALID;
+                }
+                if (fractionDigits < SCALE) {
+                    fraction = fraction * 10 + d;
+                }
+                fractionDigits++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return INVALID;
+        }
+        for (int s = Math.min(fractionDigits, SCALE); s < SCALE; s++) {
+            fraction *= 10;
+        }
+
+        // The digit loop bounds major alone; the fraction can still carry it past Long.MAX_VALUE
+        if (major > (Long.MAX_VALUE - fraction) / UNIT) {
+            return INVALID;
+        }
+        long minor = major * UNIT + fraction;
+        return negative ? -minor : minor;
+    }
+
+    /**
+     * Formats minor units as a plain decimal string, e.g. 1050 -> "10.50".
+     * Allocates, so only use it at the UI edge.
+     */
+    public static String format(long minor) {
+        StringBuilder sb = new StringBuilder(24);
+        if (minor < 0) {
+            sb.append('-');
+        }
+        long abs = Math.abs(minor);
+        sb.append(abs / UNIT).append('.');
+        long fraction = abs % UNIT;
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction).toString();
+    }
+}
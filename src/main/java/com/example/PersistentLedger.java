@@ -0,0 +1,464 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Persistent transaction history in memory-mapped segment files of
+ * fixed-width records.
+ *
+ * Record layout ({@value #RECORD_BYTES} bytes, big-endian):
+ * seq:long | timestamp:long | amount:long | type:byte | pad:7 |
+ * from:16 | to:16
+ * where ids are ASCII, zero padded, as in {@link AccountStore}. A zero type
+ * marks the end of the written records.
+ *
+ * Timestamps never decrease, so every segment keeps a sparse in-memory
+ * index of every {@value #INDEX_INTERVAL}th timestamp. A time-range query
+ * binary searches the segments and then that index, and reads the records
+ * straight from the mapping. Full segments are remapped read-only, so
+ * readers share them through the page cache.
+ */
+public final class PersistentLedger implements AutoCloseable {
+
+    /**
+     * Receives records during {@link #scan}.
+     */
+    public interface RecordVisitor {
+        void onRecord(long seq, long timestampMillis, TransactionType type, String fromId, String toId,
+                      long amountMinor);
+    }
+
+    public static final int RECORD_BYTES = 64;
+    public static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+    public static final int INDEX_INTERVAL = 256;
+
+    private static final String PREFIX = "ledger-";
+    private static final String SUFFIX = ".seg";
+    private static final int SEQ = 0;
+    private static final int TIME = 8;
+    private static final int AMOUNT = 16;
+    private static final int TYPE = 24;
+    private static final int FROM = 32;
+    private static final int TO = 48;
+    private static final ValueLayout.OfLong LONG =
+            ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final Path directory;
+    private final int segmentRecords;
+
+    // Guarded by writeLock
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final List<Arena> arenas = new ArrayList<>();
+    private long lastSeq;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private boolean open = true;
+
+    // Copy-on-write; the last segment is the writable one
+    private volatile Segment[] segments;
+
+    private static final class Segment {
+        final long firstSeq;
+        final int capacity;
+        final long[] index;
+        volatile MemorySegment data;
+        volatile int count;
+
+        Segment(long firstSeq, int capacity, MemorySegment data) {
+            this.firstSeq = firstSeq;
+            this.capacity = capacity;
+            this.index = new long[(capacity + INDEX_INTERVAL - 1) / INDEX_INTERVAL];
+            this.data = data;
+        }
+
+        long time(int record) {
+            return data.get(LONG, (long) record * RECORD_BYTES + TIME);
+        }
+    }
+
+    public PersistentLedger(Path directory) {
+        this(directory, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    /**
+     * @param directory      Directory holding the segment files; created if missing
+     * @param segmentRecords Records per new segment file
+     */
+    public PersistentLedger(Path directory, int segmentRecords) {
+        if (segmentRecords < INDEX_INTERVAL) {
+            throw new IllegalArgumentException("Segment too small: " + segmentRecords);
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        try {
+            Files.createDirectories(directory);
+            List<Path> files = listSegments(directory);
+            List<Segment> loaded = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                loaded.add(load(files.get(i), i == files.size() - 1));
+            }
+            if (loaded.isEmpty()) {
+                loaded.add(create(1L));
+            }
+            segments = loaded.toArray(new Segment[0]);
+            Segment last = segments[segments.length - 1];
+            lastSeq = last.firstSeq + last.count - 1;
+            if (last.count > 0) lastTimestamp = last.time(last.count - 1);
+        } catch (IOException e) {
+            closeArenas();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends one committed transaction.
+     *
+     * @param toId            Counterparty id for transfers, null otherwise
+     * @param timestampMillis Commit time; raised to the previous record's if it is earlier
+     * @return Sequence number of the record
+     */
+    public long append(TransactionType type, String fromId, String toId, long amountMinor, long timestampMillis) {
+        writeLock.lock();
+        try {
+            appendLocked(type, fromId, toId, amountMinor, timestampMillis);
+            return lastSeq;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Appends one committed transaction, for callers that keep the time
+     * elsewhere too and must use the one the ledger stored.
+     *
+     * @return Timestamp of the record: {@code timestampMillis}, or the previous
+     *         record's if that is later
+     */
+    public long appendStamped(TransactionType type, String fromId, String toId,
+                              long amountMinor, long timestampMillis) {
+        writeLock.lock();
+        try {
+            return appendLocked(type, fromId, toId, amountMinor, timestampMillis);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public long append(TransactionType type, String fromId, String toId, long amountMinor) {
+        return append(type, fromId, toId, amountMinor, System.currentTimeMillis());
+    }
+
+    // ---------- Queries ----------
+
+    /**
+     * Visits the transactions of one account with
+     * {@code fromMillis <= timestamp < toMillis}, oldest first. Amounts are
+     * signed from the account's side, as in {@link TransactionJournal}.
+     *
+     * @return Number of records visited
+     */
+    public int forEach(String clientId, long fromMillis, long toMillis, TransactionJournal.EntryVisitor visitor) {
+        if (!isValidId(clientId)) return 0;
+        long hi = idWord(clientId, 0);
+        long lo = idWord(clientId, 8);
+        Segment[] segs = segments;
+        int visited = 0;
+        for (int s = firstSegmentFor(segs, fromMillis); s < segs.length; s++) {
+            Segment seg = segs[s];
+            int count = seg.count;
+            MemorySegment data = seg.data;
+            for (int r = startRecord(seg, count, fromMillis); r < count; r++) {
+                long base = (long) r * RECORD_BYTES;
+                long time = data.get(LONG, base + TIME);
+                if (time >= toMillis) return visited;
+                if (time < fromMillis) continue;
+                boolean isFrom = data.get(LONG, base + FROM) == hi && data.get(LONG, base + FROM + 8) == lo;
+                boolean isTo = data.get(LONG, base + TO) == hi && data.get(LONG, base + TO + 8) == lo;
+                if (!isFrom && !isTo) continue;
+
+                TransactionType type = TransactionType.fromCode(data.get(ValueLayout.JAVA_BYTE, base + TYPE));
+                long amount = data.get(LONG, base + AMOUNT);
+                String counterparty = null;
+                if (type == TransactionType.TRANSFER) {
+                    counterparty = isFrom ? readId(data, base + TO) : readId(data, base + FROM);
+                    if (isFrom) amount = -amount;
+                } else if (type == TransactionType.WITHDRAWAL) {
+                    amount = -amount;
+                }
+                visited++;
+                if (!visitor.visit(data.get(LONG, base + SEQ), time, type, amount, counterparty)) {
+                    return visited;
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Visits every record of one segment in order; segments can be scanned in parallel.
+     *
+     * @param segment From 0 to {@link #segmentCount()} - 1
+     */
+    public void scan(int segment, RecordVisitor visitor) {
+        Segment seg = segments[segment];
+        int count = seg.count;
+        MemorySegment data = seg.data;
+        for (int r = 0; r < count; r++) {
+            long base = (long) r * RECORD_BYTES;
+            visitor.onRecord(data.get(LONG, base + SEQ), data.get(LONG, base + TIME),
+                    TransactionType.fromCode(data.get(ValueLayout.JAVA_BYTE, base + TYPE)),
+                    readId(data, base + FROM), readId(data, base + TO), data.get(LONG, base + AMOUNT));
+        }
+    }
+
+    public int segmentCount() {
+        return segments.length;
+    }
+
+    public long lastSeq() {
+        writeLock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public long recordCount() {
+        long total = 0;
+        for (Segment seg : segments) {
+            total += seg.count;
+        }
+        return total;
+    }
+
+    /**
+     * Forces the writable segment to disk.
+     */
+    public void flush() {
+        writeLock.lock();
+        try {
+            if (open) segments[segments.length - 1].data.force();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        writeLock.lock();
+        try {
+            if (!open) return;
+            segments[segments.length - 1].data.force();
+            open = false;
+            closeArenas();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // ---------- Index ----------
+
+    // Last segment whose first record is before fromMillis; records equal to it
+    // may end the segments before one that starts at fromMillis
+    private static int firstSegmentFor(Segment[] segs, long fromMillis) {
+        int lo = 0;
+        int hi = segs.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            Segment seg = segs[mid];
+            if (seg.count > 0 && seg.index[0] < fromMillis) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    // First record of the last index block starting before fromMillis
+    private static int startRecord(Segment seg, int count, long fromMillis) {
+        int blocks = (count + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+        int lo = 0;
+        int hi = blocks - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (seg.index[mid] < fromMillis) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo * INDEX_INTERVAL;
+    }
+
+    // ---------- Segments ----------
+
+    // Caller holds writeLock; returns the stored timestamp
+    private long appendLocked(TransactionType type, String fromId, String toId,
+                              long amountMinor, long timestampMillis) {
+        long fromHi = idWord(fromId, 0);
+        long fromLo = idWord(fromId, 8);
+        long toHi = idWord(toId, 0);
+        long toLo = idWord(toId, 8);
+        if (!open) {
+            throw new IllegalStateException("Ledger is closed");
+        }
+        Segment s = segments[segments.length - 1];
+        if (s.count == s.capacity) {
+            s = roll(s);
+        }
+        int record = s.count;
+        long seq = lastSeq + 1;
+        long time = Math.max(timestampMillis, lastTimestamp);
+        long base = (long) record * RECORD_BYTES;
+        MemorySegment data = s.data;
+        data.set(LONG, base + SEQ, seq);
+        data.set(LONG, base + TIME, time);
+        data.set(LONG, base + AMOUNT, amountMinor);
+        data.set(LONG, base + FROM, fromHi);
+        data.set(LONG, base + FROM + 8, fromLo);
+        data.set(LONG, base + TO, toHi);
+        data.set(LONG, base + TO + 8, toLo);
+        data.set(ValueLayout.JAVA_BYTE, base + TYPE, type.code());
+        if (record % INDEX_INTERVAL == 0) {
+            s.index[record / INDEX_INTERVAL] = time;
+        }
+        s.count = record + 1;  // publishes the record to readers
+        lastSeq = seq;
+        lastTimestamp = time;
+        return time;
+    }
+
+    // Caller holds writeLock
+    private Segment roll(Segment full) {
+        try {
+            full.data.force();
+            // Sealed: from now on readers use a read-only mapping
+            full.data = map(segmentFile(full.firstSeq), FileChannel.MapMode.READ_ONLY,
+                    (long) full.capacity * RECORD_BYTES);
+            Segment next = create(full.firstSeq + full.count);
+            Segment[] grown = Arrays.copyOf(segments, segments.length + 1);
+            grown[grown.length - 1] = next;
+            segments = grown;
+            return next;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Segment create(long firstSeq) throws IOException {
+        long bytes = (long) segmentRecords * RECORD_BYTES;
+        return new Segment(firstSeq, segmentRecords, map(segmentFile(firstSeq), FileChannel.MapMode.READ_WRITE, bytes));
+    }
+
+    private Segment load(Path file, boolean writable) throws IOException {
+        long bytes = Files.size(file);
+        int capacity = (int) (bytes / RECORD_BYTES);
+        MemorySegment data = map(file, writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                bytes);
+        Segment seg = new Segment(firstSeqOf(file), capacity, data);
+        // Records are written in order, so the written ones are a prefix
+        int lo = 0;
+        int hi = capacity;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (data.get(ValueLayout.JAVA_BYTE, (long) mid * RECORD_BYTES + TYPE) != 0) lo = mid + 1;
+            else hi = mid;
+        }
+        for (int r = 0; r < lo; r += INDEX_INTERVAL) {
+            seg.index[r / INDEX_INTERVAL] = seg.time(r);
+        }
+        seg.count = lo;
+        return seg;
+    }
+
+    private MemorySegment map(Path file, FileChannel.MapMode mode, long bytes) throws IOException {
+        Arena arena = Arena.ofShared();
+        arenas.add(arena);
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[] { StandardOpenOption.READ }
+                : new StandardOpenOption[] { StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE };
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            return channel.map(mode, 0, bytes, arena);
+        }
+    }
+
+    private void closeArenas() {
+        for (Arena arena : arenas) {
+            arena.close();
+        }
+        arenas.clear();
+    }
+
+    private Path segmentFile(long firstSeq) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, firstSeq, SUFFIX));
+    }
+
+    private static long firstSeqOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    // ---------- Ids (ASCII, up to 16 bytes, packed into two longs) ----------
+
+    /**
+     * @return Whether the id fits a record: 1 to {@link AccountStore#ID_BYTES} ASCII characters
+     */
+    public static boolean isValidId(String id) {
+        if (id == null || id.isEmpty() || id.length() > AccountStore.ID_BYTES) return false;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c == 0 || c > 127) return false;
+        }
+        return true;
+    }
+
+    private static long idWord(String id, int from) {
+        if (id == null) return 0;
+        if (!isValidId(id)) {
+            throw new IllegalArgumentException("Client id must be 1-" + AccountStore.ID_BYTES
+                    + " ASCII characters: " + id);
+        }
+        long word = 0;
+        for (int k = 0; k < 8; k++) {
+            int i = from + k;
+            word = (word << 8) | (i < id.length() ? id.charAt(i) : 0);
+        }
+        return word;
+    }
+
+    private static String readId(MemorySegment data, long offset) {
+        long hi = data.get(LONG, offset);
+        if (hi == 0) return null;
+        long lo = data.get(LONG, offset + 8);
+        byte[] bytes = new byte[AccountStore.ID_BYTES];
+        int length = 0;
+        for (long word : new long[] { hi, lo }) {
+            for (int shift = 56; shift >= 0 && length < bytes.length; shift -= 8) {
+                byte b = (byte) (word >>> shift);
+                if (b == 0) return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+                bytes[length++] = b;
+            }
+        }
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,260 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * One step of a {@link TransactionPipeline} as a Flow processor.
+ *
+ * Demand is credit based: the stage requests exactly as many items as its
+ * inbox has room for and asks for more only after a batch has been handed
+ * downstream, so a slow stage throttles everything upstream of it instead
+ * of queueing without bound. Worker threads drain the inbox in batches of
+ * up to {@code batchSize} and run the step on each batch in parallel
+ * with the other workers.
+ *
+ * Hand-offs to subscribers run on a caller-supplied executor, or on a pool
+ * of the stage's own that is shut down once the stage completes.
+ */
+public final class PipelineStage extends SubmissionPublisher<WithdrawalRequest>
+        implements Flow.Processor<WithdrawalRequest, WithdrawalRequest> {
+
+    private static final long POLL_MILLIS = 50;
+
+    private final String name;
+    private final BatchStep step;
+    private final int batchSize;
+    private final ArrayBlockingQueue<WithdrawalRequest> inbox;
+    private final Thread[] workers;
+    private final AtomicInteger liveWorkers;
+    private final ExecutorService ownedExecutor; // null when the caller supplied one
+    private volatile Flow.Subscription subscription;
+    private volatile boolean upstreamDone;
+    private volatile Throwable upstreamError;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder stalls = new LongAdder();
+    private final LongAdder stallNanos = new LongAdder();
+
+    /**
+     * Work applied to a whole batch at once, e.g. one bulk remote call.
+     */
+    @FunctionalInterface
+    public interface BatchStep {
+        void apply(List<WithdrawalRequest> batch);
+    }
+
+    /**
+     * @param step           Work applied to each request of a batch
+     * @param parallelism    Worker threads running the step
+     * @param bufferCapacity Requests buffered in front of the workers, and towards the next stage
+     * @param batchSize      Maximum requests a worker takes at once
+     */
+    public PipelineStage(String name, Consumer<WithdrawalRequest> step,
+                         int parallelism, int bufferCapacity, int batchSize) {
+        this(name, (BatchStep) batch -> {
+            for (WithdrawalRequest request : batch) {
+                try {
+                    step.accept(request);
+                } catch (RuntimeException e) {
+                    request.fail(e);
+                }
+            }
+        }, parallelism, bufferCapacity, batchSize);
+    }
+
+    public PipelineStage(String name, BatchStep step,
+                         int parallelism, int bufferCapacity, int batchSize) {
+        this(name, step, parallelism, bufferCapacity, batchSize, null);
+    }
+
+    /**
+     * @param deliveryExecutor Runs the hand-offs to subscribers and stays owned by
+     *                         the caller; null to use a pool owned by the stage
+     */
+    public PipelineStage(String name, BatchStep step, int parallelism, int bufferCapacity, int batchSize,
+                         Executor deliveryExecutor) {
+        super(deliveryExecutor != null ? deliveryExecutor : deliveryPool(name), bufferCapacity);
+        this.ownedExecutor = deliveryExecutor != null ? null : (ExecutorService) getExecutor();
+        if (parallelism <= 0 || batchSize <= 0) {
+            if (ownedExecutor != null) ownedExecutor.shutdown();
+            throw new IllegalArgumentException("Parallelism and batch size must be positive");
+        }
+        this.name = name;
+        this.step = step;
+        this.batchSize = batchSize;
+        this.inbox = new ArrayBlockingQueue<>(bufferCapacity);
+        this.workers = new Thread[parallelism];
+        this.liveWorkers = new AtomicInteger(parallelism);
+        ThreadFactory factory = DaemonThreads.named("pipeline-" + name);
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = factory.newThread(this::work);
+            workers[i].start();
+        }
+    }
+
+    // ---------- Subscriber ----------
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(inbox.remainingCapacity());
+    }
+
+    @Override
+    public void onNext(WithdrawalRequest request) {
+        // Only happens if the upstream ignores demand
+        if (!inbox.offer(request)) {
+            dropped.increment();
+            request.fail(new IllegalStateException("Stage " + name + " overflowed"));
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        upstreamError = throwable;
+        upstreamDone = true;
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+    }
+
+    // ---------- Metrics ----------
+
+    public String name() {
+        return name;
+    }
+
+    /** Requests waiting in front of the workers. */
+    public int buffered() {
+        return inbox.size();
+    }
+
+    /** Fill level of the inbox, from 0.0 to 1.0. */
+    public double occupancy() {
+        return (double) inbox.size() / (inbox.size() + inbox.remainingCapacity());
+    }
+
+    public long processed() {
+        return processed.sum();
+    }
+
+    public long batches() {
+        return batches.sum();
+    }
+
+    /** Requests refused because the inbox was full. */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /** Hand-offs that found the next stage's buffer full and had to wait. */
+    public long stalls() {
+        return stalls.sum();
+    }
+
+    public long stallNanos() {
+        return stallNanos.sum();
+    }
+
+    /**
+     * Waits until the upstream has completed and every buffered request was handed on.
+     */
+    public void awaitTermination() throws InterruptedException {
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: buffered=%d (%.0f%%) processed=%d batches=%d dropped=%d stalls=%d (%.1f ms)",
+                name, buffered(), occupancy() * 100, processed(), batches(), dropped(), stalls(), stallNanos() / 1e6);
+    }
+
+    // ---------- Workers ----------
+
+    private void work() {
+        List<WithdrawalRequest> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                WithdrawalRequest first = inbox.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (upstreamDone && inbox.isEmpty()) return;
+                    continue;
+                }
+                batch.add(first);
+                inbox.drainTo(batch, batchSize - 1);
+
+                try {
+                    step.apply(batch);
+                } catch (RuntimeException e) {
+                    for (WithdrawalRequest request : batch) {
+                        if (!request.isDone()) request.fail(e);
+                    }
+                }
+                for (WithdrawalRequest request : batch) {
+                    emit(request);
+                }
+                processed.add(batch.size());
+                batches.increment();
+                subscription.request(batch.size());
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (liveWorkers.decrementAndGet() == 0) {
+                Throwable error = upstreamError;
+                if (error != null) {
+                    closeExceptionally(error);
+                } else {
+                    close();
+                }
+                if (ownedExecutor != null) {
+                    ownedExecutor.shutdown();
+                }
+            }
+        }
+    }
+
+    // submit() blocks while a subscriber's buffer is full; that wait is the stall
+    private void emit(WithdrawalRequest request) {
+        if (estimateMaximumLag() < getMaxBufferCapacity()) {
+            submit(request);
+            return;
+        }
+        stalls.increment();
+        long start = System.nanoTime();
+        submit(request);
+        stallNanos.add(System.nanoTime() - start);
+    }
+
+    // A subscriber that asks for the last buffered items only after the pool
+    // was shut down gets a one-off thread for them instead of a rejection
+    private static ExecutorService deliveryPool(String name) {
+        ThreadFactory factory = DaemonThreads.named("pipeline-" + name + "-out");
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                factory, (task, pool) -> factory.newThread(task).start());
+    }
+}
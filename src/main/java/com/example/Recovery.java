@@ -0,0 +1,177 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Startup recovery: loads the latest {@link AccountSnapshot} and replays
+ * only the write-ahead log records written after it.
+ *
+ * Log records describe committed transactions, not requests, so replay
+ * applies their amounts unconditionally. Records are written while the
+ * accounts they touch are locked, so each account's records are in the
+ * order its changes were applied, and replay stops at the first torn
+ * record. The recovered balances are those as of the last intact record:
+ * every acknowledged commit in SYNC and GROUP mode, while ASYNC mode may
+ * lose the commits of its last flush window.
+ *
+ * The log also records account opens and status changes, so accounts
+ * opened after the snapshot are rebuilt from the log alone. A record that
+ * cannot be applied, e.g. one for an account that neither the snapshot nor
+ * the log opened, means the two do not belong together; recovery fails
+ * rather than drop the record and leave the balances inconsistent.
+ */
+public final class Recovery {
+
+    private Recovery() {
+    }
+
+    /**
+     * Outcome of a recovery with its timings.
+     */
+    public record Result(AccountStore store, long snapshotSeq, long lastSeq, int accounts,
+                         long replayedRecords, long snapshotNanos, long replayNanos) {
+
+        /** Time from start of recovery until the store was ready, in milliseconds. */
+        public double timeToReadyMillis() {
+            return (snapshotNanos + replayNanos) / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Recovered %d accounts from snapshot (log seq %d) in %.1f ms, "
+                            + "replayed %d log records up to seq %d in %.1f ms; ready in %.1f ms",
+                    accounts, snapshotSeq, snapshotNanos / 1e6, replayedRecords, lastSeq,
+                    replayNanos / 1e6, timeToReadyMillis());
+        }
+    }
+
+    /**
+     * Writes a snapshot reflecting every record appended to {@code wal} so far.
+     * Transactions must be paused while the checkpoint runs.
+     *
+     * @return The log sequence number the snapshot covers
+     */
+    public static long checkpoint(AccountStore store, WriteAheadLog wal, Path snapshotFile) throws IOException {
+        long seq = wal.lastSeq();
+        AccountSnapshot.write(store, seq, snapshotFile);
+        return seq;
+    }
+
+    /**
+     * Rebuilds the account store from a snapshot and the log tail.
+     * A missing snapshot starts from an empty store and replays the whole log.
+     * The store holds at least the snapshot's accounts plus those the log
+     * tail opens, since it cannot grow later.
+     *
+     * @param capacity Minimum capacity of the recovered store, e.g. to leave
+     *                 room for accounts opened after startup; 0 sizes it to fit
+     * @param threads  Threads used to load the snapshot
+     * @throws IllegalStateException if a log record cannot be applied
+     */
+    public static Result recover(Path snapshotFile, Path walDirectory,
+                                 int capacity, int threads) throws IOException {
+        long start = System.nanoTime();
+        AccountSnapshot.Header header = Files.exists(snapshotFile)
+                ? AccountSnapshot.readHeader(snapshotFile) : null;
+        long snapshotSeq = header == null ? 0 : header.walSeq();
+        long needed = (header == null ? 0 : header.count()) + countOpens(walDirectory, snapshotSeq);
+        int size = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(capacity, needed));
+
+        AccountStore store;
+        if (header != null) {
+            store = AccountSnapshot.load(snapshotFile, size, threads).store();
+        } else {
+            store = new AccountStore(Math.max(1, size));
+        }
+        long loadedAt = System.nanoTime();
+
+        long[] replayed = new long[1];
+        long lastSeq;
+        try {
+            lastSeq = WriteAheadLog.replay(walDirectory, snapshotSeq, new WriteAheadLog.RecordHandler() {
+                @Override
+                public void onRecord(long seq, TransactionType type, String fromId, String toId, long amountMinor) {
+                    apply(store, seq, type, fromId, toId, amountMinor);
+                    replayed[0]++;
+                }
+
+                @Override
+                public void onOpen(long seq, String clientId, String clientName,
+                                   long balanceMinor, AccountStatus status) {
+                    if (store.rowOf(clientId) != ClientIdIndex.NOT_FOUND) {
+                        throw new IllegalStateException("Log record " + seq
+                                + " opens account " + clientId + ", which already exists");
+                    }
+                    store.add(clientId, clientName, balanceMinor, statusOf(seq, status));
+                    replayed[0]++;
+                }
+
+                @Override
+                public void onStatus(long seq, String clientId, AccountStatus status) {
+                    store.setStatus(rowOf(store, seq, clientId), statusOf(seq, status));
+                    replayed[0]++;
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        long readyAt = System.nanoTime();
+
+        return new Result(store, snapshotSeq, lastSeq, store.size(), replayed[0],
+                loadedAt - start, readyAt - loadedAt);
+    }
+
+    // ---------- Internals ----------
+
+    private static long countOpens(Path walDirectory, long afterSeq) throws IOException {
+        long[] opens = new long[1];
+        WriteAheadLog.replay(walDirectory, afterSeq, new WriteAheadLog.RecordHandler() {
+            @Override
+            public void onRecord(long seq, TransactionType type, String fromId, String toId, long amountMinor) {
+            }
+
+            @Override
+            public void onOpen(long seq, String clientId, String clientName,
+                               long balanceMinor, AccountStatus status) {
+                opens[0]++;
+            }
+        });
+        return opens[0];
+    }
+
+    private static void apply(AccountStore store, long seq, TransactionType type,
+                              String fromId, String toId, long amountMinor) {
+        if (type == null) {
+            throw new IllegalStateException("Log record " + seq + " has an unknown type");
+        }
+        int from = rowOf(store, seq, fromId);
+        switch (type) {
+            case DEPOSIT -> store.adjustMinor(from, amountMinor);
+            case WITHDRAWAL -> store.adjustMinor(from, -amountMinor);
+            case TRANSFER -> {
+                int to = rowOf(store, seq, toId);
+                store.adjustMinor(from, -amountMinor);
+                store.adjustMinor(to, amountMinor);
+            }
+        }
+    }
+
+    private static int rowOf(AccountStore store, long seq, String clientId) {
+        int row = clientId == null ? ClientIdIndex.NOT_FOUND : store.rowOf(clientId);
+        if (row == ClientIdIndex.NOT_FOUND) {
+            throw new IllegalStateException("Log record " + seq + " refers to unknown account " + clientId);
+        }
+        return row;
+    }
+
+    private static AccountStatus statusOf(long seq, AccountStatus status) {
+        if (status == null) {
+            throw new IllegalStateException("Log record " + seq + " has an unknown account status");
+        }
+        return status;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link CreditService} decorator that bounds how long a lookup may take.
+ *
+ * Every lookup has a deadline. If the backend has not answered after the
+ * hedge delay (the observed p95 backend latency once enough calls were
+ * seen), a second, duplicate call is sent and the first answer wins. When
+ * the deadline passes, or the backend fails, the configured {@link Fallback}
+ * decides the result. Calls still running once the lookup is decided, the
+ * losing one of a hedged pair or both at the deadline, are cancelled.
+ */
+public class ResilientCreditService implements CreditService {
+
+    /** What a lookup returns when no answer arrived in time. */
+    public enum Fallback {
+        /** Last score seen for the client; {@link #DENY} if there is none. */
+        LAST_KNOWN,
+        /** {@link CreditService#SCORE_UNAVAILABLE}: the withdrawal is refused. */
+        DENY,
+        /** {@link CreditService#SCORE_UNAVAILABLE_CAPPED}: allowed up to the feature's fallback cap. */
+        ALLOW_UNDER_CAP
+    }
+
+    public static final long DEFAULT_DEADLINE_MILLIS = 500;
+    /** Clients whose last score is kept for {@link Fallback#LAST_KNOWN}. */
+    public static final int MAX_LAST_KNOWN = 100_000;
+
+    private static final int MIN_SAMPLES_FOR_HEDGING = 100;
+
+    private final CreditService delegate;
+    private final long deadlineNanos;
+    private final long initialHedgeNanos;
+    private final Fallback fallback;
+    private final ConcurrentHashMap<String, Integer> lastKnown = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram backendLatency = new LatencyHistogram();
+    private final LatencyHistogram responseLatency = new LatencyHistogram();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public ResilientCreditService(CreditService delegate, Fallback fallback) {
+        this(delegate, DEFAULT_DEADLINE_MILLIS, DEFAULT_DEADLINE_MILLIS / 5, fallback);
+    }
+
+    /**
+     * @param deadlineMillis     Longest a caller waits for a score
+     * @param initialHedgeMillis Hedge delay used until enough latencies were recorded
+     */
+    public ResilientCreditService(CreditService delegate, long deadlineMillis,
+                                  long initialHedgeMillis, Fallback fallback) {
+        if (deadlineMillis <= 0 || initialHedgeMillis <= 0) {
+            throw new IllegalArgumentException("Deadline and hedge delay must be positive");
+        }
+        this.delegate = delegate;
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        this.initialHedgeNanos = TimeUnit.MILLISECONDS.toNanos(initialHedgeMillis);
+        this.fallback = fallback;
+    }
+
+    @Override
+    public int getCreditScore(String clientId) {
+        long start = System.nanoTime();
+        try {
+            int score = await(clientId, start);
+            remember(clientId, score);
+            return score;
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            return fallback(clientId);
+        } catch (ExecutionException e) {
+            failures.increment();
+            return fallback(clientId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback(clientId);
+        } finally {
+            responseLatency.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    // ---------- Statistics ----------
+
+    /** Latency of every backend call, hedges included. */
+    public LatencyHistogram backendLatency() {
+        return backendLatency;
+    }
+
+    /** Latency seen by callers, bounded by the deadline. */
+    public LatencyHistogram responseLatency() {
+        return responseLatency;
+    }
+
+    /** Current delay before a duplicate call is sent. */
+    public long hedgeDelayNanos() {
+        if (backendLatency.count() < MIN_SAMPLES_FOR_HEDGING) return initialHedgeNanos;
+        return Math.max(1, backendLatency.percentileNanos(95));
+    }
+
+    public long hedgeCount() {
+        return hedges.sum();
+    }
+
+    public long timeoutCount() {
+        return timeouts.sum();
+    }
+
+    public long failureCount() {
+        return failures.sum();
+    }
+
+    public long fallbackCount() {
+        return fallbacks.sum();
+    }
+
+    // ---------- Internals ----------
+
+    private int await(String clientId, long start) throws InterruptedException, ExecutionException,
+            TimeoutException {
+        CompletableFuture<Integer> primary = call(clientId);
+        CompletableFuture<Integer> hedge = null;
+        long hedgeAt = start + hedgeDelayNanos();
+        long deadline = start + deadlineNanos;
+        try {
+            if (hedgeAt - deadline >= 0) {
+                return primary.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+            try {
+                return primary.get(hedgeAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException slow) {
+                hedges.increment();
+                hedge = call(clientId);
+                return firstSuccess(primary, hedge).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            // No-ops for calls that already completed
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    private CompletableFuture<Integer> call(String clientId) {
+        long start = System.nanoTime();
+        CompletableFuture<Integer> future;
+        try {
+            future = delegate.getCreditScoreAsync(clientId);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((score, error) -> {
+            // A cancelled call never answered, so its time is not a backend latency
+            if (!(error instanceof CancellationException)) {
+                backendLatency.recordNanos(System.nanoTime() - start);
+            }
+        });
+        return future;
+    }
+
+    // Completes with the first successful result, or fails once both have failed
+    private static CompletableFuture<Integer> firstSuccess(CompletableFuture<Integer> a,
+                                                           CompletableFuture<Integer> b) {
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        for (CompletableFuture<Integer> f : List.of(a, b)) {
+            f.whenComplete((score, error) -> {
+                if (error == null) {
+                    first.complete(score);
+                } else if (failed.incrementAndGet() == 2) {
+                    first.completeExceptionally(error);
+                }
+            });
+        }
+        return first;
+    }
+
+    private int fallback(String clientId) {
+        fallbacks.increment();
+        switch (fallback) {
+            case LAST_KNOWN:
+                Integer last = lastKnown.get(clientId);
+                return last != null ? last : SCORE_UNAVAILABLE;
+            case ALLOW_UNDER_CAP:
+                return SCORE_UNAVAILABLE_CAPPED;
+            case DENY:
+            default:
+                return SCORE_UNAVAILABLE;
+        }
+    }
+
+    private void remember(String clientId, int score) {
+        if (fallback == Fallback.LAST_KNOWN && score >= 0
+                && (lastKnown.size() < MAX_LAST_KNOWN || lastKnown.containsKey(clientId))) {
+            lastKnown.put(clientId, score);
+        }
+    }
+}
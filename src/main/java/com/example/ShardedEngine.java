@@ -0,0 +1,386 @@
+package com.example;
+
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Optional single-writer transaction engine.
+ * Accounts are partitioned into shards by a hash of their id; every shard
+ * owns a pre-allocated ring buffer of commands and one thread that drains it,
+ * so an account is only ever written by its shard thread and the hot path
+ * takes no locks and allocates nothing.
+ *
+ * A transfer inside one shard is a single command. A cross-shard transfer is
+ * a two-step protocol driven by the caller: debit on the source shard, then
+ * credit on the target shard, with a compensating refund on the source shard
+ * if the credit is refused.
+ *
+ * Shard threads report every accepted command to the engine's
+ * {@link TransactionProcessor}, so its log, journal, ledger and aggregates
+ * see engine commits too; a cross-shard transfer is reported once its
+ * credit lands. Callers are acknowledged after the log record is durable.
+ */
+public final class ShardedEngine implements AutoCloseable {
+
+    private static final byte OP_DEPOSIT = 0;
+    private static final byte OP_WITHDRAW = 1;
+    private static final byte OP_TRANSFER = 2;
+    private static final byte OP_REFUND = 3;
+    private static final byte OP_DEBIT = 4;  // first half of a cross-shard transfer, not reported
+    private static final byte OP_CREDIT = 5; // second half, reported as the whole transfer
+
+    private static final int SPINS = 200;
+
+    private final TransactionProcessor processor = new TransactionProcessor();
+    private final Shard[] shards;
+    private final int mask;
+    private final long startNanos = System.nanoTime();
+    private volatile boolean running = true;
+
+    /**
+     * @param shardCount Number of shards (threads), rounded up to a power of two
+     * @param ringSize   Commands per shard ring, rounded up to a power of two
+     */
+    public ShardedEngine(int shardCount, int ringSize) {
+        int count = Integer.highestOneBit(Math.max(1, shardCount) * 2 - 1);
+        int size = Integer.highestOneBit(Math.max(2, ringSize) * 2 - 1);
+        this.shards = new Shard[count];
+        this.mask = count - 1;
+        ThreadFactory threads = DaemonThreads.named("sharded-engine");
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(size);
+            Thread thread = threads.newThread(shards[i]);
+            shards[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    public ShardedEngine() {
+        this(Runtime.getRuntime().availableProcessors(), 1024);
+    }
+
+    /**
+     * Processor that records the engine's commits, e.g. to attach a log.
+     * Only its hooks are used; balances are changed by the shard threads.
+     */
+    public TransactionProcessor getProcessor() {
+        return processor;
+    }
+
+    // ---------- Commands ----------
+
+    public boolean deposit(Account account, long amountMinor) {
+        if (account == null || amountMinor <= 0) return false;
+        processor.checkIds(account, null);
+        return shardOf(account).submit(OP_DEPOSIT, account, null, amountMinor);
+    }
+
+    public boolean withdraw(Account account, long amountMinor) {
+        if (account == null || amountMinor <= 0) return false;
+        processor.checkIds(account, null);
+        return shardOf(account).submit(OP_WITHDRAW, account, null, amountMinor);
+    }
+
+    public boolean transfer(Account from, Account to, long amountMinor) {
+        if (from == null || to == null || amountMinor <= 0) return false;
+        processor.checkIds(from, to);
+        Shard source = shardOf(from);
+        Shard target = shardOf(to);
+        if (source == target) {
+            return source.submit(OP_TRANSFER, from, to, amountMinor);
+        }
+        if (to.getStatus() == AccountStatus.CLOSED) return false;
+        if (!source.submit(OP_DEBIT, from, null, amountMinor)) return false;
+        try {
+            if (target.submit(OP_CREDIT, to, from, amountMinor)) return true;
+        } catch (CreditUndone e) {
+            source.submit(OP_REFUND, from, null, amountMinor);
+            throw (RuntimeException) e.getCause();
+        }
+        source.submit(OP_REFUND, from, null, amountMinor);
+        return false;
+    }
+
+    /**
+     * Applies transfers item by item in list order, each through its shards.
+     * Unlike {@link TransactionProcessor#processBatch} the batch is not one
+     * unit: other commands may run between its items. Ids are checked for
+     * every item before any is applied.
+     *
+     * @return One TransactionProcessor.TRANSFER_* code per request, in request order
+     */
+    public byte[] transferBatch(List<TransferRequest> requests) {
+        for (TransferRequest r : requests) {
+            if (r != null && r.from() != null && r.to() != null) {
+                processor.checkIds(r.from(), r.to());
+            }
+        }
+        byte[] results = new byte[requests.size()];
+        for (int i = 0; i < results.length; i++) {
+            TransferRequest r = requests.get(i);
+            if (r == null || r.from() == null || r.to() == null || r.amountMinor() <= 0) {
+                results[i] = TransactionProcessor.TRANSFER_INVALID;
+            } else if (transfer(r.from(), r.to(), r.amountMinor())) {
+                results[i] = TransactionProcessor.TRANSFER_OK;
+            } else {
+                results[i] = refusalOf(r);
+            }
+        }
+        return results;
+    }
+
+    // Reason a transfer was refused, judged from the accounts afterwards
+    private static byte refusalOf(TransferRequest r) {
+        if (r.to().getStatus() == AccountStatus.CLOSED
+                || r.from().getStatus() != AccountStatus.VERIFIED) {
+            return TransactionProcessor.TRANSFER_REJECTED;
+        }
+        return r.from().getBalanceMinor() < r.amountMinor()
+                ? TransactionProcessor.TRANSFER_INSUFFICIENT_FUNDS : TransactionProcessor.TRANSFER_REJECTED;
+    }
+
+    // ---------- Metrics ----------
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /** Commands executed by all shards since start. */
+    public long processedCount() {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += shard.processed.get();
+        }
+        return total;
+    }
+
+    public long processedCount(int shard) {
+        return shards[shard].processed.get();
+    }
+
+    /** Average commands per second since the engine started. */
+    public double throughput() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds <= 0 ? 0.0 : processedCount() / seconds;
+    }
+
+    /** Commands claimed but not yet executed, over all shards. */
+    public long queueDepth() {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += shard.depth();
+        }
+        return total;
+    }
+
+    public long queueDepth(int shard) {
+        return shards[shard].depth();
+    }
+
+    /**
+     * Stops the shard threads once their rings are drained.
+     * Callers must stop submitting commands before closing.
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Shard shardOf(Account account) {
+        int h = account.lockKey() * 0x9E3779B9;
+        return shards[(h ^ (h >>> 16)) & mask];
+    }
+
+    // ---------- Shard ----------
+
+    // A credit whose record the log refused; the credit itself is already undone
+    private static final class CreditUndone extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        CreditUndone(RuntimeException cause) {
+            super(cause);
+        }
+    }
+
+    private static final class Slot {
+        // Sequence numbers drive the slot through claim -> publish -> done -> free
+        volatile long available;
+        volatile long published = -1;
+        volatile long done = -1;
+        byte op;
+        Account first;
+        Account second;
+        long amount;
+        boolean result;
+        long logSeq;
+        RuntimeException failure;
+        Thread waiter;
+    }
+
+    private final class Shard implements Runnable {
+
+        final Slot[] ring;
+        final int ringMask;
+        final AtomicLong claimed = new AtomicLong();
+        final AtomicLong processed = new AtomicLong();
+        volatile long consumed;
+        volatile boolean sleeping;
+        Thread thread;
+
+        Shard(int size) {
+            ring = new Slot[size];
+            ringMask = size - 1;
+            for (int i = 0; i < size; i++) {
+                ring[i] = new Slot();
+                ring[i].available = i;
+            }
+        }
+
+        long depth() {
+            return claimed.get() - consumed;
+        }
+
+        boolean submit(byte op, Account first, Account second, long amount) {
+            if (!running) {
+                throw new IllegalStateException("Engine is closed");
+            }
+            long seq = claimed.getAndIncrement();
+            Slot slot = ring[(int) (seq & ringMask)];
+            // Ring full: wait until the previous user of this slot has released it
+            for (int spins = 0; slot.available != seq; spins++) {
+                backOff(spins);
+            }
+            slot.op = op;
+            slot.first = first;
+            slot.second = second;
+            slot.amount = amount;
+            slot.waiter = Thread.currentThread();
+            slot.published = seq;
+            if (sleeping) {
+                LockSupport.unpark(thread);
+            }
+
+            for (int spins = 0; slot.done != seq; spins++) {
+                if (spins < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+            boolean result = slot.result;
+            long logSeq = slot.logSeq;
+            RuntimeException failure = slot.failure;
+            slot.first = null;
+            slot.second = null;
+            slot.failure = null;
+            slot.waiter = null;
+            slot.available = seq + ring.length;
+            if (failure != null) throw failure;
+            // Wait for the disk after freeing the slot, so an fsync never stalls the ring
+            processor.awaitDurable(logSeq);
+            return result;
+        }
+
+        @Override
+        public void run() {
+            long next = 0;
+            int idle = 0;
+            while (true) {
+                Slot slot = ring[(int) (next & ringMask)];
+                if (slot.published == next) {
+                    slot.logSeq = 0;
+                    try {
+                        slot.result = execute(slot);
+                    } catch (RuntimeException e) {
+                        // Hand the failure to the caller; the shard thread keeps running
+                        slot.result = false;
+                        slot.failure = e;
+                    }
+                    Thread waiter = slot.waiter;
+                    // Counters first, so a caller that sees its result also sees them
+                    processed.lazySet(processed.get() + 1);
+                    consumed = next + 1;
+                    slot.done = next++;
+                    LockSupport.unpark(waiter);
+                    idle = 0;
+                } else if (!running && claimed.get() == next) {
+                    return;
+                } else if (idle++ < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    sleeping = true;
+                    if (slot.published != next && running) {
+                        LockSupport.park(this);
+                    }
+                    sleeping = false;
+                }
+            }
+        }
+
+        // Runs on the shard thread, which is the only writer of its accounts, so
+        // reporting here keeps each account's records in apply order
+        private boolean execute(Slot slot) {
+            Account first = slot.first;
+            Account second = slot.second;
+            long amount = slot.amount;
+            switch (slot.op) {
+                case OP_DEPOSIT:
+                    if (!first.depositMinor(amount)) return false;
+                    slot.logSeq = processor.committed(TransactionType.DEPOSIT, first, null, amount);
+                    return true;
+                case OP_WITHDRAW:
+                    if (!first.withdrawMinor(amount)) return false;
+                    slot.logSeq = processor.committed(TransactionType.WITHDRAWAL, first, null, amount);
+                    return true;
+                case OP_DEBIT:
+                    return first.withdrawMinor(amount);
+                case OP_CREDIT:
+                    if (!first.depositMinor(amount)) return false;
+                    // The debit belongs to the source shard; the caller refunds it
+                    try {
+                        slot.logSeq = processor.logged(TransactionType.TRANSFER, second, first, amount);
+                    } catch (RuntimeException e) {
+                        first.adjustMinor(-amount);
+                        throw new CreditUndone(e);
+                    }
+                    processor.recorded(TransactionType.TRANSFER, second, first, amount);
+                    return true;
+                case OP_REFUND:
+                    first.adjustMinor(amount);
+                    return true;
+                case OP_TRANSFER:
+                    if (second.getStatus() == AccountStatus.CLOSED) return false;
+                    if (!first.withdrawMinor(amount)) return false;
+                    if (!second.depositMinor(amount)) {
+                        first.adjustMinor(amount);
+                        return false;
+                    }
+                    slot.logSeq = processor.committed(TransactionType.TRANSFER, first, second, amount);
+                    return true;
+                default:
+                    throw new IllegalStateException("Unknown op: " + slot.op);
+            }
+        }
+
+        private void backOff(int spins) {
+            if (spins < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(1_000L);
+            }
+        }
+    }
+}
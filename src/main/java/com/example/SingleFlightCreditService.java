@@ -0,0 +1,101 @@
+package com.example;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link CreditService} decorator that coalesces concurrent lookups:
+ * while a call for a client id is in flight, further lookups for the same
+ * id wait for that call instead of issuing their own. Results are not kept
+ * once the call completes; put a {@link CachingCreditService} in front for that.
+ */
+public class SingleFlightCreditService implements CreditService {
+
+    private final CreditService delegate;
+    private final ConcurrentHashMap<String, CompletableFuture<Integer>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder backendCalls = new LongAdder();
+    private final LongAdder savedCalls = new LongAdder();
+
+    public SingleFlightCreditService(CreditService delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * The first caller for an id runs the backend call on its own thread;
+     * concurrent callers for the same id block until it finishes.
+     */
+    @Override
+    public int getCreditScore(String clientId) {
+        CompletableFuture<Integer> call = new CompletableFuture<>();
+        CompletableFuture<Integer> existing = inFlight.putIfAbsent(clientId, call);
+        if (existing != null) {
+            savedCalls.increment();
+            return join(existing);
+        }
+        backendCalls.increment();
+        try {
+            int score = delegate.getCreditScore(clientId);
+            inFlight.remove(clientId, call);
+            call.complete(score);
+            return score;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(clientId, call);
+            call.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Integer> getCreditScoreAsync(String clientId) {
+        CompletableFuture<Integer> call = new CompletableFuture<>();
+        CompletableFuture<Integer> existing = inFlight.putIfAbsent(clientId, call);
+        if (existing != null) {
+            savedCalls.increment();
+            return existing.copy();
+        }
+        backendCalls.increment();
+        CompletableFuture<Integer> backend;
+        try {
+            backend = delegate.getCreditScoreAsync(clientId);
+        } catch (RuntimeException e) {
+            backend = CompletableFuture.failedFuture(e);
+        }
+        backend.whenComplete((score, error) -> {
+            inFlight.remove(clientId, call);
+            if (error != null) {
+                call.completeExceptionally(error);
+            } else {
+                call.complete(score);
+            }
+        });
+        return call.copy();
+    }
+
+    /** Calls actually made to the delegate. */
+    public long backendCalls() {
+        return backendCalls.sum();
+    }
+
+    /** Lookups served by joining a call already in flight. */
+    public long savedCalls() {
+        return savedCalls.sum();
+    }
+
+    /** Client ids with a call currently in flight. */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private static int join(CompletableFuture<Integer> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed table of locks keyed by account.
+ * Multi-account operations lock every stripe they touch in ascending stripe
+ * order, so two transfers can never wait on each other in a cycle.
+ * Accounts on different stripes never contend, which keeps disjoint
+ * transfers scaling with the number of cores.
+ */
+public final class StripedLocks {
+
+    private static final StripedLocks SHARED =
+            new StripedLocks(Runtime.getRuntime().availableProcessors() * 16);
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripes Requested stripe count, rounded up to a power of two (min 64)
+     */
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(64, stripes) - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Process-wide table, used by processors that are not given their own,
+     * so that every processor excludes every other on the same account.
+     */
+    public static StripedLocks shared() {
+        return SHARED;
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    public int stripeOf(Account account) {
+        return stripeOfKey(account.lockKey());
+    }
+
+    /**
+     * Stripe for a raw key, e.g. an {@link AccountStore} row.
+     */
+    public int stripeOfKey(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    public void lock(int stripe) {
+        stripes[stripe].lock();
+    }
+
+    public void unlock(int stripe) {
+        stripes[stripe].unlock();
+    }
+
+    /**
+     * Locks two stripes, lower index first. The same stripe is locked once.
+     */
+    public void lockPair(int a, int b) {
+        if (a == b) {
+            stripes[a].lock();
+        } else if (a < b) {
+            stripes[a].lock();
+            stripes[b].lock();
+        } else {
+            stripes[b].lock();
+            stripes[a].lock();
+        }
+    }
+
+    public void unlockPair(int a, int b) {
+        stripes[a].unlock();
+        if (a != b) {
+            stripes[b].unlock();
+        }
+    }
+}
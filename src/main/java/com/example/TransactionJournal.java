@@ -0,0 +1,270 @@
+package com.example;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory journal of committed transactions, kept as typed entries in one
+ * packed {@code long[]} ring instead of a String per event.
+ *
+ * Every entry belongs to one account and holds the change to that
+ * account's balance: a transfer is recorded twice, as a debit for the
+ * source and a credit for the target. Entries of the same account are
+ * linked in both directions, and every account keeps its newest (head)
+ * and oldest retained (tail) entry, so a statement walks only that
+ * account's entries, from either end. Once the ring is full the oldest
+ * entries are overwritten and the tails move past them.
+ *
+ * Appends are serialized by a short lock; reads take no lock and stop at
+ * an entry that is overwritten while it is being read.
+ */
+public final class TransactionJournal {
+
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    /**
+     * Receives entries while a chain is walked.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        /**
+         * @param amountMinor    Change to the account's balance, negative for debits
+         * @param counterpartyId Other account of a transfer, otherwise null
+         * @return false to stop the walk
+         */
+        boolean visit(long seq, long timestampMillis, TransactionType type, long amountMinor,
+                      String counterpartyId);
+    }
+
+    // Entry layout, in longs:
+    // seq | timestamp | amount | account, counterparty | type, previous seq + 1 | next seq + 1
+    private static final int WORDS = 6;
+    private static final int SEQ = 0;
+    private static final int TIME = 1;
+    private static final int AMOUNT = 2;
+    private static final int SLOTS = 3;
+    private static final int LINK = 4;
+    private static final int NEXT = 5;
+    private static final long PREV_MASK = (1L << 56) - 1;
+    private static final long NONE = -1;
+
+    private static final VarHandle WORD = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] entries;
+    private final int mask;
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    // Account slots, assigned on first sight; guarded by appendLock for writes
+    private final ClientIdIndex slotIndex = new ClientIdIndex(1024);
+    private volatile String[] clientIds = new String[1024];
+    private volatile long[] heads = newHeads(1024);
+    private volatile long[] tails = newHeads(1024);
+    private int accountCount;
+
+    private volatile long nextSeq;
+
+    public TransactionJournal() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Entries kept, rounded up to a power of two
+     */
+    public TransactionJournal(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.entries = new long[size * WORDS];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            entries[i * WORDS + SEQ] = NONE;
+        }
+    }
+
+    /**
+     * Records a committed transaction: one entry for a deposit or withdrawal,
+     * two (debit, then credit) for a transfer.
+     *
+     * @param counterpartyId Target of a transfer, otherwise null
+     * @return Sequence number of the first entry written
+     */
+    public long append(TransactionType type, String clientId, String counterpartyId, long amountMinor) {
+        return append(type, clientId, counterpartyId, amountMinor, System.currentTimeMillis());
+    }
+
+    /**
+     * Same as {@link #append(TransactionType, String, String, long)} with a
+     * given commit time, e.g. when replaying a log.
+     */
+    public long append(TransactionType type, String clientId, String counterpartyId, long amountMinor,
+                       long timestampMillis) {
+        appendLock.lock();
+        try {
+            int slot = slotOf(clientId);
+            if (type == TransactionType.TRANSFER) {
+                int target = slotOf(counterpartyId);
+                long first = write(timestampMillis, type, slot, target, -amountMinor);
+                write(timestampMillis, type, target, slot, amountMinor);
+                return first;
+            }
+            long delta = type == TransactionType.WITHDRAWAL ? -amountMinor : amountMinor;
+            return write(timestampMillis, type, slot, -1, delta);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Walks the retained entries of one account, newest first.
+     *
+     * @return Number of entries visited
+     */
+    public int forEachNewestFirst(String clientId, EntryVisitor visitor) {
+        return walk(clientId, newestSeq(clientId), false, visitor);
+    }
+
+    /**
+     * @return Sequence number of the account's newest entry, or -1 if it has none
+     */
+    public long newestSeq(String clientId) {
+        int slot = slotIndex.get(clientId);
+        if (slot == ClientIdIndex.NOT_FOUND) return NONE;
+        long[] h = heads;
+        return slot < h.length ? (long) WORD.getAcquire(h, slot) : NONE;
+    }
+
+    /**
+     * @return Sequence number of the account's oldest retained entry, or -1 if it has none
+     */
+    public long oldestSeq(String clientId) {
+        int slot = slotIndex.get(clientId);
+        if (slot == ClientIdIndex.NOT_FOUND) return NONE;
+        long[] t = tails;
+        return slot < t.length ? (long) WORD.getAcquire(t, slot) : NONE;
+    }
+
+    /**
+     * Walks one account's chain starting at entry {@code startSeq}, towards
+     * newer entries if {@code forward} is set, otherwise towards older ones.
+     * Visits nothing if that entry is not the account's or is no longer retained.
+     *
+     * @return Number of entries visited
+     */
+    public int walk(String clientId, long startSeq, boolean forward, EntryVisitor visitor) {
+        int slot = slotIndex.get(clientId);
+        if (slot == ClientIdIndex.NOT_FOUND) return 0;
+        String[] ids = clientIds;
+        long seq = startSeq;
+        int visited = 0;
+        while (seq >= 0 && seq >= oldestSeq()) {
+            int base = (int) (seq & mask) * WORDS;
+            if ((long) WORD.getAcquire(entries, base + SEQ) != seq) break;
+            long time = entries[base + TIME];
+            long amount = entries[base + AMOUNT];
+            long slots = entries[base + SLOTS];
+            long link = entries[base + LINK];
+            long next = (long) WORD.getAcquire(entries, base + NEXT);
+            VarHandle.loadLoadFence();
+            if ((long) WORD.getOpaque(entries, base + SEQ) != seq) break; // overwritten meanwhile
+            if ((int) (slots >>> 32) != slot) break;
+
+            int counterparty = (int) slots;
+            if (counterparty >= ids.length) ids = clientIds;
+            visited++;
+            if (!visitor.visit(seq, time, TransactionType.fromCode((byte) (link >>> 56)), amount,
+                    counterparty < 0 ? null : ids[counterparty])) {
+                break;
+            }
+            seq = (forward ? next : link & PREV_MASK) - 1;
+        }
+        return visited;
+    }
+
+    // ---------- Statistics ----------
+
+    /** Sequence number the next entry will get; also the number of entries ever written. */
+    public long nextSeq() {
+        return nextSeq;
+    }
+
+    /** Oldest sequence number still in the ring. */
+    public long oldestSeq() {
+        return Math.max(0, nextSeq - (mask + 1));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /** Accounts that have at least one entry. */
+    public int accountCount() {
+        appendLock.lock();
+        try {
+            return accountCount;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // ---------- Internals (caller holds appendLock) ----------
+
+    private long write(long timestampMillis, TransactionType type, int slot, int counterparty, long amount) {
+        long seq = nextSeq;
+        int base = (int) (seq & mask) * WORDS;
+        long replaced = entries[base + SEQ];
+        if (replaced != NONE) {
+            // The replaced entry may be its account's tail; the tail moves to the account's next entry
+            int owner = (int) (entries[base + SLOTS] >>> 32);
+            if (tails[owner] == replaced) {
+                WORD.setRelease(tails, owner, entries[base + NEXT] - 1);
+            }
+        }
+        WORD.setVolatile(entries, base + SEQ, NONE);
+        VarHandle.storeStoreFence();
+        entries[base + TIME] = timestampMillis;
+        entries[base + AMOUNT] = amount;
+        entries[base + SLOTS] = ((long) slot << 32) | (counterparty & 0xFFFFFFFFL);
+        long[] h = heads;
+        long prev = h[slot];
+        entries[base + LINK] = ((long) type.code() << 56) | (prev + 1);
+        entries[base + NEXT] = 0;
+        WORD.setRelease(entries, base + SEQ, seq);
+        if (prev >= 0 && prev > seq - capacity()) {
+            // Forward link from the account's previous entry, unless this write just replaced it
+            WORD.setRelease(entries, (int) (prev & mask) * WORDS + NEXT, seq + 1);
+        }
+        WORD.setRelease(h, slot, seq);
+        if (tails[slot] == NONE) {
+            WORD.setRelease(tails, slot, seq);
+        }
+        nextSeq = seq + 1;
+        return seq;
+    }
+
+    private int slotOf(String clientId) {
+        int slot = slotIndex.get(clientId);
+        if (slot != ClientIdIndex.NOT_FOUND) return slot;
+        slot = accountCount++;
+        if (slot == heads.length) {
+            long[] h = Arrays.copyOf(heads, slot * 2);
+            Arrays.fill(h, slot, h.length, NONE);
+            heads = h;
+            long[] t = Arrays.copyOf(tails, slot * 2);
+            Arrays.fill(t, slot, t.length, NONE);
+            tails = t;
+            clientIds = Arrays.copyOf(clientIds, slot * 2);
+        }
+        clientIds[slot] = clientId;
+        slotIndex.put(clientId, slot);
+        return slot;
+    }
+
+    private static long[] newHeads(int size) {
+        long[] h = new long[size];
+        Arrays.fill(h, NONE);
+        return h;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Withdrawal processing as a chain of Flow stages:
+ * validation -> credit check -> execution, each a {@link PipelineStage}
+ * running one {@link CreditScoreFeature} step with its own workers. The
+ * credit check looks up each batch with one bulk call.
+ *
+ * Feeds either {@link #submit} (blocks while the pipeline is full, so a file
+ * import or socket reader slows down to the pipeline's pace) or
+ * {@link #offer} (fails fast with {@link WithdrawalOutcome#BUSY} and counts a drop).
+ */
+public final class TransactionPipeline implements AutoCloseable {
+
+    public static final int DEFAULT_BUFFER_CAPACITY = 1024;
+    public static final int DEFAULT_BATCH_SIZE = 32;
+
+    private final ExecutorService sourceExecutor;
+    private final SubmissionPublisher<WithdrawalRequest> source;
+    private final PipelineStage validation;
+    private final PipelineStage creditCheck;
+    private final PipelineStage execution;
+    private final LongAdder dropped = new LongAdder();
+
+    public TransactionPipeline(CreditScoreFeature feature) {
+        this(feature, Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().availableProcessors() * 8,
+                DEFAULT_BUFFER_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param cpuParallelism    Workers for the validation and execution stages
+     * @param creditParallelism Workers for the credit check, which blocks on a remote call
+     */
+    public TransactionPipeline(CreditScoreFeature feature, int cpuParallelism, int creditParallelism,
+                               int bufferCapacity, int batchSize) {
+        this.sourceExecutor = Executors.newSingleThreadExecutor(DaemonThreads.named("pipeline-source"));
+        this.source = new SubmissionPublisher<>(sourceExecutor, bufferCapacity);
+        this.validation = new PipelineStage("validation", feature::validate,
+                cpuParallelism, bufferCapacity, batchSize);
+        this.creditCheck = new PipelineStage("credit-check", feature::checkCreditScores,
+                creditParallelism, bufferCapacity, batchSize);
+        this.execution = new PipelineStage("execution", feature::execute,
+                cpuParallelism, bufferCapacity, batchSize);
+        source.subscribe(validation);
+        validation.subscribe(creditCheck);
+        creditCheck.subscribe(execution);
+    }
+
+    /**
+     * Queues a withdrawal, blocking while the first stage is full.
+     *
+     * @return Future of the outcome
+     */
+    public CompletableFuture<WithdrawalOutcome> submit(Account account, String amount) {
+        CompletableFuture<WithdrawalOutcome> result = new CompletableFuture<>();
+        source.submit(new WithdrawalRequest(account, amount, result));
+        return result;
+    }
+
+    /**
+     * Queues a withdrawal if there is room; otherwise completes at once with
+     * {@link WithdrawalOutcome#BUSY} and counts a drop.
+     */
+    public CompletableFuture<WithdrawalOutcome> offer(Account account, String amount) {
+        CompletableFuture<WithdrawalOutcome> result = new CompletableFuture<>();
+        WithdrawalRequest request = new WithdrawalRequest(account, amount, result);
+        if (source.offer(request, null) < 0) {
+            dropped.increment();
+            request.finish(WithdrawalOutcome.BUSY);
+        }
+        return result;
+    }
+
+    /**
+     * Finished requests, for sinks such as notifications or audit writers.
+     * Subscribers that fall behind slow the pipeline down.
+     */
+    public Flow.Publisher<WithdrawalRequest> completed() {
+        return execution;
+    }
+
+    public List<PipelineStage> stages() {
+        return List.of(validation, creditCheck, execution);
+    }
+
+    /** Requests refused by {@link #offer} because the pipeline was full. */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /** Requests waiting anywhere in the pipeline. */
+    public long buffered() {
+        return source.estimateMaximumLag() + validation.buffered() + creditCheck.buffered() + execution.buffered();
+    }
+
+    /**
+     * Stops accepting requests and waits until everything queued has finished.
+     */
+    @Override
+    public void close() {
+        source.close();
+        try {
+            for (PipelineStage stage : stages()) {
+                stage.awaitTermination();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Once validation has terminated it has taken everything the source held
+            sourceExecutor.shutdown();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("pipeline: dropped=").append(dropped());
+        for (PipelineStage stage : stages()) {
+            sb.append('\n').append(stage);
+        }
+        return sb.toString();
+    }
+}
@@ -1,24 +1,532 @@
 package com.example;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public class TransactionProcessor {
 
+    // ---------- Batch result codes ----------
+
+    public static final byte TRANSFER_OK = 0;
+    public static final byte TRANSFER_INVALID = 1;
+    public static final byte TRANSFER_REJECTED = 2;
+    public static final byte TRANSFER_INSUFFICIENT_FUNDS = 3;
+
+    private final StripedLocks locks;
+    private WriteAheadLog writeAheadLog;
+    private TransactionJournal journal;
+    private PersistentLedger ledger;
+    private AccountAggregates aggregates;
+
+    public TransactionProcessor() {
+        this(StripedLocks.shared());
+    }
+
+    public TransactionProcessor(StripedLocks locks) {
+        this.locks = locks;
+    }
+
+    /**
+     * Makes every accepted command durable in the given log before it is
+     * acknowledged. Records are written while the account stripes are held,
+     * so each account's records are in the order its changes were applied.
+     * Commands on accounts whose ids do not fit the log are refused with an
+     * IllegalArgumentException before any balance changes. Pass null to
+     * disable logging.
+     */
+    public void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    /**
+     * Records every accepted command in the given journal, e.g. for
+     * statements. Pass null to disable it.
+     */
+    public void setJournal(TransactionJournal journal) {
+        this.journal = journal;
+    }
+
+    public TransactionJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Keeps the history of every accepted command in the given ledger.
+     * Commands on accounts whose ids do not fit {@link AccountStore}'s format
+     * are then refused with an IllegalArgumentException before any balance
+     * changes. Pass null to disable it.
+     */
+    public void setLedger(PersistentLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    public PersistentLedger getLedger() {
+        return ledger;
+    }
+
+    /**
+     * Adds every accepted command to the given daily and monthly totals.
+     * Pass null to disable them.
+     */
+    public void setAggregates(AccountAggregates aggregates) {
+        this.aggregates = aggregates;
+    }
+
+    public AccountAggregates getAggregates() {
+        return aggregates;
+    }
+
     public boolean processDeposit(Account acc, double amount) {
-        if (acc == null) return false;
-        if (amount <= 0) return false;
-        return acc.deposit(amount);
+        return processDepositMinor(acc, Money.toMinor(amount));
     }
 
     public boolean processWithdraw(Account acc, double amount) {
-        if (acc == null) return false;
-        if (amount <= 0) return false;  
-        return acc.withdraw(amount);
+        return processWithdrawMinor(acc, Money.toMinor(amount));
     }
 
     public boolean processTransfer(Account from, Account to, double amount) {
+        return processTransferMinor(from, to, Money.toMinor(amount));
+    }
+
+    // ---------- Minor-unit (exact) entry points ----------
+
+    /**
+     * Lock-free unless something records commits; then the account stripe is
+     * held so the change and its record are ordered together.
+     */
+    public boolean processDepositMinor(Account acc, long amountMinor) {
+        if (acc == null) return false;
+        if (amountMinor <= 0) return false;
+        checkIds(acc, null);
+        if (!recording()) return acc.depositMinor(amountMinor);
+        int stripe = locks.stripeOf(acc);
+        long seq;
+        locks.lock(stripe);
+        try {
+            if (!acc.depositMinor(amountMinor)) return false;
+            seq = committed(TransactionType.DEPOSIT, acc, null, amountMinor);
+        } finally {
+            locks.unlock(stripe);
+        }
+        awaitDurable(seq);
+        return true;
+    }
+
+    public boolean processWithdrawMinor(Account acc, long amountMinor) {
+        if (acc == null) return false;
+        if (amountMinor <= 0) return false;
+        checkIds(acc, null);
+        if (!recording()) return acc.withdrawMinor(amountMinor);
+        int stripe = locks.stripeOf(acc);
+        long seq;
+        locks.lock(stripe);
+        try {
+            if (!acc.withdrawMinor(amountMinor)) return false;
+            seq = committed(TransactionType.WITHDRAWAL, acc, null, amountMinor);
+        } finally {
+            locks.unlock(stripe);
+        }
+        awaitDurable(seq);
+        return true;
+    }
+
+    /**
+     * Moves money between two accounts while holding both account stripes,
+     * acquired in stripe order. The debit is undone if the credit is refused,
+     * so a CLOSED target never swallows the amount.
+     */
+    public boolean processTransferMinor(Account from, Account to, long amountMinor) {
         if (from == null || to == null) return false;
-        if (amount <= 0) return false;
-        if (!from.withdraw(amount)) return false;
-        to.deposit(amount);
+        if (amountMinor <= 0) return false;
+        checkIds(from, to);
+        int fromStripe = locks.stripeOf(from);
+        int toStripe = locks.stripeOf(to);
+        long seq;
+        locks.lockPair(fromStripe, toStripe);
+        try {
+            if (transferLocked(from, to, amountMinor) != TRANSFER_OK) return false;
+            seq = committed(TransactionType.TRANSFER, from, to, amountMinor);
+        } finally {
+            locks.unlockPair(fromStripe, toStripe);
+        }
+        // Wait for the disk outside the stripes so an fsync never holds up other transfers
+        awaitDurable(seq);
+        return true;
+    }
+
+    /**
+     * Applies many transfers as one unit.
+     * Every stripe touched by the batch is locked once, in ascending order.
+     * Items are validated in list order against running per-account totals,
+     * then only the net change of each account is written.
+     *
+     * @param requests Transfers to apply
+     * @return One TRANSFER_* code per request, in request order
+     */
+    public byte[] processBatch(List<TransferRequest> requests) {
+        int n = requests.size();
+        byte[] results = new byte[n];
+
+        // ---------- Distinct accounts and their stripes ----------
+        Map<Account, Integer> slots = new HashMap<>();
+        int[] fromSlot = new int[n];
+        int[] toSlot = new int[n];
+        Account[] accounts = new Account[2 * n];
+        for (int i = 0; i < n; i++) {
+            TransferRequest r = requests.get(i);
+            if (r == null || r.from() == null || r.to() == null || r.amountMinor() <= 0) {
+                results[i] = TRANSFER_INVALID;
+                fromSlot[i] = -1;
+                continue;
+            }
+            checkIds(r.from(), r.to());
+            fromSlot[i] = slotOf(slots, accounts, r.from());
+            toSlot[i] = slotOf(slots, accounts, r.to());
+        }
+        int accountCount = slots.size();
+        int[] stripes = new int[accountCount];
+        for (int a = 0; a < accountCount; a++) {
+            stripes[a] = locks.stripeOf(accounts[a]);
+        }
+        Arrays.sort(stripes);
+        int stripeCount = 0;
+        for (int a = 0; a < accountCount; a++) {
+            if (stripeCount == 0 || stripes[stripeCount - 1] != stripes[a]) {
+                stripes[stripeCount++] = stripes[a];
+            }
+        }
+
+        long seq = 0;
+        RuntimeException failure = null;
+        for (int k = 0; k < stripeCount; k++) {
+            locks.lock(stripes[k]);
+        }
+        try {
+            // ---------- Validate against running net balances ----------
+            long[] available = new long[accountCount];
+            AccountStatus[] status = new AccountStatus[accountCount];
+            for (int a = 0; a < accountCount; a++) {
+                available[a] = accounts[a].getBalanceMinor();
+                status[a] = accounts[a].getStatus();
+            }
+            long[] delta = new long[accountCount];
+            for (int i = 0; i < n; i++) {
+                if (fromSlot[i] < 0) continue;
+                int f = fromSlot[i];
+                int t = toSlot[i];
+                long amount = requests.get(i).amountMinor();
+                if (status[f] != AccountStatus.VERIFIED || status[t] == AccountStatus.CLOSED) {
+                    results[i] = TRANSFER_REJECTED;
+                } else if (amount > available[f] + delta[f]) {
+                    results[i] = TRANSFER_INSUFFICIENT_FUNDS;
+                } else if (Money.addOverflows(available[t] + delta[t], amount)) {
+                    results[i] = TRANSFER_REJECTED;
+                } else {
+                    delta[f] -= amount;
+                    delta[t] += amount;
+                    results[i] = TRANSFER_OK;
+                }
+            }
+
+            // ---------- Apply net changes: debits first, then credits ----------
+            if (!applyNetted(accounts, delta, accountCount)) {
+                // A lock-free withdraw or status change raced the batch;
+                // replay item by item so each result reflects what really happened
+                for (int i = 0; i < n; i++) {
+                    if (fromSlot[i] < 0) continue;
+                    TransferRequest r = requests.get(i);
+                    results[i] = transferLocked(r.from(), r.to(), r.amountMinor());
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                if (results[i] != TRANSFER_OK) continue;
+                TransferRequest r = requests.get(i);
+                try {
+                    seq = logged(TransactionType.TRANSFER, r.from(), r.to(), r.amountMinor());
+                } catch (RuntimeException e) {
+                    failure = e;
+                    undoFrom(requests, results, i);
+                    break;
+                }
+                recorded(TransactionType.TRANSFER, r.from(), r.to(), r.amountMinor());
+            }
+        } finally {
+            for (int k = stripeCount - 1; k >= 0; k--) {
+                locks.unlock(stripes[k]);
+            }
+        }
+        // Items logged before a log failure stand and keep their codes; only a
+        // batch with nothing logged (seq still 0) fails as a whole
+        if (failure != null && seq == 0) throw failure;
+        // The log is durable in order, so the last record covers the whole batch
+        awaitDurable(seq);
+        return results;
+    }
+
+    // ---------- Helpers ----------
+
+    private boolean recording() {
+        return writeAheadLog != null || journal != null || ledger != null || aggregates != null;
+    }
+
+    // Store ids always fit the ledger and the log, so only heap accounts are checked
+    void checkIds(Account account, Account counterparty) {
+        if (ledger != null && (!PersistentLedger.isValidId(account.getClientId())
+                || (counterparty != null && !PersistentLedger.isValidId(counterparty.getClientId())))) {
+            throw new IllegalArgumentException("Client ids must be 1-" + AccountStore.ID_BYTES
+                    + " ASCII characters to be kept in the ledger");
+        }
+        if (writeAheadLog != null && (!WriteAheadLog.isValidId(account.getClientId())
+                || (counterparty != null && !WriteAheadLog.isValidId(counterparty.getClientId())))) {
+            throw new IllegalArgumentException("Client ids must be at most 255 bytes to be logged");
+        }
+    }
+
+    // Called once per accepted command, with its stripes (or its engine shard)
+    // still held so records follow the order changes were applied; returns the
+    // log seq, or 0 if none. If the log refuses the record, nothing has seen
+    // the change yet, so it is undone before the failure is rethrown.
+    long committed(TransactionType type, Account account, Account counterparty, long amountMinor) {
+        long seq;
+        try {
+            seq = logged(type, account, counterparty, amountMinor);
+        } catch (RuntimeException e) {
+            undo(type, account, counterparty, amountMinor);
+            throw e;
+        }
+        recorded(type, account, counterparty, amountMinor);
+        return seq;
+    }
+
+    // The log step of committed(), for callers that undo the change themselves
+    long logged(TransactionType type, Account account, Account counterparty, long amountMinor) {
+        WriteAheadLog wal = writeAheadLog;
+        if (wal == null) return 0;
+        String counterpartyId = counterparty == null ? null : counterparty.getClientId();
+        return wal.write(type, account.getClientId(), counterpartyId, amountMinor);
+    }
+
+    // The remaining steps of committed(), once the change is logged. The ledger
+    // goes first: it may raise the time to keep its records in time order, and
+    // the journal and aggregates must file the change under the same time.
+    void recorded(TransactionType type, Account account, Account counterparty, long amountMinor) {
+        String counterpartyId = counterparty == null ? null : counterparty.getClientId();
+        long now = System.currentTimeMillis();
+        PersistentLedger l = ledger;
+        if (l != null) {
+            now = l.appendStamped(type, account.getClientId(), counterpartyId, amountMinor, now);
+        }
+        TransactionJournal j = journal;
+        if (j != null) {
+            j.append(type, account.getClientId(), counterpartyId, amountMinor, now);
+        }
+        AccountAggregates a = aggregates;
+        if (a != null) {
+            a.record(type, account.getClientId(), counterpartyId, amountMinor, now);
+        }
+    }
+
+    private static void undo(TransactionType type, Account account, Account counterparty, long amountMinor) {
+        switch (type) {
+            case DEPOSIT -> account.adjustMinor(-amountMinor);
+            case WITHDRAWAL -> account.adjustMinor(amountMinor);
+            case TRANSFER -> {
+                counterparty.adjustMinor(-amountMinor);
+                account.adjustMinor(amountMinor);
+            }
+        }
+    }
+
+    // Called after the stripes are released; the acknowledgement waits for the disk.
+    // An interrupt arriving now cannot take back a change that is applied and
+    // logged, so the command still succeeds with the interrupt flag left set.
+    void awaitDurable(long seq) {
+        WriteAheadLog wal = writeAheadLog;
+        if (seq > 0 && wal != null) {
+            try {
+                wal.sync(seq);
+            } catch (IllegalStateException e) {
+                if (!(e.getCause() instanceof InterruptedException)) throw e;
+            }
+        }
+    }
+
+    // Caller holds both stripes
+    private byte transferLocked(Account from, Account to, long amountMinor) {
+        if (to.getStatus() == AccountStatus.CLOSED) return TRANSFER_REJECTED;
+        if (!from.withdrawMinor(amountMinor)) {
+            return from.getStatus() == AccountStatus.VERIFIED
+                    ? TRANSFER_INSUFFICIENT_FUNDS : TRANSFER_REJECTED;
+        }
+        if (!to.depositMinor(amountMinor)) {
+            from.adjustMinor(amountMinor);
+            return TRANSFER_REJECTED;
+        }
+        return TRANSFER_OK;
+    }
+
+    // Caller holds every stripe of the batch; takes back the unlogged items from index on
+    private static void undoFrom(List<TransferRequest> requests, byte[] results, int from) {
+        for (int i = from; i < results.length; i++) {
+            if (results[i] != TRANSFER_OK) continue;
+            TransferRequest r = requests.get(i);
+            undo(TransactionType.TRANSFER, r.from(), r.to(), r.amountMinor());
+            results[i] = TRANSFER_REJECTED;
+        }
+    }
+
+    private static int slotOf(Map<Account, Integer> slots, Account[] accounts, Account account) {
+        Integer slot = slots.get(account);
+        if (slot != null) return slot;
+        int next = slots.size();
+        slots.put(account, next);
+        accounts[next] = account;
+        return next;
+    }
+
+    // Returns false, with every applied change undone, if any account refuses its net change
+    private static boolean applyNetted(Account[] accounts, long[] delta, int accountCount) {
+        int applied = 0;
+        int[] order = new int[accountCount];
+        for (int a = 0; a < accountCount; a++) {
+            if (delta[a] < 0) order[applied++] = a;
+        }
+        int debits = applied;
+        for (int a = 0; a < accountCount; a++) {
+            if (delta[a] > 0) order[applied++] = a;
+        }
+        for (int k = 0; k < applied; k++) {
+            int a = order[k];
+            boolean ok = k < debits
+                    ? accounts[a].withdrawMinor(-delta[a])
+                    : accounts[a].depositMinor(delta[a]);
+            if (!ok) {
+                for (int j = k - 1; j >= 0; j--) {
+                    accounts[order[j]].adjustMinor(-delta[order[j]]);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ---------- Store rows (no per-account objects) ----------
+
+    /**
+     * Opens an account in the store, logging it first when a write-ahead log
+     * is set, so recovery can rebuild accounts opened after the last snapshot.
+     *
+     * @return Row index of the new account
+     * @throws IllegalStateException if the store is full
+     * @throws IllegalArgumentException if the id is invalid or already present,
+     *                                  or the name is too long to be logged
+     */
+    public int openAccount(AccountStore store, String clientId, String clientName,
+                           long balanceMinor, AccountStatus status) {
+        WriteAheadLog wal = writeAheadLog;
+        if (wal == null) return store.add(clientId, clientName, balanceMinor, status);
+        long seq;
+        int row;
+        // The store's own monitor orders opens in the log as they are added
+        synchronized (store) {
+            if (!PersistentLedger.isValidId(clientId)) {
+                throw new IllegalArgumentException("Client id must be 1-" + AccountStore.ID_BYTES
+                        + " ASCII characters: " + clientId);
+            }
+            if (store.rowOf(clientId) != ClientIdIndex.NOT_FOUND) {
+                throw new IllegalArgumentException("Duplicate client id: " + clientId);
+            }
+            if (clientName != null && !WriteAheadLog.isValidId(clientName)) {
+                throw new IllegalArgumentException("Client name must be at most 255 bytes to be logged");
+            }
+            if (store.size() == store.capacity()) {
+                throw new IllegalStateException("Account store is full: " + store.capacity());
+            }
+            seq = wal.writeOpen(clientId, clientName, balanceMinor, status);
+            row = store.add(clientId, clientName, balanceMinor, status);
+        }
+        awaitDurable(seq);
+        return row;
+    }
+
+    /**
+     * Changes an account's status, logging the change first when a
+     * write-ahead log is set.
+     */
+    public void setStatus(AccountStore store, int row, AccountStatus status) {
+        WriteAheadLog wal = writeAheadLog;
+        if (wal == null) {
+            store.setStatus(row, status);
+            return;
+        }
+        int stripe = locks.stripeOfKey(row);
+        long seq;
+        locks.lock(stripe);
+        try {
+            seq = wal.writeStatus(store.clientId(row), status);
+            store.setStatus(row, status);
+        } finally {
+            locks.unlock(stripe);
+        }
+        awaitDurable(seq);
+    }
+
+    public boolean processDepositMinor(AccountStore store, int row, long amountMinor) {
+        if (store == null || row < 0 || row >= store.size()) return false;
+        if (amountMinor <= 0) return false;
+        if (!recording()) return store.depositMinor(row, amountMinor);
+        int stripe = locks.stripeOfKey(row);
+        long seq;
+        locks.lock(stripe);
+        try {
+            if (!store.depositMinor(row, amountMinor)) return false;
+            seq = committed(TransactionType.DEPOSIT, store.view(row), null, amountMinor);
+        } finally {
+            locks.unlock(stripe);
+        }
+        awaitDurable(seq);
+        return true;
+    }
+
+    public boolean processWithdrawMinor(AccountStore store, int row, long amountMinor) {
+        if (store == null || row < 0 || row >= store.size()) return false;
+        if (amountMinor <= 0) return false;
+        if (!recording()) return store.withdrawMinor(row, amountMinor);
+        int stripe = locks.stripeOfKey(row);
+        long seq;
+        locks.lock(stripe);
+        try {
+            if (!store.withdrawMinor(row, amountMinor)) return false;
+            seq = committed(TransactionType.WITHDRAWAL, store.view(row), null, amountMinor);
+        } finally {
+            locks.unlock(stripe);
+        }
+        awaitDurable(seq);
+        return true;
+    }
+
+    public boolean processTransferMinor(AccountStore store, int fromRow, int toRow, long amountMinor) {
+        if (store == null || fromRow < 0 || toRow < 0) return false;
+        if (fromRow >= store.size() || toRow >= store.size()) return false;
+        if (amountMinor <= 0) return false;
+        int fromStripe = locks.stripeOfKey(fromRow);
+        int toStripe = locks.stripeOfKey(toRow);
+        long seq;
+        locks.lockPair(fromStripe, toStripe);
+        try {
+            if (store.status(toRow) == AccountStatus.CLOSED) return false;
+            if (!store.withdrawMinor(fromRow, amountMinor)) return false;
+            if (!store.depositMinor(toRow, amountMinor)) {
+                store.adjustMinor(fromRow, amountMinor);
+                return false;
+            }
+            seq = committed(TransactionType.TRANSFER, store.view(fromRow), store.view(toRow), amountMinor);
+        } finally {
+            locks.unlockPair(fromStripe, toStripe);
+        }
+        awaitDurable(seq);
         return true;
     }
-}
\ No newline at end of file
+}
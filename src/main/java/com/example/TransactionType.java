@@ -0,0 +1,36 @@
+package com.example;
+
+/**
+ * Kind of a committed money movement, with a stable one-byte code for
+ * binary logs.
+ */
+public enum TransactionType {
+    DEPOSIT(1),
+    WITHDRAWAL(2),
+    TRANSFER(3);
+
+    private static final TransactionType[] BY_CODE = new TransactionType[4];
+
+    static {
+        for (TransactionType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    TransactionType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    /**
+     * @return The type with this code, or null if the code is unknown
+     */
+    public static TransactionType fromCode(byte code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example;
+
+/**
+ * One entry of a {@link TransactionProcessor#processBatch(java.util.List)} call.
+ *
+ * @param from        Account to debit
+ * @param to          Account to credit
+ * @param amountMinor Amount in minor units
+ */
+public record TransferRequest(Account from, Account to, long amountMinor) {
+
+    public static TransferRequest of(Account from, Account to, double amount) {
+        return new TransferRequest(from, to, Money.toMinor(amount));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example;
+
+/**
+ * Result of a withdrawal request. The hot path returns these constants;
+ * the message text is only rendered at the UI edge.
+ */
+public enum WithdrawalOutcome {
+    SUCCESS("Withdrawal successful."),
+    NO_ACCOUNT("Error: No account selected."),
+    EMPTY_AMOUNT("Error: Amount field is empty."),
+    NOT_NUMERIC("Error: Amount must be a numeric value."),
+    NOT_POSITIVE("Error: Amount must be greater than zero."),
+    NOT_VERIFIED("Error: Transactions allowed only for VERIFIED accounts."),
+    CREDIT_TOO_LOW("Transaction blocked: Credit score too low."),
+    CREDIT_UNAVAILABLE("Transaction blocked: Credit check unavailable. Please try again later."),
+    CREDIT_SERVICE_DOWN("Transaction blocked: Credit service is down. Please try again later."),
+    INSUFFICIENT_BALANCE("Error: Insufficient balance."),
+    BUSY("Error: System busy. Please try again.");
+
+    private final String message;
+
+    WithdrawalOutcome(String message) {
+        this.message = message;
+    }
+
+    /**
+     * @return Text for the notification box
+     */
+    public String message() {
+        return message;
+    }
+
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+}
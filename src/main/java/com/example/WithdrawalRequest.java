@@ -0,0 +1,84 @@
+package com.example;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A withdrawal moving through the {@link CreditScoreFeature} steps.
+ * The first step that decides the outcome finishes the request with it;
+ * later steps pass finished requests through untouched.
+ */
+public final class WithdrawalRequest {
+
+    private final Account account;
+    private final String amount;
+    private long amountMinor;
+    private boolean creditApproved;
+    private volatile WithdrawalOutcome outcome;
+    private volatile boolean done;
+
+    // Set only for requests submitted to a TransactionPipeline
+    private final CompletableFuture<WithdrawalOutcome> completion;
+
+    public WithdrawalRequest(Account account, String amount) {
+        this(account, amount, null);
+    }
+
+    WithdrawalRequest(Account account, String amount, CompletableFuture<WithdrawalOutcome> completion) {
+        this.account = account;
+        this.amount = amount;
+        this.completion = completion;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    /** Amount as entered by the user. */
+    public String getAmount() {
+        return amount;
+    }
+
+    /** Parsed amount in minor units, set by the validation step. */
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    void setAmountMinor(long amountMinor) {
+        this.amountMinor = amountMinor;
+    }
+
+    /** True if the policy approved the request without a credit score. */
+    boolean isCreditApproved() {
+        return creditApproved;
+    }
+
+    void setCreditApproved(boolean creditApproved) {
+        this.creditApproved = creditApproved;
+    }
+
+    /**
+     * @return Outcome, or null while the request is still in progress
+     */
+    public WithdrawalOutcome getOutcome() {
+        return outcome;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    void finish(WithdrawalOutcome outcome) {
+        this.outcome = outcome;
+        done = true;
+        if (completion != null) {
+            completion.complete(outcome);
+        }
+    }
+
+    void fail(Throwable error) {
+        done = true;
+        if (completion != null) {
+            completion.completeExceptionally(error);
+        }
+    }
+}
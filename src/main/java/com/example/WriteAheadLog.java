@@ -0,0 +1,635 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of committed transactions in memory-mapped segment files.
+ *
+ * Record layout (big-endian):
+ * length:int | crc32c:int | seq:long | type:byte | amount:long |
+ * fromLen:byte | from | toLen:byte | to [| status:byte]
+ * where length counts the bytes after the crc and the crc covers them.
+ * A zero length marks the end of a segment. Besides transactions, the log
+ * records account opens (id, name, opening balance, status) and status
+ * changes, which carry the trailing status byte, so the log alone can
+ * rebuild every account opened after the last snapshot.
+ *
+ * Durability modes trade latency for fsync cost:
+ * SYNC forces every record before returning. GROUP makes appenders wait for
+ * a background flusher that forces everything appended while its previous
+ * fsync was running, so one fsync covers many concurrent commits. ASYNC
+ * returns at once; the flusher forces per {@code groupSize} records or per
+ * time window.
+ */
+public final class WriteAheadLog implements AutoCloseable {
+
+    public enum Durability { SYNC, GROUP, ASYNC }
+
+    /**
+     * Receives records during {@link #replay(Path, long, RecordHandler)}.
+     */
+    public interface RecordHandler {
+        /** A transaction; {@code type} is null for a record type this version does not know. */
+        void onRecord(long seq, TransactionType type, String fromId, String toId, long amountMinor);
+
+        /** An account opened with this balance and status. */
+        default void onOpen(long seq, String clientId, String clientName,
+                            long balanceMinor, AccountStatus status) {
+        }
+
+        /** An account's status changed; {@code status} is null if this version does not know it. */
+        default void onStatus(long seq, String clientId, AccountStatus status) {
+        }
+    }
+
+    public static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = HEADER_BYTES + 8 + 1 + 8 + 1 + 255 + 1 + 255 + 1;
+    // Record types beside the transaction types, out of their code range
+    private static final byte OPEN = 16;
+    private static final byte STATUS = 17;
+    private static final AccountStatus[] STATUSES = AccountStatus.values();
+    private static final ValueLayout.OfInt INT =
+            ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong LONG =
+            ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final Path directory;
+    private final Durability durability;
+    private final int segmentBytes;
+    private final int groupSize;
+    private final long groupWindowMillis;
+
+    // Guarded by writeLock
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final byte[] scratch = new byte[MAX_RECORD_BYTES];
+    private final ByteBuffer scratchBuffer = ByteBuffer.wrap(scratch);
+    private final CRC32C crc = new CRC32C();
+    private final List<Arena> retired = new ArrayList<>();
+    private Arena arena;
+    private MemorySegment segment;
+    private long position;
+    private long forcedPosition;
+    private int generation;
+    private long lastSeq;
+    private long appendedCount;
+    private long forceCount;
+
+    private final Object durableMonitor = new Object();
+    private volatile long durableSeq;
+    private final Object flushSignal = new Object();
+    private volatile boolean flusherIdle;
+    private volatile long appendedSeq;
+    private final Thread flusher;
+    private volatile boolean open = true;
+
+    public WriteAheadLog(Path directory, Durability durability) {
+        this(directory, durability, DEFAULT_SEGMENT_BYTES, 256, 2L);
+    }
+
+    /**
+     * @param directory         Directory holding the segment files; created if missing
+     * @param durability        When appends are forced to disk
+     * @param segmentBytes      Size of each mapped segment file
+     * @param groupSize         ASYNC mode: pending records that trigger an early flush
+     * @param groupWindowMillis GROUP/ASYNC mode: longest wait between flushes
+     */
+    public WriteAheadLog(Path directory, Durability durability, int segmentBytes,
+                         int groupSize, long groupWindowMillis) {
+        if (segmentBytes < MAX_RECORD_BYTES + 4) {
+            throw new IllegalArgumentException("Segment too small: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.durability = durability;
+        this.segmentBytes = segmentBytes;
+        this.groupSize = Math.max(1, groupSize);
+        this.groupWindowMillis = Math.max(1L, groupWindowMillis);
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = listSegments(directory);
+            if (segments.isEmpty()) {
+                openSegment(1L);
+            } else {
+                Path last = segments.get(segments.size() - 1);
+                lastSeq = Math.max(firstSeqOf(last) - 1, scan(last, Long.MAX_VALUE, null));
+                mapSegment(last);
+                position = endOf(segment);
+                clearTail();
+                forcedPosition = position;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.durableSeq = lastSeq;
+        this.appendedSeq = lastSeq;
+
+        if (durability == Durability.SYNC) {
+            this.flusher = null;
+        } else {
+            this.flusher = new Thread(this::flushLoop, "wal-flusher");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        }
+    }
+
+    /**
+     * Appends one record and, depending on the durability mode, waits until it is on disk.
+     *
+     * @param toId Counterparty id for transfers, null otherwise
+     * @return Sequence number of the record
+     * @throws IllegalStateException if interrupted before the record is durable
+     */
+    public long append(TransactionType type, String fromId, String toId, long amountMinor) {
+        long seq = write(type, fromId, toId, amountMinor);
+        sync(seq);
+        return seq;
+    }
+
+    /**
+     * Appends one record without waiting for the disk, e.g. while the caller
+     * holds locks that fix the record's order. Follow with {@link #sync(long)}
+     * before acknowledging it.
+     *
+     * @return Sequence number of the record
+     */
+    public long write(TransactionType type, String fromId, String toId, long amountMinor) {
+        return writeRecord(type.code(), fromId, toId, amountMinor, null);
+    }
+
+    /**
+     * Appends an account open without waiting for the disk; follow with
+     * {@link #sync(long)}.
+     *
+     * @param clientName Display name, at most 255 bytes of UTF-8; null or empty reads back as null
+     * @return Sequence number of the record
+     */
+    public long writeOpen(String clientId, String clientName, long balanceMinor, AccountStatus status) {
+        return writeRecord(OPEN, clientId, clientName, balanceMinor, status);
+    }
+
+    /**
+     * Appends an account status change without waiting for the disk; follow
+     * with {@link #sync(long)}.
+     *
+     * @return Sequence number of the record
+     */
+    public long writeStatus(String clientId, AccountStatus status) {
+        return writeRecord(STATUS, clientId, null, 0, status);
+    }
+
+    private long writeRecord(byte code, String fromId, String toId, long amountMinor, AccountStatus status) {
+        long seq;
+        writeLock.lock();
+        try {
+            if (!open) {
+                throw new IllegalStateException("Log is closed");
+            }
+            seq = lastSeq + 1;
+            int length = encode(seq, code, fromId, toId, amountMinor, status);
+            if (position + length + 4 > segmentBytes) {
+                roll(seq);
+            }
+            MemorySegment.copy(scratch, 0, segment, ValueLayout.JAVA_BYTE, position, length);
+            position += length;
+            lastSeq = seq;
+            appendedSeq = seq;
+            appendedCount++;
+        } finally {
+            writeLock.unlock();
+        }
+        return seq;
+    }
+
+    /**
+     * Waits until the record with the given sequence number, and so every
+     * record before it, is on disk as the durability mode requires: SYNC
+     * forces it here, GROUP waits for the flusher, ASYNC returns at once.
+     *
+     * @throws IllegalStateException if interrupted first; the interrupt flag stays set
+     */
+    public void sync(long seq) {
+        if (durability == Durability.SYNC) {
+            if (durableSeq >= seq) return;
+            long forced;
+            writeLock.lock();
+            try {
+                forceLocked();
+                forced = lastSeq;
+            } finally {
+                writeLock.unlock();
+            }
+            markDurable(forced);
+        } else if (durability == Durability.GROUP) {
+            wakeFlusher();
+            awaitDurable(seq);
+        } else if (seq - durableSeq >= groupSize) {
+            wakeFlusher();
+        }
+    }
+
+    /**
+     * Whether the id fits a record: at most 255 bytes of UTF-8.
+     */
+    public static boolean isValidId(String id) {
+        if (id.length() <= 255 / 3) return true;
+        return id.length() <= 255 && id.getBytes(StandardCharsets.UTF_8).length <= 255;
+    }
+
+    public Durability durability() {
+        return durability;
+    }
+
+    public long lastSeq() {
+        writeLock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** Highest sequence number known to be forced to disk. */
+    public long durableSeq() {
+        return durableSeq;
+    }
+
+    public long appendedCount() {
+        writeLock.lock();
+        try {
+            return appendedCount;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** Number of fsyncs issued; appendedCount / forceCount is the group size achieved. */
+    public long forceCount() {
+        writeLock.lock();
+        try {
+            return forceCount;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Forces everything appended so far and stops the flusher.
+     */
+    @Override
+    public void close() {
+        if (!open) return;
+        open = false;
+        if (flusher != null) {
+            synchronized (flushSignal) {
+                flushSignal.notifyAll();
+            }
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        long seq;
+        writeLock.lock();
+        try {
+            forceLocked();
+            seq = lastSeq;
+            for (Arena old : retired) {
+                old.close();
+            }
+            retired.clear();
+            arena.close();
+        } finally {
+            writeLock.unlock();
+        }
+        markDurable(seq);
+    }
+
+    // ---------- Replay ----------
+
+    /**
+     * Reads every intact record with a sequence number above {@code afterSeq},
+     * in order. A torn or corrupt record ends its segment; reading goes on
+     * with the next segment, whose records were appended after a restart.
+     *
+     * @return The last sequence number read, or {@code afterSeq} if none
+     */
+    public static long replay(Path directory, long afterSeq, RecordHandler handler) throws IOException {
+        if (!Files.isDirectory(directory)) return afterSeq;
+        List<Path> segments = listSegments(directory);
+        long last = afterSeq;
+        for (int i = 0; i < segments.size(); i++) {
+            // Skip segments whose successor starts at or before the first wanted record
+            if (i + 1 < segments.size() && firstSeqOf(segments.get(i + 1)) <= afterSeq + 1) {
+                continue;
+            }
+            last = Math.max(last, scan(segments.get(i), afterSeq, handler));
+        }
+        return last;
+    }
+
+    // ---------- Internals ----------
+
+    private int encode(long seq, byte code, String fromId, String toId, long amountMinor,
+                       AccountStatus status) {
+        ByteBuffer buf = scratchBuffer;
+        buf.clear();
+        buf.position(HEADER_BYTES);
+        buf.putLong(seq);
+        buf.put(code);
+        buf.putLong(amountMinor);
+        putId(buf, fromId);
+        putId(buf, toId);
+        if (status != null) {
+            buf.put((byte) status.ordinal());
+        }
+        int length = buf.position();
+        crc.reset();
+        crc.update(scratch, HEADER_BYTES, length - HEADER_BYTES);
+        buf.putInt(0, length - HEADER_BYTES);
+        buf.putInt(4, (int) crc.getValue());
+        return length;
+    }
+
+    private static void putId(ByteBuffer buf, String id) {
+        if (id == null) {
+            buf.put((byte) 0);
+            return;
+        }
+        int length = id.length();
+        boolean ascii = length <= 255;
+        for (int i = 0; ascii && i < length; i++) {
+            ascii = id.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            buf.put((byte) length);
+            for (int i = 0; i < length; i++) {
+                buf.put((byte) id.charAt(i));
+            }
+            return;
+        }
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 255) {
+            throw new IllegalArgumentException("Client id too long for the log: " + id);
+        }
+        buf.put((byte) bytes.length);
+        buf.put(bytes);
+    }
+
+    private static String getId(MemorySegment seg, long offset, int length) {
+        if (length == 0) return null;
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(seg, ValueLayout.JAVA_BYTE, offset, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Caller holds writeLock
+    private void forceLocked() {
+        if (position > forcedPosition) {
+            segment.asSlice(forcedPosition, position - forcedPosition).force();
+            forcedPosition = position;
+            forceCount++;
+        }
+    }
+
+    // Caller holds writeLock
+    private void roll(long nextSeq) {
+        forceLocked();
+        long sealedSeq = lastSeq;
+        if (flusher == null) {
+            arena.close();
+        } else {
+            // The flusher may still be forcing a slice of the old segment
+            retired.add(arena);
+        }
+        try {
+            openSegment(nextSeq);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        generation++;
+        markDurable(sealedSeq);
+    }
+
+    private void openSegment(long firstSeq) throws IOException {
+        mapSegment(directory.resolve(String.format("%s%020d%s", PREFIX, firstSeq, SUFFIX)));
+        position = 0;
+        forcedPosition = 0;
+    }
+
+    private void mapSegment(Path file) throws IOException {
+        arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes, arena);
+        }
+    }
+
+    private void flushLoop() {
+        while (open) {
+            synchronized (flushSignal) {
+                // Publish idleness before checking for work, so an appender either
+                // sees the flag or its record is seen here
+                flusherIdle = true;
+                try {
+                    boolean pending = appendedSeq > durableSeq;
+                    if (open && (!pending || durability == Durability.ASYNC)) {
+                        flushSignal.wait(groupWindowMillis);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    flusherIdle = false;
+                }
+            }
+            flushOnce();
+        }
+    }
+
+    private void wakeFlusher() {
+        if (flusherIdle) {
+            synchronized (flushSignal) {
+                flushSignal.notifyAll();
+            }
+        }
+    }
+
+    // Forces outside writeLock so appends keep flowing while the fsync runs
+    private void flushOnce() {
+        MemorySegment target;
+        long from;
+        long to;
+        long seq;
+        int gen;
+        writeLock.lock();
+        try {
+            for (Arena old : retired) {
+                old.close();
+            }
+            retired.clear();
+            target = segment;
+            from = forcedPosition;
+            to = position;
+            seq = lastSeq;
+            gen = generation;
+        } finally {
+            writeLock.unlock();
+        }
+        if (to <= from) {
+            markDurable(seq);
+            return;
+        }
+        target.asSlice(from, to - from).force();
+        writeLock.lock();
+        try {
+            forceCount++;
+            if (gen == generation && to > forcedPosition) {
+                forcedPosition = to;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        markDurable(seq);
+    }
+
+    private void markDurable(long seq) {
+        synchronized (durableMonitor) {
+            if (seq > durableSeq) {
+                durableSeq = seq;
+            }
+            durableMonitor.notifyAll();
+        }
+    }
+
+    private void awaitDurable(long seq) {
+        synchronized (durableMonitor) {
+            while (durableSeq < seq) {
+                try {
+                    durableMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted before log record " + seq + " was durable", e);
+                }
+            }
+        }
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    private static long firstSeqOf(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    // Zeroes whatever a torn write left past the last intact record, so new
+    // records are never followed by stale bytes that would read as a tear
+    private void clearTail() {
+        long end = segment.byteSize();
+        long dirtyEnd = position;
+        long offset = position;
+        for (; offset + 8 <= end; offset += 8) {
+            if (segment.get(ValueLayout.JAVA_LONG_UNALIGNED, offset) != 0) dirtyEnd = offset + 8;
+        }
+        for (; offset < end; offset++) {
+            if (segment.get(ValueLayout.JAVA_BYTE, offset) != 0) dirtyEnd = offset + 1;
+        }
+        if (dirtyEnd > position) {
+            MemorySegment stale = segment.asSlice(position, dirtyEnd - position);
+            stale.fill((byte) 0);
+            stale.force();
+        }
+    }
+
+    // Offset just past the last intact record
+    private static long endOf(MemorySegment seg) {
+        CRC32C check = new CRC32C();
+        byte[] buffer = new byte[MAX_RECORD_BYTES];
+        long offset = 0;
+        while (offset + HEADER_BYTES <= seg.byteSize()) {
+            int length = seg.get(INT, offset);
+            if (length <= 0 || offset + HEADER_BYTES + length > seg.byteSize()) break;
+            if (!checksumMatches(check, buffer, seg, offset, length)) break;
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    private static boolean checksumMatches(CRC32C check, byte[] buffer, MemorySegment seg,
+                                           long offset, int length) {
+        if (length > buffer.length) return false;
+        MemorySegment.copy(seg, ValueLayout.JAVA_BYTE, offset + HEADER_BYTES, buffer, 0, length);
+        check.reset();
+        check.update(buffer, 0, length);
+        return (int) check.getValue() == seg.get(INT, offset + 4);
+    }
+
+    // Returns the last sequence number in the file; calls the handler for seq > afterSeq
+    private static long scan(Path file, long afterSeq, RecordHandler handler) throws IOException {
+        long last = 0;
+        try (Arena scanArena = Arena.ofConfined();
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MemorySegment seg = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), scanArena);
+            CRC32C check = new CRC32C();
+            byte[] buffer = new byte[MAX_RECORD_BYTES];
+            long offset = 0;
+            while (offset + HEADER_BYTES <= seg.byteSize()) {
+                int length = seg.get(INT, offset);
+                // End of the segment, or a torn record
+                if (length <= 0 || offset + HEADER_BYTES + length > seg.byteSize()
+                        || !checksumMatches(check, buffer, seg, offset, length)) {
+                    break;
+                }
+                long body = offset + HEADER_BYTES;
+                long seq = seg.get(LONG, body);
+                last = seq;
+                if (handler != null && seq > afterSeq) {
+                    byte code = seg.get(ValueLayout.JAVA_BYTE, body + 8);
+                    long amount = seg.get(LONG, body + 9);
+                    int fromLen = seg.get(ValueLayout.JAVA_BYTE, body + 17) & 0xFF;
+                    String fromId = getId(seg, body + 18, fromLen);
+                    int toLen = seg.get(ValueLayout.JAVA_BYTE, body + 18 + fromLen) & 0xFF;
+                    String toId = getId(seg, body + 19 + fromLen, toLen);
+                    if (code == OPEN || code == STATUS) {
+                        int ordinal = seg.get(ValueLayout.JAVA_BYTE, body + 19 + fromLen + toLen) & 0xFF;
+                        AccountStatus status = ordinal < STATUSES.length ? STATUSES[ordinal] : null;
+                        if (code == OPEN) {
+                            handler.onOpen(seq, fromId, toId, amount, status);
+                        } else {
+                            handler.onStatus(seq, fromId, status);
+                        }
+                    } else {
+                        handler.onRecord(seq, TransactionType.fromCode(code), fromId, toId, amount);
+                    }
+                }
+                offset = body + length;
+            }
+        }
+        return last;
+    }
+}
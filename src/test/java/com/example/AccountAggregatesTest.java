@@ -0,0 +1,102 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class AccountAggregatesTest {
+
+    private static final long DAY = 86_400_000L;
+
+    private static long at(LocalDate day) {
+        return day.toEpochDay() * DAY + 3_600_000L;
+    }
+
+    @Test
+    void processor_updatesTotalsOfBothTransferSides() {
+        AccountAggregates aggregates = new AccountAggregates();
+        TransactionProcessor processor = new TransactionProcessor();
+        processor.setAggregates(aggregates);
+        Account a = new Account("1001", "A", 100.0, AccountStatus.VERIFIED);
+        Account b = new Account("1002", "B", 100.0, AccountStatus.VERIFIED);
+
+        assertTrue(processor.processDepositMinor(a, 500));
+        assertTrue(processor.processWithdrawMinor(a, 200));
+        assertTrue(processor.processTransferMinor(a, b, 300));
+        assertTrue(!processor.processWithdrawMinor(b, 1_000_000));
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        AccountAggregates.Summary summary = aggregates.summary("1001", today.minusDays(1), today.plusDays(2));
+        assertEquals(new AccountAggregates.Summary(500, 200, 0, 300, 3), summary);
+        assertEquals(0L, summary.netFlowMinor());
+        assertEquals(300L, aggregates.summary("1002", today.minusDays(1), today.plusDays(2)).netFlowMinor());
+    }
+
+    @Test
+    void summary_combinesMonthlyAndEdgeDays() {
+        AccountAggregates aggregates = new AccountAggregates();
+        // One deposit of 1 every day of 2024, in reverse order to exercise inserts
+        for (LocalDate d = LocalDate.of(2024, 12, 31); !d.isBefore(LocalDate.of(2024, 1, 1)); d = d.minusDays(1)) {
+            aggregates.record(TransactionType.DEPOSIT, "A", null, 1, at(d));
+        }
+        aggregates.record(TransactionType.WITHDRAWAL, "A", null, 10, at(LocalDate.of(2024, 3, 15)));
+
+        AccountAggregates.Summary q1 = aggregates.summary("A", LocalDate.of(2024, 1, 20), LocalDate.of(2024, 4, 5));
+        assertEquals(12L + 29 + 31 + 4, q1.depositsMinor());
+        assertEquals(10L, q1.withdrawalsMinor());
+        assertEquals(366L, aggregates.summary("A", LocalDate.of(2023, 1, 1), LocalDate.of(2025, 1, 1)).depositsMinor());
+        assertEquals(AccountAggregates.Summary.EMPTY,
+                aggregates.summary("B", LocalDate.of(2024, 1, 1), LocalDate.of(2025, 1, 1)));
+
+        List<AccountAggregates.MonthlyBucket> months = aggregates.monthly("A", YearMonth.of(2024, 2), YearMonth.of(2024, 4));
+        assertEquals(2, months.size());
+        assertEquals(YearMonth.of(2024, 3), months.get(1).month());
+        assertEquals(32L, months.get(1).summary().count());
+
+        List<AccountAggregates.DailyBucket> days = aggregates.daily("A", LocalDate.of(2024, 3, 14), LocalDate.of(2024, 3, 16));
+        assertEquals(LocalDate.of(2024, 3, 15), days.get(1).day());
+        assertEquals(-9L, days.get(1).summary().netFlowMinor());
+    }
+
+    @Test
+    void rebuild_fromLedgerMatchesIncrementalTotals() throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("aggregates-test");
+        try {
+            AccountAggregates live = new AccountAggregates();
+            try (PersistentLedger ledger = new PersistentLedger(dir, 256)) {
+                LocalDate day = LocalDate.of(2024, 1, 1);
+                for (int i = 0; i < 2_000; i++) {
+                    long time = at(day.plusDays(i / 20));
+                    TransactionType type = TransactionType.values()[i % 3];
+                    String to = type == TransactionType.TRANSFER ? "C" + (i % 5) : null;
+                    ledger.append(type, "C" + (i % 7), to, i, time);
+                    live.record(type, "C" + (i % 7), to, i, time);
+                }
+
+                AccountAggregates rebuilt = AccountAggregates.rebuild(ledger, ZoneOffset.UTC, 4);
+                assertEquals(live.accountCount(), rebuilt.accountCount());
+                for (int c = 0; c < 7; c++) {
+                    String id = "C" + c;
+                    assertEquals(live.summary(id, day, day.plusYears(1)), rebuilt.summary(id, day, day.plusYears(1)));
+                    assertEquals(live.daily(id, day, day.plusDays(40)), rebuilt.daily(id, day, day.plusDays(40)));
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class AccountConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    private static void runConcurrently(Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.run();
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+    }
+
+    @Test
+    void concurrentDeposits_noLostUpdates() throws InterruptedException {
+        Account acc = new Account("CC1", "Concurrent", 0.0, AccountStatus.VERIFIED);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                acc.deposit(1.0);
+            }
+        });
+
+        assertEquals(THREADS * 10_000.0, acc.getBalance(), 0.001);
+    }
+
+    @Test
+    void concurrentWithdrawals_neverOverdraw() throws InterruptedException {
+        Account acc = new Account("CC2", "Concurrent", 1000.0, AccountStatus.VERIFIED);
+        AtomicInteger succeeded = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 1000; i++) {
+                if (acc.withdraw(1.0)) {
+                    succeeded.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(1000, succeeded.get(), "Exactly the available balance is withdrawn");
+        assertEquals(0.0, acc.getBalance(), 0.001);
+    }
+
+    @Test
+    void contentionCount_startsAtZero_andNeverDecreases() throws InterruptedException {
+        Account acc = new Account("CC3", "Concurrent", 0.0, AccountStatus.VERIFIED);
+        assertEquals(0L, acc.getContentionCount());
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                acc.deposit(1.0);
+            }
+        });
+
+        assertTrue(acc.getContentionCount() >= 0L);
+    }
+
+    @Test
+    void hotAccount_foldsDepositsForWithdrawAndBalance() throws InterruptedException {
+        Account merchant = new Account("HOT1", "Merchant", 0.0, AccountStatus.VERIFIED);
+        merchant.enableHotMode();
+        assertTrue(merchant.isHot());
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                merchant.depositMinor(1L);
+            }
+        });
+
+        // Deposits sit in cells until a withdrawal needs them
+        assertTrue(merchant.withdrawMinor(THREADS * 10_000L - 5L));
+        assertFalse(merchant.withdrawMinor(6L));
+        assertEquals(5L, merchant.getBalanceMinor());
+    }
+
+    @Test
+    void hotAccount_refusesDepositsThatOverflowWithPendingCells() {
+        long opening = Long.MAX_VALUE / 2 - 100L;
+        Account merchant = Account.ofMinor("HOT3", "Merchant", opening, AccountStatus.VERIFIED);
+        merchant.enableHotMode();
+        assertTrue(merchant.depositMinor(60L));
+
+        long room = Long.MAX_VALUE - (opening + 60L);
+        assertFalse(merchant.depositMinor(room + 1L), "Pending deposits count toward the limit");
+        assertTrue(merchant.depositMinor(room));
+        assertFalse(merchant.depositMinor(1L));
+        assertEquals(Long.MAX_VALUE, merchant.getBalanceMinor());
+    }
+
+    @Test
+    void hotAccount_mixedLoad_conservesMoney() throws InterruptedException {
+        Account merchant = new Account("HOT2", "Merchant", 0.0, AccountStatus.VERIFIED);
+        merchant.enableHotMode();
+        AtomicInteger withdrawn = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                merchant.depositMinor(2L);
+                if (merchant.withdrawMinor(3L)) {
+                    withdrawn.incrementAndGet();
+                }
+            }
+        });
+
+        long deposited = THREADS * 10_000L * 2L;
+        assertEquals(deposited - withdrawn.get() * 3L, merchant.getBalanceMinor());
+        assertTrue(merchant.getBalanceMinor() >= 0);
+    }
+}
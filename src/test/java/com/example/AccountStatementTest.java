@@ -0,0 +1,127 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AccountStatementTest {
+
+    private TransactionJournal journal;
+    private AccountStatement statements;
+
+    @BeforeEach
+    void setUp() {
+        journal = new TransactionJournal(1024);
+        statements = new AccountStatement(journal);
+        // Account 1001 gets amounts 1..25 at times 100, 200, ... 2500; 1002 is interleaved
+        for (int i = 1; i <= 25; i++) {
+            journal.append(TransactionType.DEPOSIT, "1001", null, i, i * 100L);
+            journal.append(TransactionType.DEPOSIT, "1002", null, 1_000 + i, i * 100L);
+        }
+    }
+
+    private static List<Long> amounts(List<AccountStatement.Entry> entries) {
+        List<Long> amounts = new ArrayList<>();
+        for (AccountStatement.Entry entry : entries) {
+            amounts.add(entry.amountMinor());
+        }
+        return amounts;
+    }
+
+    @Test
+    void newestFirst_pagesFollowCursor() {
+        AccountStatement.Page first = statements.page("1001", Long.MIN_VALUE, Long.MAX_VALUE,
+                AccountStatement.Order.NEWEST_FIRST, AccountStatement.START, 10);
+        assertEquals(List.of(25L, 24L, 23L, 22L, 21L, 20L, 19L, 18L, 17L, 16L), amounts(first.entries()));
+        assertTrue(first.hasMore());
+
+        AccountStatement.Page second = statements.page("1001", Long.MIN_VALUE, Long.MAX_VALUE,
+                AccountStatement.Order.NEWEST_FIRST, first.nextCursor(), 10);
+        AccountStatement.Page third = statements.page("1001", Long.MIN_VALUE, Long.MAX_VALUE,
+                AccountStatement.Order.NEWEST_FIRST, second.nextCursor(), 10);
+
+        assertEquals(15L, (long) amounts(second.entries()).get(0));
+        assertEquals(List.of(5L, 4L, 3L, 2L, 1L), amounts(third.entries()));
+        assertFalse(third.hasMore());
+    }
+
+    @Test
+    void oldestFirst_withDateRange() {
+        AccountStatement.Page page = statements.page("1001", 500, 1_300,
+                AccountStatement.Order.OLDEST_FIRST, AccountStatement.START, 5);
+        assertEquals(List.of(5L, 6L, 7L, 8L, 9L), amounts(page.entries()));
+
+        AccountStatement.Page rest = statements.page("1001", 500, 1_300,
+                AccountStatement.Order.OLDEST_FIRST, page.nextCursor(), 5);
+        assertEquals(List.of(10L, 11L, 12L), amounts(rest.entries()));
+        assertFalse(rest.hasMore());
+
+        AccountStatement.Page newest = statements.page("1002", 500, 1_300,
+                AccountStatement.Order.NEWEST_FIRST, AccountStatement.START, 3);
+        assertEquals(List.of(1_012L, 1_011L, 1_010L), amounts(newest.entries()));
+    }
+
+    @Test
+    void stream_isLazyAndComplete() {
+        for (int i = 26; i <= 200; i++) {
+            journal.append(TransactionType.WITHDRAWAL, "1001", null, 1, i * 100L);
+        }
+
+        assertEquals(200L, statements.stream("1001", Long.MIN_VALUE, Long.MAX_VALUE,
+                AccountStatement.Order.OLDEST_FIRST).count());
+        List<Long> firstThree = statements.stream("1001", Long.MIN_VALUE, Long.MAX_VALUE,
+                AccountStatement.Order.OLDEST_FIRST).limit(3).map(AccountStatement.Entry::amountMinor)
+                .collect(Collectors.toList());
+        assertEquals(List.of(1L, 2L, 3L), firstThree);
+    }
+
+    @Test
+    void oldestFirst_startsAtRetainedTailOfWrappedRing() {
+        TransactionJournal small = new TransactionJournal(64);
+        for (int i = 1; i <= 1_000; i++) {
+            small.append(TransactionType.DEPOSIT, i % 2 == 0 ? "even" : "odd", null, i, i);
+        }
+        AccountStatement wrapped = new AccountStatement(small);
+
+        AccountStatement.Page first = wrapped.page("odd", Long.MIN_VALUE, Long.MAX_VALUE,
+                AccountStatement.Order.OLDEST_FIRST, AccountStatement.START, 3);
+        assertEquals(List.of(937L, 939L, 941L), amounts(first.entries()));
+
+        // Closer to the newest end, so the start is found walking back from the head
+        AccountStatement.Page late = wrapped.page("odd", 990, Long.MAX_VALUE,
+                AccountStatement.Order.OLDEST_FIRST, AccountStatement.START, 10);
+        assertEquals(List.of(991L, 993L, 995L, 997L, 999L), amounts(late.entries()));
+
+        AccountStatement.Page early = wrapped.page("even", 950, 955,
+                AccountStatement.Order.OLDEST_FIRST, AccountStatement.START, 10);
+        assertEquals(List.of(950L, 952L, 954L), amounts(early.entries()));
+        assertTrue(wrapped.page("even", 2_000, Long.MAX_VALUE, AccountStatement.Order.OLDEST_FIRST,
+                AccountStatement.START, 10).entries().isEmpty());
+    }
+
+    @Test
+    void unknownAccountOrDroppedCursor_endsStatement() {
+        AccountStatement.Page none = statements.page("9999", Long.MIN_VALUE, Long.MAX_VALUE,
+                AccountStatement.Order.NEWEST_FIRST, AccountStatement.START, 10);
+        assertTrue(none.entries().isEmpty());
+        assertFalse(none.hasMore());
+
+        TransactionJournal small = new TransactionJournal(4);
+        for (int i = 0; i < 10; i++) {
+            small.append(TransactionType.DEPOSIT, "1001", null, i + 1, i);
+        }
+        AccountStatement.Page dropped = new AccountStatement(small).page("1001", Long.MIN_VALUE,
+                Long.MAX_VALUE, AccountStatement.Order.OLDEST_FIRST, 0, 10);
+        assertTrue(dropped.entries().isEmpty());
+
+        AccountStatement.Page retained = new AccountStatement(small).page("1001", Long.MIN_VALUE,
+                Long.MAX_VALUE, AccountStatement.Order.OLDEST_FIRST, AccountStatement.START, 10);
+        assertEquals(List.of(7L, 8L, 9L, 10L), amounts(retained.entries()));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AccountStoreTest {
+
+    private AccountStore store;
+    private TransactionProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        store = new AccountStore(4);
+        processor = new TransactionProcessor();
+        store.add("1001", "Hania", 100_000L, AccountStatus.VERIFIED);
+        store.add("1002", "Mai", 50_000L, AccountStatus.VERIFIED);
+        store.add("1003", "Maryam", 30_000L, AccountStatus.CLOSED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void add_storesColumns() {
+        assertEquals(3, store.size());
+        assertEquals("1002", store.clientId(1));
+        assertEquals("Mai", store.clientName(1));
+        assertEquals(50_000L, store.balanceMinor(1));
+        assertEquals(AccountStatus.CLOSED, store.status(2));
+        assertTrue(store.idEquals(0, "1001"));
+        assertFalse(store.idEquals(0, "100"));
+    }
+
+    @Test
+    void add_whenFull_throws() {
+        store.add("1004", "Nourhan", 0L, AccountStatus.UNVERIFIED);
+        assertThrows(IllegalStateException.class,
+                () -> store.add("1005", "Extra", 0L, AccountStatus.UNVERIFIED));
+    }
+
+    @Test
+    void add_idTooLong_throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> store.add("12345678901234567", "Long", 0L, AccountStatus.VERIFIED));
+    }
+
+    @Test
+    void view_readsAndWritesThroughToStore() {
+        Account view = store.view(0);
+        assertEquals("1001", view.getClientId());
+        assertEquals(1000.0, view.getBalance(), 0.001);
+
+        assertTrue(view.withdraw(250.0));
+        assertEquals(75_000L, store.balanceMinor(0));
+
+        view.setStatus(AccountStatus.SUSPENDED);
+        assertEquals(AccountStatus.SUSPENDED, store.status(0));
+        assertFalse(view.withdraw(1.0));
+    }
+
+    @Test
+    void views_ofSameRow_areEqual() {
+        assertEquals(store.view(1), store.view(1));
+        assertFalse(store.view(0).equals(store.view(1)));
+    }
+
+    @Test
+    void processor_runsAgainstRows() {
+        assertTrue(processor.processTransferMinor(store, 0, 1, 10_000L));
+        assertEquals(90_000L, store.balanceMinor(0));
+        assertEquals(60_000L, store.balanceMinor(1));
+
+        assertFalse(processor.processWithdrawMinor(store, 1, 70_000L), "Overdraft");
+        assertFalse(processor.processDepositMinor(store, 2, 100L), "Closed account");
+        assertFalse(processor.processDepositMinor(store, 7, 100L), "Unknown row");
+    }
+
+    @Test
+    void processor_acceptsViewsLikeHeapAccounts() {
+        AccountController controller = new AccountController();
+        assertTrue(controller.deposit(store.view(1), 5.0));
+        assertEquals(50_500L, store.balanceMinor(1));
+    }
+}
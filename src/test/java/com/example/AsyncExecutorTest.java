@@ -0,0 +1,96 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AsyncExecutorTest {
+
+    private AsyncExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new AsyncExecutor(4, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void controllerAsync_appliesOperations() throws Exception {
+        AccountController controller = new AccountController();
+        controller.setAsyncExecutor(executor);
+        Account from = new Account("A1", "From", 100.0, AccountStatus.VERIFIED);
+        Account to = new Account("A2", "To", 0.0, AccountStatus.VERIFIED);
+
+        assertTrue(controller.depositAsync(from, 50.0).get());
+        assertTrue(controller.withdrawAsync(from, 30.0).get());
+        assertTrue(controller.transferAsync(from, to, 20.0).get());
+
+        assertEquals(100.0, from.getBalance(), 0.001);
+        assertEquals(20.0, to.getBalance(), 0.001);
+    }
+
+    @Test
+    void handleWithdrawalAsync_returnsMessage() throws Exception {
+        CreditScoreFeature feature = new CreditScoreFeature(id -> 700, new AccountController(), executor);
+        Account acc = new Account("A3", "Async", 100.0, AccountStatus.VERIFIED);
+
+        String result = feature.handleWithdrawalAsync(acc, "40").get();
+
+        assertTrue(result.contains("successful"));
+        assertEquals(60.0, acc.getBalance(), 0.001);
+    }
+
+    @Test
+    void limits_boundConcurrency_andRejectOverflow() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger current = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                peak.accumulateAndGet(current.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                current.decrementAndGet();
+                return 1;
+            }));
+        }
+
+        CompletableFuture<Integer> rejected = executor.submit(() -> 1);
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertEquals(8, executor.inFlight());
+
+        release.countDown();
+        for (CompletableFuture<Integer> f : futures) {
+            assertEquals(1, (int) f.get());
+        }
+        assertTrue(peak.get() <= 4, "At most maxConcurrent tasks run at once");
+        assertEquals(0, executor.inFlight());
+    }
+
+    @Test
+    void constructor_invalidLimits_throw() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncExecutor(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new AsyncExecutor(10, 5));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BatchTransferTest {
+
+    private TransactionProcessor processor;
+    private Account alice;
+    private Account bob;
+    private Account carol;
+
+    @BeforeEach
+    void setUp() {
+        processor = new TransactionProcessor();
+        alice = new Account("B001", "Alice", 100.0, AccountStatus.VERIFIED);
+        bob = new Account("B002", "Bob", 0.0, AccountStatus.VERIFIED);
+        carol = new Account("B003", "Carol", 0.0, AccountStatus.VERIFIED);
+    }
+
+    @Test
+    void processBatch_netsRunningBalances() {
+        // Bob can only pay Carol because Alice paid him earlier in the same batch
+        byte[] results = processor.processBatch(Arrays.asList(
+                TransferRequest.of(alice, bob, 60.0),
+                TransferRequest.of(bob, carol, 50.0),
+                TransferRequest.of(alice, carol, 50.0)));
+
+        assertArrayEquals(new byte[] {
+                TransactionProcessor.TRANSFER_OK,
+                TransactionProcessor.TRANSFER_OK,
+                TransactionProcessor.TRANSFER_INSUFFICIENT_FUNDS }, results);
+        assertEquals(40.0, alice.getBalance(), 0.001);
+        assertEquals(10.0, bob.getBalance(), 0.001);
+        assertEquals(50.0, carol.getBalance(), 0.001);
+    }
+
+    @Test
+    void processBatch_reportsInvalidAndRejectedItems() {
+        carol.setStatus(AccountStatus.CLOSED);
+        byte[] results = processor.processBatch(Arrays.asList(
+                TransferRequest.of(alice, null, 10.0),
+                TransferRequest.of(alice, bob, 0.0),
+                TransferRequest.of(alice, carol, 10.0),
+                TransferRequest.of(bob, alice, 10.0)));
+
+        assertArrayEquals(new byte[] {
+                TransactionProcessor.TRANSFER_INVALID,
+                TransactionProcessor.TRANSFER_INVALID,
+                TransactionProcessor.TRANSFER_REJECTED,
+                TransactionProcessor.TRANSFER_INSUFFICIENT_FUNDS }, results);
+        assertEquals(100.0, alice.getBalance(), 0.001);
+        assertEquals(0.0, carol.getBalance(), 0.001);
+    }
+
+    @Test
+    void processBatch_manyItems_conservesMoney() {
+        List<TransferRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(new TransferRequest(alice, bob, 5L));
+            batch.add(new TransferRequest(bob, carol, 3L));
+            batch.add(new TransferRequest(carol, alice, 1L));
+        }
+
+        byte[] results = new AccountController().transferBatch(batch);
+
+        assertEquals(3000, results.length);
+        assertEquals(10_000L, alice.getBalanceMinor() + bob.getBalanceMinor() + carol.getBalanceMinor());
+        assertEquals(10_000L - 5_000L + 1_000L, alice.getBalanceMinor());
+    }
+
+    @Test
+    void processBatch_empty_returnsEmpty() {
+        assertEquals(0, processor.processBatch(new ArrayList<>()).length);
+    }
+}
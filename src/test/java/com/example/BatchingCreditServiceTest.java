@@ -0,0 +1,101 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class BatchingCreditServiceTest {
+
+    /** Bureau stub that answers bulk calls and counts round trips. */
+    private static final class BulkBureau implements CreditService {
+        final AtomicInteger roundTrips = new AtomicInteger();
+
+        @Override
+        public int getCreditScore(String clientId) {
+            roundTrips.incrementAndGet();
+            return score(clientId);
+        }
+
+        @Override
+        public Map<String, Integer> getCreditScores(Collection<String> clientIds) {
+            roundTrips.incrementAndGet();
+            Map<String, Integer> scores = new HashMap<>();
+            for (String id : clientIds) {
+                if (!id.startsWith("unknown")) scores.put(id, score(id));
+            }
+            return scores;
+        }
+
+        private static int score(String clientId) {
+            return 500 + clientId.length() * 10;
+        }
+    }
+
+    @Test
+    void fullBatches_goOutAsOneCall() throws Exception {
+        BulkBureau bureau = new BulkBureau();
+        try (BatchingCreditService service = new BatchingCreditService(bureau, 10, 10_000)) {
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                futures.add(service.getCreditScoreAsync("c" + i));
+            }
+            for (int i = 0; i < 30; i++) {
+                assertEquals(500 + ("c" + i).length() * 10, (int) futures.get(i).get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(3, bureau.roundTrips.get());
+            assertEquals(10.0, service.averageBatchSize(), 0.001);
+        }
+    }
+
+    @Test
+    void partialBatch_isSentAfterWindow() {
+        BulkBureau bureau = new BulkBureau();
+        try (BatchingCreditService service = new BatchingCreditService(bureau, 1000, 5)) {
+            assertEquals(540, service.getCreditScore("1001"));
+            assertEquals(1, bureau.roundTrips.get());
+        }
+    }
+
+    @Test
+    void missingScore_failsOnlyThatLookup() {
+        BulkBureau bureau = new BulkBureau();
+        try (BatchingCreditService service = new BatchingCreditService(bureau, 2, 10_000)) {
+            CompletableFuture<Integer> known = service.getCreditScoreAsync("1001");
+            CompletableFuture<Integer> unknown = service.getCreditScoreAsync("unknown-1");
+
+            assertEquals(540, (int) known.join());
+            CompletionException e = assertThrows(CompletionException.class, unknown::join);
+            assertTrue(e.getCause() instanceof java.util.NoSuchElementException);
+        }
+    }
+
+    @Test
+    void pipeline_checksCreditPerBatch() throws Exception {
+        BulkBureau bureau = new BulkBureau();
+        CreditScoreFeature feature = new CreditScoreFeature(bureau, new AccountController());
+        List<Account> accounts = new ArrayList<>();
+        List<CompletableFuture<WithdrawalOutcome>> results = new ArrayList<>();
+        try (TransactionPipeline pipeline = new TransactionPipeline(feature, 1, 1, 256, 64)) {
+            for (int i = 0; i < 200; i++) {
+                Account acc = new Account("batch-client" + i, "Batch", 10.0, AccountStatus.VERIFIED);
+                accounts.add(acc);
+                results.add(pipeline.submit(acc, "1"));
+            }
+        }
+        for (CompletableFuture<WithdrawalOutcome> r : results) {
+            assertEquals(WithdrawalOutcome.SUCCESS, r.get(5, TimeUnit.SECONDS));
+        }
+        assertTrue(bureau.roundTrips.get() < 200, "Round trips: " + bureau.roundTrips.get());
+    }
+}
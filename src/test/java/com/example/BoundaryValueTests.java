@@ -42,10 +42,11 @@ public class BoundaryValueTests {
     }
     
     @Test
-    void deposit_maxDouble_shouldPass() {
+    void deposit_maxDouble_shouldFail() {
         Account acc = new Account("B5", "Boundary Test", 100.0, AccountStatus.VERIFIED);
-        // Note: In real system, you'd need overflow handling
-        assertTrue(acc.deposit(Double.MAX_VALUE), "Deposit of MAX_VALUE should pass");
+        // Balances are exact minor units now, so an unrepresentable amount is rejected
+        assertFalse(acc.deposit(Double.MAX_VALUE), "Deposit of MAX_VALUE should fail");
+        assertEquals(100.0, acc.getBalance(), 0.01);
     }
     
     // ========== WITHDRAW BOUNDARY TESTS ==========
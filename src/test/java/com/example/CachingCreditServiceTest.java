@@ -0,0 +1,107 @@
+package com.example;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class CachingCreditServiceTest {
+
+    private final AtomicInteger backendCalls = new AtomicInteger();
+    private final CreditService backend = clientId -> {
+        backendCalls.incrementAndGet();
+        return 600 + clientId.length();
+    };
+
+    @Test
+    void repeatedLookups_hitCache() {
+        CachingCreditService cache = new CachingCreditService(backend, 100, 60_000);
+
+        assertEquals(604, cache.getCreditScore("1001"));
+        assertEquals(604, cache.getCreditScore("1001"));
+        assertEquals(604, cache.getCreditScore("1001"));
+
+        assertEquals(1, backendCalls.get());
+        assertEquals(2L, cache.hitCount());
+        assertEquals(1L, cache.missCount());
+    }
+
+    @Test
+    void invalidate_forcesReload() {
+        CachingCreditService cache = new CachingCreditService(backend, 100, 60_000);
+        cache.getCreditScore("1001");
+        cache.invalidate("1001");
+        cache.getCreditScore("1001");
+
+        assertEquals(2, backendCalls.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void invalidate_duringLoad_dropsTheStaleScore() throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        CreditService slow = clientId -> {
+            if (calls.incrementAndGet() == 1) {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 500;
+            }
+            return 700;
+        };
+        CachingCreditService cache = new CachingCreditService(slow, 100, 60_000);
+
+        Thread reader = new Thread(() -> cache.getCreditScore("1001"));
+        reader.start();
+        loading.await();
+        cache.invalidate("1001");
+        release.countDown();
+        reader.join();
+
+        assertEquals(0, cache.size(), "The load started before the invalidation");
+        assertEquals(700, cache.getCreditScore("1001"));
+        assertEquals(700, cache.getCreditScore("1001"));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void expiredScores_areFetchedAgain() throws InterruptedException {
+        CachingCreditService cache = new CachingCreditService(backend, 100, 10);
+        cache.getCreditScore("1001");
+        Thread.sleep(30);
+        cache.getCreditScore("1001");
+
+        assertEquals(2, backendCalls.get());
+        assertEquals(1L, cache.expirationCount());
+    }
+
+    @Test
+    void frequentKeys_surviveScanOfOneOffLookups() {
+        CachingCreditService cache = new CachingCreditService(backend, 100, 60_000);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.getCreditScore("hot-" + i);
+            }
+        }
+        int callsBeforeScan = backendCalls.get();
+        for (int i = 0; i < 10_000; i++) {
+            cache.getCreditScore("scan-" + i);
+        }
+        backendCalls.set(0);
+        for (int i = 0; i < 50; i++) {
+            cache.getCreditScore("hot-" + i);
+        }
+
+        assertEquals(50, callsBeforeScan);
+        assertTrue(backendCalls.get() <= 5, "Hot keys evicted by scan: " + backendCalls.get());
+        assertTrue(cache.size() <= cache.maximumSize(), "Size: " + cache.size());
+        assertTrue(cache.evictionCount() >= 10_000 - 100, "Evictions: " + cache.evictionCount());
+    }
+}
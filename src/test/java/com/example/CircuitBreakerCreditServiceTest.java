@@ -0,0 +1,176 @@
+package com.example;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+public class CircuitBreakerCreditServiceTest {
+
+    private final AtomicBoolean down = new AtomicBoolean();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CreditService backend = clientId -> {
+        calls.incrementAndGet();
+        if (down.get()) throw new IllegalStateException("backend down");
+        return 700;
+    };
+
+    @Test
+    void failures_openCircuit_andRejectWithoutCalling() {
+        CircuitBreakerCreditService service = new CircuitBreakerCreditService(backend, 10, 50, 60_000, 8);
+        down.set(true);
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IllegalStateException.class, () -> service.getCreditScore("1001"));
+        }
+
+        assertEquals(CircuitBreakerCreditService.State.OPEN, service.state());
+        assertEquals(1L, service.openCount());
+
+        int before = calls.get();
+        assertEquals(CreditService.SCORE_CIRCUIT_OPEN, service.getCreditScore("1001"));
+        assertEquals(before, calls.get());
+        assertEquals(1L, service.rejectedCount());
+    }
+
+    @Test
+    void failureRateBelowThreshold_staysClosed() {
+        CircuitBreakerCreditService service = new CircuitBreakerCreditService(backend, 10, 50, 60_000, 8);
+        for (int i = 0; i < 20; i++) {
+            down.set(i % 3 == 0);
+            try {
+                service.getCreditScore("1002");
+            } catch (IllegalStateException expected) {
+                // counted as a failure
+            }
+        }
+
+        assertEquals(CircuitBreakerCreditService.State.CLOSED, service.state());
+        assertEquals(0L, service.openCount());
+    }
+
+    @Test
+    void halfOpen_successfulTrials_closeCircuit() throws InterruptedException {
+        CircuitBreakerCreditService service = new CircuitBreakerCreditService(backend, 4, 50, 20, 8);
+        down.set(true);
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IllegalStateException.class, () -> service.getCreditScore("1003"));
+        }
+        assertEquals(CircuitBreakerCreditService.State.OPEN, service.state());
+
+        Thread.sleep(40);
+        down.set(false);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(700, service.getCreditScore("1003"));
+        }
+
+        assertEquals(CircuitBreakerCreditService.State.CLOSED, service.state());
+        assertEquals(1L, service.halfOpenCount());
+        assertEquals(1L, service.closeCount());
+    }
+
+    @Test
+    void halfOpen_failedTrial_reopensCircuit() throws InterruptedException {
+        CircuitBreakerCreditService service = new CircuitBreakerCreditService(backend, 4, 50, 20, 8);
+        down.set(true);
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IllegalStateException.class, () -> service.getCreditScore("1004"));
+        }
+        Thread.sleep(40);
+
+        assertThrows(IllegalStateException.class, () -> service.getCreditScore("1004"));
+
+        assertEquals(CircuitBreakerCreditService.State.OPEN, service.state());
+        assertEquals(2L, service.openCount());
+    }
+
+    @Test
+    void slowCallFromBeforeOpening_isNotCountedAsTrial() throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CreditService mixed = clientId -> {
+            if (!clientId.equals("slow")) return backend.getCreditScore(clientId);
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 700;
+        };
+        CircuitBreakerCreditService service = new CircuitBreakerCreditService(mixed, 4, 50, 20, 8);
+        Thread slowCall = new Thread(() -> service.getCreditScore("slow"));
+        slowCall.start();
+        entered.await();
+
+        down.set(true);
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IllegalStateException.class, () -> service.getCreditScore("1007"));
+        }
+        Thread.sleep(40);
+        assertEquals(CircuitBreakerCreditService.State.HALF_OPEN, service.state());
+
+        release.countDown();
+        slowCall.join();
+
+        assertEquals(CircuitBreakerCreditService.State.HALF_OPEN, service.state());
+        assertEquals(0L, service.closeCount());
+        down.set(false);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(700, service.getCreditScore("1007"));
+        }
+        assertEquals(CircuitBreakerCreditService.State.CLOSED, service.state());
+    }
+
+    @Test
+    void bulkhead_limitsConcurrentCalls() throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CreditService slow = clientId -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 710;
+        };
+        CircuitBreakerCreditService service = new CircuitBreakerCreditService(slow, 10, 50, 60_000, 2);
+        Thread[] threads = { new Thread(() -> service.getCreditScore("a")), new Thread(() -> service.getCreditScore("b")) };
+        for (Thread t : threads) {
+            t.start();
+        }
+        entered.await();
+
+        assertEquals(2, service.activeCalls());
+        assertEquals(CreditService.SCORE_BUSY, service.getCreditScore("c"));
+        assertEquals(1L, service.bulkheadRejectedCount());
+
+        release.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(0, service.activeCalls());
+        assertEquals(CircuitBreakerCreditService.State.CLOSED, service.state());
+    }
+
+    @Test
+    void openCircuit_bulkLookupAndFeature_failFast() {
+        CircuitBreakerCreditService service = new CircuitBreakerCreditService(backend, 2, 50, 60_000, 8);
+        down.set(true);
+        assertThrows(IllegalStateException.class, () -> service.getCreditScore("1005"));
+
+        Map<String, Integer> scores = service.getCreditScores(List.of("1005", "1006"));
+        assertEquals(CreditService.SCORE_CIRCUIT_OPEN, (int) scores.get("1005"));
+        assertEquals(CreditService.SCORE_CIRCUIT_OPEN, (int) scores.get("1006"));
+
+        CreditScoreFeature feature = new CreditScoreFeature(service, new AccountController());
+        Account account = new Account("1005", "Test User", 1000.0, AccountStatus.VERIFIED);
+        assertEquals(WithdrawalOutcome.CREDIT_SERVICE_DOWN, feature.handleWithdrawalOutcome(account, "10"));
+        assertEquals(1000.0, account.getBalance(), 0.001);
+    }
+}
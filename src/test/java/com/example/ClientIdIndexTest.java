@@ -0,0 +1,81 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class ClientIdIndexTest {
+
+    @Test
+    void numericIds_roundTrip_acrossResizes() {
+        ClientIdIndex index = new ClientIdIndex(2);
+        for (int i = 0; i < 10_000; i++) {
+            index.put(String.valueOf(1000 + i), i);
+        }
+        assertEquals(10_000, index.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, index.get(String.valueOf(1000 + i)));
+        }
+        assertEquals(ClientIdIndex.NOT_FOUND, index.get("999"));
+    }
+
+    @Test
+    void nonNumericIds_useFallback() {
+        ClientIdIndex index = new ClientIdIndex(4);
+        index.put("C001", 0);
+        index.put("01001", 1);
+        index.put("1001", 2);
+
+        assertEquals(0, index.get("C001"));
+        assertEquals(1, index.get("01001"), "Leading zero is a different id");
+        assertEquals(2, index.get("1001"));
+        assertEquals(ClientIdIndex.NOT_FOUND, index.get("C002"));
+        assertEquals(ClientIdIndex.NOT_FOUND, index.get((String) null));
+    }
+
+    @Test
+    void put_existingId_replacesSlot() {
+        ClientIdIndex index = new ClientIdIndex(4);
+        index.put("1001", 0);
+        index.put("1001", 5);
+        assertEquals(5, index.get("1001"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void parseNumericId_onlyCanonicalDigits() {
+        assertEquals(1001L, ClientIdIndex.parseNumericId("1001"));
+        assertEquals(0L, ClientIdIndex.parseNumericId("0"));
+        assertEquals(-1L, ClientIdIndex.parseNumericId("01"));
+        assertEquals(-1L, ClientIdIndex.parseNumericId("-5"));
+        assertEquals(-1L, ClientIdIndex.parseNumericId(""));
+        assertEquals(-1L, ClientIdIndex.parseNumericId("1234567890123456789"));
+    }
+
+    @Test
+    void controller_idBasedOperations() {
+        try (AccountStore store = new AccountStore(4)) {
+            store.add("1001", "Hania", 100_000L, AccountStatus.VERIFIED);
+            store.add("1002", "Mai", 50_000L, AccountStatus.VERIFIED);
+            AccountController controller = new AccountController(store);
+
+            assertTrue(controller.transferById("1001", "1002", 100.0));
+            assertTrue(controller.withdrawById("1002", 50.0));
+            assertTrue(controller.depositById("1001", 1.0));
+            assertFalse(controller.depositById("9999", 1.0), "Unknown id");
+
+            assertEquals(901.0, controller.findAccount("1001").getBalance(), 0.001);
+            assertEquals(550.0, controller.findAccount("1002").getBalance(), 0.001);
+            assertNull(controller.findAccount("9999"));
+        }
+    }
+
+    @Test
+    void controller_withoutStore_rejectsIdOperations() {
+        AccountController controller = new AccountController();
+        assertFalse(controller.depositById("1001", 1.0));
+        assertNull(controller.findAccount("1001"));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class CreditPolicyTest {
+
+    private static final String RULES = String.join("\n",
+            "# tiered policy",
+            "not-verified: status != VERIFIED -> NOT_VERIFIED",
+            "small:        amount <= 20 -> ALLOW",
+            "low-score:    score < 600 -> CREDIT_TOO_LOW",
+            "fair-cap:     score in 600..679 and amount > 50% balance -> CREDIT_TOO_LOW",
+            "big:          amount > 5000 and score < 750 -> CREDIT_TOO_LOW");
+
+    @Test
+    void defaults_matchFormerThresholds() {
+        CreditPolicy policy = CreditPolicy.defaults();
+
+        assertEquals(WithdrawalOutcome.NOT_VERIFIED, policy.precheck(AccountStatus.SUSPENDED, 100, 1_000));
+        assertNull(policy.precheck(AccountStatus.VERIFIED, 100, 1_000));
+        assertEquals(WithdrawalOutcome.CREDIT_TOO_LOW, policy.decide(599, AccountStatus.VERIFIED, 100, 1_000));
+        assertEquals(WithdrawalOutcome.SUCCESS, policy.decide(600, AccountStatus.VERIFIED, 100, 1_000));
+        assertEquals(1L, policy.hitCount("not-verified"));
+        assertEquals(1L, policy.hitCount("low-score"));
+        assertEquals(1L, policy.defaultHitCount());
+    }
+
+    @Test
+    void bandsAndBalanceCaps_firstMatchDecides() {
+        CreditPolicy policy = CreditPolicy.parse(RULES);
+        assertEquals(5, policy.ruleCount());
+
+        // 60.00 of a 100.00 balance is over the 50% cap for a fair score
+        assertEquals(WithdrawalOutcome.CREDIT_TOO_LOW, policy.decide(650, AccountStatus.VERIFIED, 6_000, 10_000));
+        assertEquals(WithdrawalOutcome.SUCCESS, policy.decide(650, AccountStatus.VERIFIED, 5_000, 10_000));
+        assertEquals(WithdrawalOutcome.SUCCESS, policy.decide(700, AccountStatus.VERIFIED, 6_000, 10_000));
+        assertEquals(WithdrawalOutcome.CREDIT_TOO_LOW, policy.decide(700, AccountStatus.VERIFIED, 600_000, 1_000_000));
+        assertEquals(WithdrawalOutcome.SUCCESS, policy.decide(800, AccountStatus.VERIFIED, 600_000, 1_000_000));
+
+        assertEquals(1L, policy.hitCount("fair-cap"));
+        assertEquals(1L, policy.hitCount("big"));
+        assertEquals(3L, policy.defaultHitCount());
+        assertEquals(-1L, policy.hitCount("missing"));
+    }
+
+    @Test
+    void precheckAllow_skipsCreditLookup() {
+        AtomicInteger lookups = new AtomicInteger();
+        CreditScoreFeature feature = new CreditScoreFeature(clientId -> {
+            lookups.incrementAndGet();
+            return 500;
+        }, new AccountController());
+        feature.setCreditPolicy(CreditPolicy.parse(RULES));
+        Account account = new Account("2001", "Test User", 1000.0, AccountStatus.VERIFIED);
+
+        assertEquals(WithdrawalOutcome.SUCCESS, feature.handleWithdrawalOutcome(account, "20"));
+        assertEquals(0, lookups.get());
+        assertEquals(WithdrawalOutcome.CREDIT_TOO_LOW, feature.handleWithdrawalOutcome(account, "20.01"));
+        assertEquals(1, lookups.get());
+        assertEquals(1L, feature.getCreditPolicy().hitCount("small"));
+    }
+
+    @Test
+    void hotReload_appliesToNextWithdrawal() {
+        CreditScoreFeature feature = new CreditScoreFeature(clientId -> 650, new AccountController());
+        Account account = new Account("2002", "Test User", 1000.0, AccountStatus.VERIFIED);
+        assertEquals(WithdrawalOutcome.SUCCESS, feature.handleWithdrawalOutcome(account, "100"));
+
+        feature.setCreditPolicy(CreditPolicy.parse("strict: score < 700 -> CREDIT_TOO_LOW"));
+
+        assertEquals(WithdrawalOutcome.CREDIT_TOO_LOW, feature.handleWithdrawalOutcome(account, "100"));
+        assertEquals(900.0, account.getBalance(), 0.001);
+    }
+
+    @Test
+    void invalidRule_reportsLine() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> CreditPolicy.parse("ok: any -> ALLOW\n\nbad: score ~ 5 -> CREDIT_TOO_LOW"));
+        assertTrue(e.getMessage().startsWith("Policy line 3"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> CreditPolicy.parse("x: any -> NOPE"));
+        assertThrows(IllegalArgumentException.class, () -> CreditPolicy.parse("no outcome"));
+    }
+
+    @Test
+    void extraTokens_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CreditPolicy.parse("x: score < 600 700 -> CREDIT_TOO_LOW"));
+        assertThrows(IllegalArgumentException.class, () -> CreditPolicy.parse("x: status != VERIFIED now -> NOT_VERIFIED"));
+        assertThrows(IllegalArgumentException.class, () -> CreditPolicy.parse("x: amount > 5 EUR -> CREDIT_TOO_LOW"));
+        assertThrows(IllegalArgumentException.class, () -> CreditPolicy.parse("x: any thing -> ALLOW"));
+        assertThrows(IllegalArgumentException.class, () -> CreditPolicy.parse("x: any -> ALLOW CREDIT_TOO_LOW"));
+    }
+
+    @Test
+    void balanceCap_nearLongMax_doesNotOverflow() {
+        CreditPolicy policy = CreditPolicy.parse("cap: amount > 50% balance -> CREDIT_TOO_LOW");
+        long balance = Long.MAX_VALUE / 2;
+
+        assertEquals(WithdrawalOutcome.SUCCESS, policy.precheck(AccountStatus.VERIFIED, 1_000, balance));
+        assertEquals(WithdrawalOutcome.SUCCESS, policy.precheck(AccountStatus.VERIFIED, balance / 2, balance));
+        assertEquals(WithdrawalOutcome.CREDIT_TOO_LOW,
+                policy.precheck(AccountStatus.VERIFIED, balance / 2 + 1, balance));
+        assertEquals(WithdrawalOutcome.CREDIT_TOO_LOW,
+                policy.precheck(AccountStatus.VERIFIED, Long.MAX_VALUE, Long.MAX_VALUE));
+
+        CreditPolicy scored = CreditPolicy.parse("fair-cap: score < 680 and amount > 50% balance -> CREDIT_TOO_LOW");
+        assertEquals(WithdrawalOutcome.SUCCESS, scored.decide(650, AccountStatus.VERIFIED, 1_000, balance));
+        assertEquals(WithdrawalOutcome.CREDIT_TOO_LOW, scored.decide(650, AccountStatus.VERIFIED, balance, balance));
+    }
+}
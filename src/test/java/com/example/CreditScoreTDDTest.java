@@ -106,4 +106,18 @@ public class CreditScoreTDDTest {
             return scores.getOrDefault(clientId, 0);
         }
     }
+
+    @Test
+    void outcomeApi_returnsConstantsWithoutMessages() {
+        mockCreditService.setScore("client9", 700);
+        Account account = new Account("client9", "Outcome User", 50.0, AccountStatus.VERIFIED);
+
+        assertEquals(WithdrawalOutcome.SUCCESS, feature.handleWithdrawalOutcome(account, new StringBuilder("20.5")));
+        assertEquals(WithdrawalOutcome.INSUFFICIENT_BALANCE, feature.handleWithdrawalOutcome(account, "100"));
+        assertEquals(WithdrawalOutcome.NOT_NUMERIC, feature.handleWithdrawalOutcome(account, "1e3"));
+        assertEquals(WithdrawalOutcome.NOT_POSITIVE, feature.handleWithdrawalOutcome(account, "-5"));
+        assertEquals(WithdrawalOutcome.EMPTY_AMOUNT, feature.handleWithdrawalOutcome(account, ""));
+        assertEquals(WithdrawalOutcome.NO_ACCOUNT, feature.handleWithdrawalOutcome(null, "5"));
+        assertEquals(29.5, account.getBalance(), 0.001);
+    }
 }
@@ -0,0 +1,131 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class CreditScoreWarmerTest {
+
+    private final AtomicInteger bulkCalls = new AtomicInteger();
+    private final AtomicInteger singleCalls = new AtomicInteger();
+    private final AtomicInteger version = new AtomicInteger(700);
+
+    private final CreditService backend = new CreditService() {
+        @Override
+        public int getCreditScore(String clientId) {
+            singleCalls.incrementAndGet();
+            return version.get();
+        }
+
+        @Override
+        public Map<String, Integer> getCreditScores(Collection<String> clientIds) {
+            bulkCalls.incrementAndGet();
+            Map<String, Integer> scores = new HashMap<>();
+            for (String clientId : clientIds) {
+                scores.put(clientId, version.get());
+            }
+            return scores;
+        }
+    };
+
+    @Test
+    void warm_loadsAllIdsInBatches_thenLookupsHit() throws InterruptedException {
+        CachingCreditService cache = new CachingCreditService(backend, 1_000, 60_000);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            ids.add("warm-" + i);
+        }
+
+        CreditScoreWarmer.Result result = new CreditScoreWarmer(cache, 100, 4).warm(ids, 5_000);
+
+        assertEquals(250, result.requested());
+        assertEquals(250, result.loaded());
+        assertEquals(0, result.failedBatches());
+        assertEquals(3, bulkCalls.get());
+        for (String id : ids) {
+            assertEquals(700, cache.getCreditScore(id));
+        }
+        assertEquals(0, singleCalls.get());
+        assertEquals(250L, cache.hitCount());
+    }
+
+    @Test
+    void prefetch_skipsCachedIds() {
+        CachingCreditService cache = new CachingCreditService(backend, 100, 60_000);
+        cache.getCreditScore("a");
+
+        assertEquals(1, cache.prefetch(List.of("a", "b")));
+        assertEquals(1L, cache.prefetchCount());
+        assertEquals(0, cache.prefetch(List.of("a", "b")));
+    }
+
+    @Test
+    void refreshAhead_reloadsOldEntryInBackground() throws InterruptedException {
+        CachingCreditService cache = new CachingCreditService(backend, 100, 60_000);
+        cache.setRefreshAhead(1);
+        assertEquals(700, cache.getCreditScore("r1"));
+        Thread.sleep(5);
+        version.set(710);
+
+        assertEquals(700, cache.getCreditScore("r1"), "Old score is served while reloading");
+        for (int i = 0; i < 200 && cache.getCreditScore("r1") != 710; i++) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(710, cache.getCreditScore("r1"));
+        assertTrue(cache.refreshCount() >= 1);
+        assertEquals(1L, cache.missCount());
+    }
+
+    @Test
+    void activeClientIds_fromStoreAndLog() throws IOException {
+        try (AccountStore store = new AccountStore(4)) {
+            store.add("1001", "A", 100L, AccountStatus.VERIFIED);
+            store.add("1002", "B", 100L, AccountStatus.SUSPENDED);
+            store.add("1003", "C", 100L, AccountStatus.VERIFIED);
+
+            assertEquals(Set.of("1001", "1003"), CreditScoreWarmer.activeClientIds(store));
+        }
+
+        Path dir = Files.createTempDirectory("warmer-test");
+        try {
+            try (WriteAheadLog wal = new WriteAheadLog(dir, WriteAheadLog.Durability.SYNC)) {
+                wal.append(TransactionType.DEPOSIT, "1001", null, 100L);
+                wal.append(TransactionType.TRANSFER, "1002", "1003", 50L);
+            }
+
+            assertEquals(List.of("1003", "1002", "1001"),
+                    new ArrayList<>(CreditScoreWarmer.activeClientIds(dir, 0L)));
+            assertEquals(List.of("1003", "1002"),
+                    new ArrayList<>(CreditScoreWarmer.activeClientIds(dir, 1L)));
+
+            try (WriteAheadLog wal = new WriteAheadLog(dir, WriteAheadLog.Durability.SYNC)) {
+                for (int i = 0; i < 100; i++) {
+                    wal.append(TransactionType.DEPOSIT, "R" + (i % 10), null, 1L);
+                }
+                wal.append(TransactionType.DEPOSIT, "1001", null, 1L);
+            }
+            assertEquals(List.of("1001", "R9", "R8"),
+                    new ArrayList<>(CreditScoreWarmer.activeClientIds(dir, 0L, 3)));
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class IdempotencyCacheTest {
+
+    @Test
+    void retriedWithdrawal_isAppliedOnce() {
+        AccountController controller = new AccountController();
+        controller.setIdempotencyCache(new IdempotencyCache());
+        Account acc = new Account("I1", "Retry", 100.0, AccountStatus.VERIFIED);
+
+        assertTrue(controller.withdraw(acc, 30.0, "req-1"));
+        assertTrue(controller.withdraw(acc, 30.0, "req-1"), "Retry returns the first outcome");
+        assertEquals(70.0, acc.getBalance(), 0.001);
+
+        assertTrue(controller.withdraw(acc, 30.0, "req-2"));
+        assertEquals(40.0, acc.getBalance(), 0.001);
+        assertEquals(1L, controller.getIdempotencyCache().hits());
+    }
+
+    @Test
+    void withoutCacheOrKey_operationsRunEveryTime() {
+        AccountController controller = new AccountController();
+        Account acc = new Account("I2", "Plain", 100.0, AccountStatus.VERIFIED);
+
+        controller.deposit(acc, 10.0, "same");
+        controller.deposit(acc, 10.0, "same");
+        controller.setIdempotencyCache(new IdempotencyCache());
+        controller.deposit(acc, 10.0, null);
+        controller.deposit(acc, 10.0, null);
+
+        assertEquals(140.0, acc.getBalance(), 0.001);
+    }
+
+    @Test
+    void concurrentRetries_waitForFirstAttempt() throws InterruptedException {
+        IdempotencyCache cache = new IdempotencyCache(64, 60_000);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                cache.execute("k", () -> {
+                    runs.incrementAndGet();
+                    return Boolean.TRUE;
+                });
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(1, runs.get());
+        assertEquals(7L, cache.hits());
+    }
+
+    @Test
+    void expiredAndRefusedOutcomes_areNotReused() throws InterruptedException {
+        IdempotencyCache cache = new IdempotencyCache(16, 1);
+        AtomicInteger runs = new AtomicInteger();
+        cache.execute("k", runs::incrementAndGet);
+        Thread.sleep(5);
+        assertEquals(2, (int) cache.execute("k", runs::incrementAndGet));
+
+        assertThrows(IllegalArgumentException.class, () -> cache.execute("f", () -> {
+            throw new IllegalArgumentException("bad id");
+        }));
+        assertEquals(3, (int) cache.execute("f", runs::incrementAndGet));
+    }
+
+    @Test
+    void failuresAfterSideEffects_areReplayedToRetries() {
+        IdempotencyCache cache = new IdempotencyCache(16, 60_000);
+        AtomicInteger runs = new AtomicInteger();
+        IllegalStateException first = assertThrows(IllegalStateException.class, () -> cache.execute("f", () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("log closed");
+        }));
+        IllegalStateException retried = assertThrows(IllegalStateException.class,
+                () -> cache.execute("f", runs::incrementAndGet));
+
+        assertSame(first, retried);
+        assertEquals(1, runs.get(), "The retry must not run the operation again");
+    }
+
+    @Test
+    void keyReusedWithOtherArguments_isRejected() {
+        AccountController controller = new AccountController();
+        controller.setIdempotencyCache(new IdempotencyCache());
+        Account a = new Account("I5", "A", 100.0, AccountStatus.VERIFIED);
+        Account b = new Account("I6", "B", 100.0, AccountStatus.VERIFIED);
+
+        assertTrue(controller.withdraw(a, 10.0, "req-1"));
+        assertTrue(controller.withdrawMinor(a, 1_000, "req-1"), "Same account and amount in minor units");
+        assertThrows(IllegalArgumentException.class, () -> controller.withdraw(a, 20.0, "req-1"));
+        assertThrows(IllegalArgumentException.class, () -> controller.withdraw(b, 10.0, "req-1"));
+
+        controller.transferBatch(List.of(new TransferRequest(a, b, 500)), "req-2");
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.transferBatch(List.of(new TransferRequest(b, a, 500)), "req-2"));
+        assertEquals(85.0, a.getBalance(), 0.001);
+        assertEquals(105.0, b.getBalance(), 0.001);
+    }
+
+    @Test
+    void keyReusedForAnotherOperation_isRejected() {
+        AccountController controller = new AccountController();
+        controller.setIdempotencyCache(new IdempotencyCache());
+        Account a = new Account("I3", "A", 100.0, AccountStatus.VERIFIED);
+        Account b = new Account("I4", "B", 100.0, AccountStatus.VERIFIED);
+
+        assertTrue(controller.withdraw(a, 10.0, "req-1"));
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.transferBatch(List.of(new TransferRequest(a, b, 1_000)), "req-1"));
+        assertThrows(IllegalArgumentException.class, () -> controller.deposit(a, 10.0, "req-1"));
+
+        controller.transferBatch(List.of(new TransferRequest(a, b, 1_000)), "req-2");
+        assertThrows(IllegalArgumentException.class, () -> controller.withdraw(a, 10.0, "req-2"));
+        assertEquals(80.0, a.getBalance(), 0.001);
+        assertEquals(110.0, b.getBalance(), 0.001);
+    }
+
+    @Test
+    void fullSetOfRunningOperations_makesNewKeysWait() throws InterruptedException {
+        // Capacity 8 is a single set, so every key competes for the same slots
+        IdempotencyCache cache = new IdempotencyCache(8, 60_000);
+        CountDownLatch running = new CountDownLatch(8);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread[] holders = new Thread[8];
+        for (int t = 0; t < holders.length; t++) {
+            String key = "hold-" + t;
+            holders[t] = new Thread(() -> cache.execute(key, () -> {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Boolean.TRUE;
+            }));
+            holders[t].start();
+        }
+        running.await();
+
+        AtomicInteger runs = new AtomicInteger();
+        Thread[] retries = new Thread[2];
+        for (int t = 0; t < retries.length; t++) {
+            retries[t] = new Thread(() -> cache.execute("late", runs::incrementAndGet));
+            retries[t].start();
+        }
+        while (cache.stalls() < 2) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, runs.get(), "Nothing runs while the set is full");
+
+        release.countDown();
+        for (Thread t : holders) {
+            t.join();
+        }
+        for (Thread t : retries) {
+            t.join();
+        }
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void manyKeys_stayWithinCapacity() {
+        IdempotencyCache cache = new IdempotencyCache(128, 60_000);
+        for (int i = 0; i < 10_000; i++) {
+            cache.execute("key-" + i, () -> Boolean.TRUE);
+        }
+        assertEquals(128, cache.capacity());
+        assertEquals(10_000L, cache.misses());
+        assertTrue(cache.evictions() >= 10_000L - 128);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class MoneyTest {
+
+    // ---------- Conversions ----------
+
+    @Test
+    void toMinor_roundsToNearestCent() {
+        assertEquals(10060L, Money.toMinor(100.6));
+        assertEquals(10L, Money.toMinor(0.1));
+        assertEquals(1L, Money.toMinor(0.005));
+        assertEquals(0L, Money.toMinor(0.001));
+    }
+
+    @Test
+    void toMinor_unrepresentable_returnsInvalid() {
+        assertEquals(Money.INVALID, Money.toMinor(Double.NaN));
+        assertEquals(Money.INVALID, Money.toMinor(Double.POSITIVE_INFINITY));
+        assertEquals(Money.INVALID, Money.toMinor(Double.MAX_VALUE));
+    }
+
+    @Test
+    void toMajor_roundTrips() {
+        assertEquals(100.6, Money.toMajor(Money.toMinor(100.6)), 0.0);
+    }
+
+    @Test
+    void rescale_betweenScales() {
+        assertEquals(12340L, Money.rescale(1234L, 2, 3));
+        assertEquals(123L, Money.rescale(1234L, 3, 2));
+    }
+
+    // ---------- Parsing ----------
+
+    @Test
+    void parse_validAmounts() {
+        assertEquals(10000L, Money.parse("100"));
+        assertEquals(10050L, Money.parse("100.5"));
+        assertEquals(10055L, Money.parse(" 100.55 "));
+        assertEquals(10000L, Money.parse("100.000"));
+        assertEquals(50L, Money.parse(".5"));
+        assertEquals(-25L, Money.parse("-0.25"));
+    }
+
+    @Test
+    void tryParse_invalidAmounts_returnInvalid() {
+        assertEquals(Money.INVALID, Money.tryParse(null));
+        assertEquals(Money.INVALID, Money.tryParse("12a"));
+        assertEquals(Money.INVALID, Money.tryParse("1.005"));
+        assertEquals(250L, Money.tryParse(new StringBuilder(" 2.5 ")));
+    }
+
+    @Test
+    void tryParse_nearLongMax_neverWraps() {
+        // Long.MAX_VALUE is 92233720368547758.07 in minor units
+        assertEquals(Long.MAX_VALUE, Money.tryParse("92233720368547758.07"));
+        assertEquals(-Long.MAX_VALUE, Money.tryParse("-92233720368547758.07"));
+        assertEquals(Money.INVALID, Money.tryParse("92233720368547758.08"));
+        assertEquals(Money.INVALID, Money.tryParse("92233720368547758.99"));
+        assertEquals(Money.INVALID, Money.tryParse("92233720368547759"));
+    }
+
+    @Test
+    void parse_invalidAmounts_throw() {
+        assertThrows(NumberFormatException.class, () -> Money.parse(""));
+        assertThrows(NumberFormatException.class, () -> Money.parse("."));
+        assertThrows(NumberFormatException.class, () -> Money.parse("abc"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1.005"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1e3"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("99999999999999999999"));
+    }
+
+    @Test
+    void format_padsFraction() {
+        assertEquals("10.50", Money.format(1050L));
+        assertEquals("0.05", Money.format(5L));
+        assertEquals("-1.00", Money.format(-100L));
+    }
+
+    // ---------- Exact account arithmetic ----------
+
+    @Test
+    void account_repeatedSmallDeposits_areExact() {
+        Account acc = new Account("M1", "Money", 0.0, AccountStatus.VERIFIED);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(acc.deposit(0.1));
+        }
+        assertEquals(100L, acc.getBalanceMinor());
+        assertEquals(1.0, acc.getBalance(), 0.0);
+    }
+
+    @Test
+    void account_depositOverflow_isRejected() {
+        Account acc = Account.ofMinor("M2", "Money", Long.MAX_VALUE - 1, AccountStatus.VERIFIED);
+        assertFalse(acc.depositMinor(2L));
+        assertEquals(Long.MAX_VALUE - 1, acc.getBalanceMinor());
+    }
+}
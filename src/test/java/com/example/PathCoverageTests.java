@@ -193,10 +193,9 @@ public class PathCoverageTests {
     void edgePath_depositMaxValue() {
         Account acc = new Account("EP1", "Edge", 100.0, AccountStatus.VERIFIED);
         
-        // Test with very large value
-        assertTrue(acc.deposit(Double.MAX_VALUE));
-        
-        // Note: Next withdraw might overflow, but that's not tested
+        // Test with very large value: not representable in minor units
+        assertFalse(acc.deposit(Double.MAX_VALUE));
+        assertEquals(100.0, acc.getBalance(), 0.01);
     }
     
     @Test
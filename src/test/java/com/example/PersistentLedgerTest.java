@@ -0,0 +1,178 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PersistentLedgerTest {
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("ledger-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private static List<String> between(PersistentLedger ledger, String clientId, long from, long to) {
+        List<String> entries = new ArrayList<>();
+        ledger.forEach(clientId, from, to, (seq, time, type, amount, counterpartyId) -> {
+            entries.add(time + " " + type + " " + amount + (counterpartyId == null ? "" : " " + counterpartyId));
+            return true;
+        });
+        return entries;
+    }
+
+    @Test
+    void processor_recordsSignedEntriesPerAccount() {
+        try (PersistentLedger ledger = new PersistentLedger(dir, 256)) {
+            TransactionProcessor processor = new TransactionProcessor();
+            processor.setLedger(ledger);
+            Account a = new Account("1001", "A", 100.0, AccountStatus.VERIFIED);
+            Account b = new Account("1002", "B", 100.0, AccountStatus.VERIFIED);
+
+            assertTrue(processor.processDepositMinor(a, 500));
+            assertTrue(processor.processTransferMinor(a, b, 300));
+            assertTrue(!processor.processWithdrawMinor(b, 1_000_000));
+
+            List<String> types = new ArrayList<>();
+            ledger.forEach("1002", Long.MIN_VALUE, Long.MAX_VALUE, (seq, time, type, amount, counterpartyId) -> {
+                types.add(type + " " + amount + " " + counterpartyId);
+                return true;
+            });
+            assertEquals(List.of("TRANSFER 300 1001"), types);
+            assertEquals(2L, ledger.recordCount());
+        }
+    }
+
+    @Test
+    void raisedTimestamps_reachJournalAndAggregates() {
+        long future = LocalDate.of(2100, 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        try (PersistentLedger ledger = new PersistentLedger(dir, 256)) {
+            assertEquals(future, ledger.appendStamped(TransactionType.DEPOSIT, "1002", null, 1, future));
+            assertEquals(future, ledger.appendStamped(TransactionType.DEPOSIT, "1002", null, 1, 5));
+
+            TransactionProcessor processor = new TransactionProcessor();
+            AccountAggregates aggregates = new AccountAggregates(ZoneOffset.UTC);
+            TransactionJournal journal = new TransactionJournal();
+            processor.setLedger(ledger);
+            processor.setAggregates(aggregates);
+            processor.setJournal(journal);
+            assertTrue(processor.processDepositMinor(new Account("1001", "A", 0.0, AccountStatus.VERIFIED), 500));
+
+            LocalDate day = LocalDate.of(2100, 1, 1);
+            assertEquals(500L, aggregates.summary("1001", day, day.plusDays(1)).depositsMinor());
+            assertEquals(List.of(future + " DEPOSIT 500"), between(ledger, "1001", future, future + 1));
+            List<Long> journalTimes = new ArrayList<>();
+            journal.forEachNewestFirst("1001", (seq, time, type, amount, c) -> journalTimes.add(time));
+            assertEquals(List.of(future), journalTimes);
+        }
+    }
+
+    @Test
+    void rangeQuery_spansSegmentsAndIndexBlocks() {
+        try (PersistentLedger ledger = new PersistentLedger(dir, 256)) {
+            // 2000 records at times 0, 10, 20, ...; every fourth one belongs to "A"
+            for (int i = 0; i < 2_000; i++) {
+                ledger.append(i % 4 == 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL,
+                        i % 4 == 0 ? "A" : "B", null, i, i * 10L);
+            }
+
+            assertEquals(8, ledger.segmentCount());
+            assertEquals(2_000L, ledger.recordCount());
+            assertEquals(List.of("2560 DEPOSIT 256", "2600 DEPOSIT 260", "2640 DEPOSIT 264"),
+                    between(ledger, "A", 2_555, 2_680));
+            assertEquals(500, between(ledger, "A", Long.MIN_VALUE, Long.MAX_VALUE).size());
+            assertEquals("19990 WITHDRAWAL -1999", between(ledger, "B", 19_990, 20_000).get(0));
+            assertTrue(between(ledger, "A", 30_000, 40_000).isEmpty());
+            assertTrue(between(ledger, "missing", Long.MIN_VALUE, Long.MAX_VALUE).isEmpty());
+        }
+    }
+
+    @Test
+    void equalTimestamps_acrossSegmentRolls_areAllFound() {
+        try (PersistentLedger ledger = new PersistentLedger(dir, 256)) {
+            ledger.append(TransactionType.DEPOSIT, "A", null, 1, 500);
+            for (int i = 0; i < 600; i++) {
+                ledger.append(TransactionType.DEPOSIT, "A", null, 1, 1_000);
+            }
+            ledger.append(TransactionType.DEPOSIT, "A", null, 1, 2_000);
+
+            assertEquals(3, ledger.segmentCount());
+            assertEquals(600, ledger.forEach("A", 1_000, 1_001, (seq, time, type, amount, c) -> true));
+            assertEquals(601, ledger.forEach("A", 1_000, Long.MAX_VALUE, (seq, time, type, amount, c) -> true));
+        }
+    }
+
+    @Test
+    void processor_refusesUnloggableIds_beforeMovingMoney() {
+        try (PersistentLedger ledger = new PersistentLedger(dir, 256)) {
+            TransactionProcessor processor = new TransactionProcessor();
+            processor.setLedger(ledger);
+            Account tooLong = new Account("12345678901234567", "Long", 100.0, AccountStatus.VERIFIED);
+            Account ok = new Account("1001", "Ok", 100.0, AccountStatus.VERIFIED);
+
+            assertThrows(IllegalArgumentException.class, () -> processor.processWithdrawMinor(tooLong, 1_000));
+            assertThrows(IllegalArgumentException.class, () -> processor.processTransferMinor(ok, tooLong, 1_000));
+            assertThrows(IllegalArgumentException.class,
+                    () -> processor.processBatch(List.of(new TransferRequest(ok, tooLong, 1_000))));
+            assertEquals(10_000L, tooLong.getBalanceMinor());
+            assertEquals(10_000L, ok.getBalanceMinor());
+            assertEquals(0L, ledger.recordCount());
+        }
+    }
+
+    @Test
+    void reopen_continuesSequenceAndKeepsHistory() {
+        try (PersistentLedger ledger = new PersistentLedger(dir, 256)) {
+            for (int i = 0; i < 300; i++) {
+                ledger.append(TransactionType.TRANSFER, "1001", "1002", 1, 1_000 + i);
+            }
+        }
+        try (PersistentLedger ledger = new PersistentLedger(dir, 256)) {
+            assertEquals(300L, ledger.lastSeq());
+            assertEquals(301L, ledger.append(TransactionType.DEPOSIT, "1002", null, 7, 500));
+
+            // Timestamps never go back, so the late record sorts after the others
+            List<String> tail = between(ledger, "1002", 1_299, Long.MAX_VALUE);
+            assertEquals(List.of("1299 TRANSFER 1 1001", "1299 DEPOSIT 7"), tail);
+
+            long[] total = { 0 };
+            for (int s = 0; s < ledger.segmentCount(); s++) {
+                ledger.scan(s, (seq, time, type, fromId, toId, amount) -> total[0] += amount);
+            }
+            assertEquals(307L, total[0]);
+        }
+    }
+
+    @Test
+    void invalidIdsAndClosedLedger_areRejected() {
+        PersistentLedger ledger = new PersistentLedger(dir, 256);
+        assertThrows(IllegalArgumentException.class,
+                () -> ledger.append(TransactionType.DEPOSIT, "12345678901234567", null, 1));
+        ledger.close();
+        assertThrows(IllegalStateException.class,
+                () -> ledger.append(TransactionType.DEPOSIT, "1001", null, 1));
+    }
+}
@@ -0,0 +1,157 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RecoveryTest {
+
+    private Path dir;
+    private Path snapshot;
+    private Path walDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("recovery-test");
+        snapshot = dir.resolve("accounts.snap");
+        walDir = dir.resolve("wal");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    void snapshot_roundTripsAllColumns() throws IOException {
+        try (AccountStore store = new AccountStore(8)) {
+            store.add("1001", "Ahmed", 1_050L, AccountStatus.VERIFIED);
+            store.add("C-7", "Zoë", 0L, AccountStatus.CLOSED);
+            store.add("1003", null, 99L, AccountStatus.UNVERIFIED);
+            AccountSnapshot.write(store, 42L, snapshot);
+        }
+
+        AccountSnapshot.Loaded loaded = AccountSnapshot.load(snapshot, 0, 4);
+        try (AccountStore store = loaded.store()) {
+            assertEquals(42L, loaded.walSeq());
+            assertEquals(3, store.size());
+            int row = store.rowOf("C-7");
+            assertEquals("Zoë", store.clientName(row));
+            assertEquals(AccountStatus.CLOSED, store.status(row));
+            assertEquals(1_050L, store.balanceMinor(store.rowOf("1001")));
+            assertEquals("1003", store.clientId(store.rowOf("1003")));
+            assertNull(store.clientName(store.rowOf("1003")));
+        }
+    }
+
+    @Test
+    void recover_replaysOnlyLogTail() throws IOException {
+        TransactionProcessor processor = new TransactionProcessor();
+        try (AccountStore store = new AccountStore(4);
+             WriteAheadLog wal = new WriteAheadLog(walDir, WriteAheadLog.Durability.SYNC)) {
+            processor.setWriteAheadLog(wal);
+            int a = store.add("1001", "A", 10_000L, AccountStatus.VERIFIED);
+            int b = store.add("1002", "B", 0L, AccountStatus.VERIFIED);
+            assertTrue(processor.processDepositMinor(store, a, 500L));
+            assertEquals(1L, Recovery.checkpoint(store, wal, snapshot));
+
+            assertTrue(processor.processTransferMinor(store, a, b, 2_500L));
+            assertTrue(processor.processWithdrawMinor(store, b, 1_000L));
+        }
+
+        Recovery.Result result = Recovery.recover(snapshot, walDir, 16, 2);
+        try (AccountStore store = result.store()) {
+            assertEquals(1L, result.snapshotSeq());
+            assertEquals(3L, result.lastSeq());
+            assertEquals(2L, result.replayedRecords());
+            assertEquals(16, store.capacity());
+            assertEquals(8_000L, store.balanceMinor(store.rowOf("1001")));
+            assertEquals(1_500L, store.balanceMinor(store.rowOf("1002")));
+            assertTrue(result.timeToReadyMillis() >= 0.0);
+        }
+    }
+
+    @Test
+    void recover_rebuildsAccountsOpenedAfterSnapshot() throws IOException {
+        TransactionProcessor processor = new TransactionProcessor();
+        try (AccountStore store = new AccountStore(4);
+             WriteAheadLog wal = new WriteAheadLog(walDir, WriteAheadLog.Durability.SYNC)) {
+            processor.setWriteAheadLog(wal);
+            int a = processor.openAccount(store, "1001", "A", 10_000L, AccountStatus.VERIFIED);
+            assertEquals(1L, Recovery.checkpoint(store, wal, snapshot));
+
+            int b = processor.openAccount(store, "1002", "B", 0L, AccountStatus.UNVERIFIED);
+            processor.setStatus(store, b, AccountStatus.VERIFIED);
+            assertTrue(processor.processTransferMinor(store, a, b, 2_500L));
+            processor.setStatus(store, a, AccountStatus.SUSPENDED);
+            assertThrows(IllegalArgumentException.class,
+                    () -> processor.openAccount(store, "1002", "Again", 0L, AccountStatus.VERIFIED));
+        }
+
+        Recovery.Result result = Recovery.recover(snapshot, walDir, 0, 1);
+        try (AccountStore store = result.store()) {
+            assertEquals(4L, result.replayedRecords());
+            assertEquals(2, store.capacity());
+            int a = store.rowOf("1001");
+            int b = store.rowOf("1002");
+            assertEquals(7_500L, store.balanceMinor(a));
+            assertEquals(AccountStatus.SUSPENDED, store.status(a));
+            assertEquals(2_500L, store.balanceMinor(b));
+            assertEquals(AccountStatus.VERIFIED, store.status(b));
+            assertEquals("B", store.clientName(b));
+        }
+    }
+
+    @Test
+    void recover_failsOnRecordForUnknownAccount() throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(walDir, WriteAheadLog.Durability.SYNC)) {
+            wal.writeOpen("1001", "A", 1_000L, AccountStatus.VERIFIED);
+            wal.append(TransactionType.TRANSFER, "1001", "1002", 500L);
+        }
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> Recovery.recover(snapshot, walDir, 0, 1));
+        assertTrue(e.getMessage().contains("1002"), e.getMessage());
+    }
+
+    @Test
+    void load_manyRows_inParallel() throws IOException {
+        int count = 50_000;
+        try (AccountStore store = new AccountStore(count)) {
+            for (int i = 0; i < count; i++) {
+                store.add(Integer.toString(100_000 + i), "Client " + i, i, AccountStatus.VERIFIED);
+            }
+            AccountSnapshot.write(store, 0L, snapshot);
+        }
+
+        try (AccountStore store = AccountSnapshot.load(snapshot, 0, 8).store()) {
+            assertEquals(count, store.size());
+            for (int i = 0; i < count; i += 997) {
+                int row = store.rowOf(Integer.toString(100_000 + i));
+                assertEquals(i, row);
+                assertEquals((long) i, store.balanceMinor(row));
+                assertEquals("Client " + i, store.clientName(row));
+            }
+        }
+    }
+
+    @Test
+    void load_rejectsForeignFile() throws IOException {
+        Files.write(snapshot, new byte[64]);
+        assertThrows(IOException.class, () -> AccountSnapshot.load(snapshot, 0, 1));
+    }
+}
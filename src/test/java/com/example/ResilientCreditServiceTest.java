@@ -0,0 +1,157 @@
+package com.example;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class ResilientCreditServiceTest {
+
+    private final CountDownLatch never = new CountDownLatch(1);
+    private final CreditService hangingBackend = clientId -> {
+        try {
+            never.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 720;
+    };
+
+    @AfterEach
+    void releaseBackend() {
+        never.countDown();
+    }
+
+    @Test
+    void deadline_deny_returnsUnavailable() {
+        ResilientCreditService service = new ResilientCreditService(hangingBackend, 50, 20,
+                ResilientCreditService.Fallback.DENY);
+
+        long start = System.nanoTime();
+        int score = service.getCreditScore("1001");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(CreditService.SCORE_UNAVAILABLE, score);
+        assertTrue(elapsedMillis < 1_000, "Caller must not wait past the deadline: " + elapsedMillis);
+        assertEquals(1L, service.timeoutCount());
+        assertEquals(1L, service.hedgeCount());
+        assertEquals(1L, service.fallbackCount());
+    }
+
+    @Test
+    void deadline_lastKnown_returnsPreviousScore() {
+        AtomicInteger calls = new AtomicInteger();
+        CreditService backend = clientId -> {
+            if (calls.incrementAndGet() == 1) return 680;
+            return hangingBackend.getCreditScore(clientId);
+        };
+        ResilientCreditService service = new ResilientCreditService(backend, 50, 100,
+                ResilientCreditService.Fallback.LAST_KNOWN);
+
+        assertEquals(680, service.getCreditScore("1002"));
+        assertEquals(680, service.getCreditScore("1002"));
+        assertEquals(CreditService.SCORE_UNAVAILABLE, service.getCreditScore("unknown"));
+        assertEquals(2L, service.fallbackCount());
+    }
+
+    @Test
+    void failure_allowUnderCap_returnsCappedMarker() {
+        CreditService failing = clientId -> {
+            throw new IllegalStateException("backend down");
+        };
+        ResilientCreditService service = new ResilientCreditService(failing, 50, 20,
+                ResilientCreditService.Fallback.ALLOW_UNDER_CAP);
+
+        assertEquals(CreditService.SCORE_UNAVAILABLE_CAPPED, service.getCreditScore("1003"));
+        assertEquals(1L, service.failureCount());
+        assertEquals(0L, service.timeoutCount());
+    }
+
+    @Test
+    void hedge_answersWhenFirstCallIsSlow() {
+        AtomicInteger calls = new AtomicInteger();
+        CreditService backend = clientId -> {
+            if (calls.incrementAndGet() == 1) {
+                return hangingBackend.getCreditScore(clientId);
+            }
+            return 750;
+        };
+        ResilientCreditService service = new ResilientCreditService(backend, 2_000, 20,
+                ResilientCreditService.Fallback.DENY);
+
+        assertEquals(750, service.getCreditScore("1004"));
+        assertEquals(1L, service.hedgeCount());
+        assertEquals(0L, service.fallbackCount());
+        assertTrue(service.responseLatency().percentileNanos(100) < 1_000_000_000L);
+    }
+
+    @Test
+    void losingAndTimedOutCalls_areCancelled() {
+        List<CompletableFuture<Integer>> calls = new CopyOnWriteArrayList<>();
+        CreditService backend = new CreditService() {
+            @Override
+            public int getCreditScore(String clientId) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Integer> getCreditScoreAsync(String clientId) {
+                CompletableFuture<Integer> call = new CompletableFuture<>();
+                if (clientId.equals("hedged") && !calls.isEmpty()) {
+                    call.complete(760);
+                }
+                calls.add(call);
+                return call;
+            }
+        };
+        ResilientCreditService service = new ResilientCreditService(backend, 100, 20,
+                ResilientCreditService.Fallback.DENY);
+
+        assertEquals(760, service.getCreditScore("hedged"));
+        assertTrue(calls.get(0).isCancelled(), "The slow primary lost to the hedge");
+        calls.clear();
+
+        assertEquals(CreditService.SCORE_UNAVAILABLE, service.getCreditScore("late"));
+        assertEquals(2, calls.size());
+        assertTrue(calls.get(0).isCancelled() && calls.get(1).isCancelled(), "Both outlived the deadline");
+        assertEquals(1L, service.backendLatency().count(), "Cancelled calls record no latency");
+    }
+
+    @Test
+    void histogram_percentilesWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordNanos(i * 1_000L);
+        }
+
+        assertEquals(1000L, histogram.count());
+        long p50 = histogram.percentileNanos(50);
+        long p99 = histogram.percentileNanos(99);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.125, "p50=" + p50);
+        assertTrue(p99 >= 990_000 && p99 <= 990_000 * 1.125, "p99=" + p99);
+        for (long v : new long[] { 0, 7, 8, 1_000, 123_456_789, Long.MAX_VALUE }) {
+            assertTrue(LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(v)) >= v, "value " + v);
+        }
+    }
+
+    @Test
+    void feature_unavailableScore_blocksOrAllowsUnderCap() {
+        CreditScoreFeature denying = new CreditScoreFeature(
+                clientId -> CreditService.SCORE_UNAVAILABLE, new AccountController());
+        Account account = new Account("1005", "Test User", 1000.0, AccountStatus.VERIFIED);
+        assertEquals(WithdrawalOutcome.CREDIT_UNAVAILABLE, denying.handleWithdrawalOutcome(account, "10"));
+
+        CreditScoreFeature capped = new CreditScoreFeature(
+                clientId -> CreditService.SCORE_UNAVAILABLE_CAPPED, new AccountController());
+        capped.setFallbackCap(50.0);
+        assertEquals(WithdrawalOutcome.SUCCESS, capped.handleWithdrawalOutcome(account, "50"));
+        assertEquals(WithdrawalOutcome.CREDIT_UNAVAILABLE, capped.handleWithdrawalOutcome(account, "50.01"));
+        assertEquals(950.0, account.getBalance(), 0.001);
+    }
+}
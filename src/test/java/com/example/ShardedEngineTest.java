@@ -0,0 +1,189 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ShardedEngineTest {
+
+    private ShardedEngine engine;
+    private AccountController controller;
+
+    @BeforeEach
+    void setUp() {
+        engine = new ShardedEngine(4, 8);
+        controller = new AccountController(engine);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    @Test
+    void controller_routesThroughEngine() {
+        Account acc = new Account("E1", "Engine", 100.0, AccountStatus.VERIFIED);
+
+        assertTrue(controller.deposit(acc, 50.0));
+        assertTrue(controller.withdraw(acc, 30.0));
+        assertFalse(controller.withdraw(acc, 500.0), "Overdraft");
+        assertFalse(controller.deposit(acc, -1.0), "Invalid amount");
+
+        assertEquals(120.0, acc.getBalance(), 0.001);
+        assertEquals(3L, engine.processedCount());
+        assertEquals(0L, engine.queueDepth());
+    }
+
+    @Test
+    void transfers_acrossShards_conserveMoney() throws InterruptedException {
+        Account[] accounts = new Account[16];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = new Account("S" + i, "Shard", 100.0, AccountStatus.VERIFIED);
+        }
+
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int n = 0; n < 2_000; n++) {
+                    Account from = accounts[(n + offset) % accounts.length];
+                    Account to = accounts[(n * 7 + offset + 1) % accounts.length];
+                    controller.transferMinor(from, to, 1 + n % 50);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        long total = 0;
+        for (Account acc : accounts) {
+            total += acc.getBalanceMinor();
+            assertTrue(acc.getBalanceMinor() >= 0);
+        }
+        assertEquals(16 * 10_000L, total);
+        assertEquals(0L, engine.queueDepth());
+        assertTrue(engine.throughput() > 0.0);
+    }
+
+    @Test
+    void transfer_toClosedAccount_keepsMoney() {
+        Account from = new Account("X1", "From", 100.0, AccountStatus.VERIFIED);
+        Account to = new Account("X2", "To", 0.0, AccountStatus.CLOSED);
+
+        assertFalse(controller.transfer(from, to, 40.0));
+        assertEquals(100.0, from.getBalance(), 0.001);
+        assertEquals(0.0, to.getBalance(), 0.001);
+    }
+
+    @Test
+    void engineCommits_reachTheProcessorHooks() {
+        AccountAggregates aggregates = new AccountAggregates();
+        controller.getProcessor().setAggregates(aggregates);
+        Account[] accounts = new Account[8];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = new Account("H" + i, "Hook", 100.0, AccountStatus.VERIFIED);
+        }
+
+        assertTrue(controller.depositMinor(accounts[0], 500));
+        assertTrue(controller.withdrawMinor(accounts[0], 200));
+        assertFalse(controller.withdrawMinor(accounts[1], 1_000_000), "Rejected commands are not recorded");
+        for (int i = 1; i < accounts.length; i++) {
+            assertTrue(controller.transferMinor(accounts[0], accounts[i], 10 * i));
+        }
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        AccountAggregates.Summary first = aggregates.summary("H0", today.minusDays(1), today.plusDays(2));
+        assertEquals(new AccountAggregates.Summary(500, 200, 0, 280, 9), first);
+        for (int i = 1; i < accounts.length; i++) {
+            assertEquals(10L * i, aggregates.summary("H" + i, today.minusDays(1), today.plusDays(2))
+                    .transfersInMinor());
+        }
+    }
+
+    @Test
+    void batches_routeThroughEngine() {
+        Account a = new Account("B1", "A", 100.0, AccountStatus.VERIFIED);
+        Account b = new Account("B2", "B", 0.0, AccountStatus.VERIFIED);
+        Account closed = new Account("B3", "C", 0.0, AccountStatus.CLOSED);
+
+        byte[] results = controller.transferBatch(List.of(
+                new TransferRequest(a, b, 6_000),
+                new TransferRequest(a, b, 6_000),
+                new TransferRequest(b, closed, 1_000),
+                new TransferRequest(a, b, 0)));
+
+        assertArrayEquals(new byte[] { TransactionProcessor.TRANSFER_OK,
+                TransactionProcessor.TRANSFER_INSUFFICIENT_FUNDS, TransactionProcessor.TRANSFER_REJECTED,
+                TransactionProcessor.TRANSFER_INVALID }, results);
+        assertEquals(4_000L, a.getBalanceMinor());
+        assertEquals(6_000L, b.getBalanceMinor());
+        assertTrue(engine.processedCount() >= 2L, "Applied by the shard threads");
+    }
+
+    @Test
+    void idOperations_routeThroughEngine() {
+        try (AccountStore store = new AccountStore(4)) {
+            store.add("1001", "A", 10_000, AccountStatus.VERIFIED);
+            store.add("1002", "B", 0, AccountStatus.VERIFIED);
+            AccountController byId = new AccountController(store, engine);
+
+            assertTrue(byId.depositById("1001", 5.0));
+            assertTrue(byId.withdrawById("1001", 1.0));
+            assertTrue(byId.transferById("1001", "1002", 50.0));
+            assertFalse(byId.withdrawById("missing", 1.0));
+
+            assertEquals(5_400L, store.balanceMinor(0));
+            assertEquals(5_000L, store.balanceMinor(1));
+            assertTrue(engine.processedCount() >= 3L);
+        }
+    }
+
+    @Test
+    void recordingFailure_reachesCallerAndShardKeepsRunning() throws IOException {
+        Path dir = Files.createTempDirectory("engine-wal");
+        Account acc = new Account("F1", "Fail", 0.0, AccountStatus.VERIFIED);
+        WriteAheadLog wal = new WriteAheadLog(dir, WriteAheadLog.Durability.SYNC);
+        wal.close();
+        controller.getProcessor().setWriteAheadLog(wal);
+
+        assertThrows(IllegalStateException.class, () -> controller.depositMinor(acc, 100));
+        assertEquals(0L, acc.getBalanceMinor(), "Refused by the log, so undone");
+        Account[] others = new Account[8];
+        for (int i = 0; i < others.length; i++) {
+            others[i] = new Account("F" + (i + 2), "Other", 1.0, AccountStatus.VERIFIED);
+            Account target = others[i];
+            assertThrows(IllegalStateException.class, () -> controller.transferMinor(target, acc, 100));
+            assertEquals(100L, target.getBalanceMinor());
+        }
+        controller.getProcessor().setWriteAheadLog(null);
+        assertTrue(controller.depositMinor(acc, 100));
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    void submit_afterClose_throws() {
+        Account acc = new Account("C1", "Closed", 0.0, AccountStatus.VERIFIED);
+        engine.close();
+        assertThrows(IllegalStateException.class, () -> engine.deposit(acc, 1L));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightCreditServiceTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CreditService slowBackend = clientId -> {
+        calls.incrementAndGet();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 720;
+    };
+
+    @Test
+    void concurrentBlockingLookups_shareOneCall() throws InterruptedException {
+        SingleFlightCreditService service = new SingleFlightCreditService(slowBackend);
+        AtomicInteger sum = new AtomicInteger();
+        Thread[] threads = new Thread[10];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> sum.addAndGet(service.getCreditScore("1001")));
+            threads[i].start();
+        }
+        while (service.savedCalls() + service.backendCalls() < threads.length) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(9L, service.savedCalls());
+        assertEquals(7200, sum.get());
+        assertEquals(0, service.inFlight());
+    }
+
+    @Test
+    void asyncLookups_shareOneCall() throws Exception {
+        SingleFlightCreditService service = new SingleFlightCreditService(slowBackend);
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(service.getCreditScoreAsync("1002"));
+        }
+        release.countDown();
+        for (CompletableFuture<Integer> f : futures) {
+            assertEquals(720, (int) f.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1L, service.backendCalls());
+        assertEquals(4L, service.savedCalls());
+    }
+
+    @Test
+    void failures_reachEveryWaiter_andAreNotRemembered() {
+        AtomicInteger attempts = new AtomicInteger();
+        SingleFlightCreditService service = new SingleFlightCreditService(clientId -> {
+            if (attempts.incrementAndGet() == 1) throw new IllegalStateException("backend down");
+            return 650;
+        });
+
+        assertThrows(IllegalStateException.class, () -> service.getCreditScore("1003"));
+        assertEquals(650, service.getCreditScore("1003"));
+        assertTrue(service.inFlight() == 0);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class StripedLocksTest {
+
+    @Test
+    void stripeCount_isPowerOfTwo_withMinimum() {
+        assertEquals(64, new StripedLocks(1).stripeCount());
+        assertEquals(128, new StripedLocks(100).stripeCount());
+    }
+
+    @Test
+    void stripeOf_sameKey_isStable() {
+        StripedLocks locks = new StripedLocks(64);
+        Account a = new Account("1001", "A", 0.0, AccountStatus.VERIFIED);
+        Account b = new Account("1001", "B", 0.0, AccountStatus.VERIFIED);
+        assertEquals(locks.stripeOf(a), locks.stripeOf(b));
+        int stripe = locks.stripeOfKey(7);
+        assertTrue(stripe >= 0 && stripe < locks.stripeCount());
+    }
+
+    @Test
+    void oppositeDirectionTransfers_noDeadlock_andConserveMoney() throws InterruptedException {
+        TransactionProcessor processor = new TransactionProcessor(new StripedLocks(64));
+        Account a = new Account("T1", "A", 1000.0, AccountStatus.VERIFIED);
+        Account b = new Account("T2", "B", 1000.0, AccountStatus.VERIFIED);
+        CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            boolean forward = i % 2 == 0;
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int n = 0; n < 5_000; n++) {
+                    if (forward) {
+                        processor.processTransferMinor(a, b, 3L);
+                    } else {
+                        processor.processTransferMinor(b, a, 5L);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join(10_000);
+            assertFalse(t.isAlive(), "Transfer threads must finish");
+        }
+
+        assertEquals(200_000L, a.getBalanceMinor() + b.getBalanceMinor());
+    }
+
+    @Test
+    void storeTransfer_closedTarget_refundsSource() {
+        try (AccountStore store = new AccountStore(2)) {
+            store.add("1001", "A", 1_000L, AccountStatus.VERIFIED);
+            store.add("1002", "B", 0L, AccountStatus.CLOSED);
+            TransactionProcessor processor = new TransactionProcessor();
+
+            assertFalse(processor.processTransferMinor(store, 0, 1, 500L));
+            assertEquals(1_000L, store.balanceMinor(0));
+            assertEquals(0L, store.balanceMinor(1));
+        }
+    }
+}
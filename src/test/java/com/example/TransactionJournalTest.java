@@ -0,0 +1,121 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class TransactionJournalTest {
+
+    private static List<String> entriesOf(TransactionJournal journal, String clientId) {
+        List<String> entries = new ArrayList<>();
+        journal.forEachNewestFirst(clientId, (seq, time, type, amount, counterpartyId) -> {
+            entries.add(type + " " + amount + (counterpartyId == null ? "" : " " + counterpartyId));
+            return true;
+        });
+        return entries;
+    }
+
+    @Test
+    void processor_recordsSignedEntriesPerAccount() {
+        TransactionJournal journal = new TransactionJournal(64);
+        TransactionProcessor processor = new TransactionProcessor();
+        processor.setJournal(journal);
+        Account a = new Account("1001", "A", 100.0, AccountStatus.VERIFIED);
+        Account b = new Account("1002", "B", 100.0, AccountStatus.VERIFIED);
+
+        assertTrue(processor.processDepositMinor(a, 500));
+        assertTrue(processor.processWithdrawMinor(a, 200));
+        assertTrue(processor.processTransferMinor(a, b, 300));
+        assertTrue(!processor.processWithdrawMinor(b, 1_000_000), "Refused commands are not journaled");
+
+        assertEquals(List.of("TRANSFER -300 1002", "WITHDRAWAL -200", "DEPOSIT 500"), entriesOf(journal, "1001"));
+        assertEquals(List.of("TRANSFER 300 1001"), entriesOf(journal, "1002"));
+        assertEquals(4L, journal.nextSeq());
+        assertEquals(2, journal.accountCount());
+        assertEquals(0, journal.forEachNewestFirst("unknown", (s, t, ty, am, c) -> true));
+    }
+
+    @Test
+    void fullRing_dropsOldestEntries() {
+        TransactionJournal journal = new TransactionJournal(8);
+        for (int i = 1; i <= 20; i++) {
+            journal.append(TransactionType.DEPOSIT, i % 2 == 0 ? "even" : "odd", null, i);
+        }
+
+        assertEquals(12L, journal.oldestSeq());
+        List<String> odd = entriesOf(journal, "odd");
+        assertEquals(4, odd.size());
+        assertEquals("DEPOSIT 19", odd.get(0));
+        assertEquals("DEPOSIT 13", odd.get(3));
+    }
+
+    @Test
+    void oldestSeq_movesPastOverwrittenEntries() {
+        TransactionJournal journal = new TransactionJournal(8);
+        journal.append(TransactionType.DEPOSIT, "a", null, 1);
+        assertEquals(0L, journal.oldestSeq("a"));
+        for (int i = 1; i <= 10; i++) {
+            journal.append(TransactionType.DEPOSIT, i % 3 == 0 ? "a" : "b", null, i);
+        }
+
+        // Ring holds seqs 3..10; "a" has 3, 6 and 9 left
+        assertEquals(3L, journal.oldestSeq("a"));
+        assertEquals(4L, journal.oldestSeq("b"));
+        for (int i = 0; i < 8; i++) {
+            journal.append(TransactionType.DEPOSIT, "b", null, 1);
+        }
+        assertEquals(-1L, journal.oldestSeq("a"));
+        journal.append(TransactionType.DEPOSIT, "a", null, 1);
+        assertEquals(19L, journal.oldestSeq("a"));
+        assertEquals(-1L, journal.oldestSeq("unknown"));
+    }
+
+    @Test
+    void visitor_canStopEarly() {
+        TransactionJournal journal = new TransactionJournal(16);
+        for (int i = 0; i < 5; i++) {
+            journal.append(TransactionType.WITHDRAWAL, "1001", null, 10);
+        }
+        long[] lastSeq = { -1 };
+        int visited = journal.forEachNewestFirst("1001", (seq, time, type, amount, counterpartyId) -> {
+            lastSeq[0] = seq;
+            assertNull(counterpartyId);
+            assertTrue(time > 0);
+            return seq > 3;
+        });
+
+        assertEquals(2, visited);
+        assertEquals(3L, lastSeq[0]);
+    }
+
+    @Test
+    void concurrentAppends_keepEveryChainComplete() throws InterruptedException {
+        TransactionJournal journal = new TransactionJournal(1 << 16);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            String id = "C" + t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    journal.append(TransactionType.DEPOSIT, id, null, 1);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        for (int t = 0; t < threads.length; t++) {
+            long[] sum = { 0 };
+            journal.forEachNewestFirst("C" + t, (seq, time, type, amount, c) -> {
+                sum[0] += amount;
+                return true;
+            });
+            assertEquals(5_000L, sum[0]);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class TransactionPipelineTest {
+
+    @Test
+    void pipeline_runsAllSteps() throws Exception {
+        CreditService credit = clientId -> clientId.startsWith("LOW") ? 500 : 700;
+        CreditScoreFeature feature = new CreditScoreFeature(credit, new AccountController());
+        Account ok = new Account("P1", "Ok", 100.0, AccountStatus.VERIFIED);
+        Account low = new Account("LOW1", "Low", 100.0, AccountStatus.VERIFIED);
+
+        try (TransactionPipeline pipeline = new TransactionPipeline(feature, 2, 4, 16, 4)) {
+            CompletableFuture<WithdrawalOutcome> success = pipeline.submit(ok, "40");
+            CompletableFuture<WithdrawalOutcome> blocked = pipeline.submit(low, "40");
+            CompletableFuture<WithdrawalOutcome> invalid = pipeline.submit(ok, "abc");
+            CompletableFuture<WithdrawalOutcome> overdraft = pipeline.submit(ok, "1000");
+
+            assertEquals(WithdrawalOutcome.SUCCESS, success.get(5, TimeUnit.SECONDS));
+            assertEquals(WithdrawalOutcome.CREDIT_TOO_LOW, blocked.get(5, TimeUnit.SECONDS));
+            assertEquals(WithdrawalOutcome.NOT_NUMERIC, invalid.get(5, TimeUnit.SECONDS));
+            assertEquals(WithdrawalOutcome.INSUFFICIENT_BALANCE, overdraft.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(60.0, ok.getBalance(), 0.001);
+        assertEquals(100.0, low.getBalance(), 0.001);
+    }
+
+    @Test
+    void close_shutsDownOwnedDeliveryPools() throws InterruptedException {
+        CreditScoreFeature feature = new CreditScoreFeature(clientId -> 700, new AccountController());
+        TransactionPipeline pipeline = new TransactionPipeline(feature, 1, 1, 4, 2);
+        pipeline.submit(new Account("P3", "Pool", 10.0, AccountStatus.VERIFIED), "1");
+        pipeline.close();
+
+        for (PipelineStage stage : pipeline.stages()) {
+            assertTrue(((ExecutorService) stage.getExecutor()).isShutdown(), stage.name());
+        }
+
+        ExecutorService shared = Executors.newSingleThreadExecutor();
+        try {
+            PipelineStage stage = new PipelineStage("shared", batch -> { }, 1, 4, 2, shared);
+            stage.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            stage.onComplete();
+            stage.awaitTermination();
+            assertTrue(stage.isClosed());
+            assertTrue(!shared.isShutdown(), "Caller-supplied executors stay open");
+        } finally {
+            shared.shutdown();
+        }
+    }
+
+    @Test
+    void slowCreditCheck_throttlesFeed_withoutLosingRequests() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CreditService slow = clientId -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 700;
+        };
+        CreditScoreFeature feature = new CreditScoreFeature(slow, new AccountController());
+        Account acc = new Account("P2", "Busy", 1_000.0, AccountStatus.VERIFIED);
+
+        List<CompletableFuture<WithdrawalOutcome>> results = new ArrayList<>();
+        try (TransactionPipeline pipeline = new TransactionPipeline(feature, 1, 1, 4, 2)) {
+            // Everything buffers in front of the blocked credit stage until offers start failing
+            for (int i = 0; i < 200; i++) {
+                results.add(pipeline.offer(acc, "1"));
+            }
+            assertTrue(pipeline.dropped() > 0);
+            assertEquals(WithdrawalOutcome.BUSY, results.get(199).get());
+            release.countDown();
+        }
+
+        long succeeded = 0;
+        for (CompletableFuture<WithdrawalOutcome> result : results) {
+            if (result.get(5, TimeUnit.SECONDS) == WithdrawalOutcome.SUCCESS) succeeded++;
+        }
+        assertEquals(200L, succeeded + countBusy(results));
+        assertEquals(1_000.0 - succeeded, acc.getBalance(), 0.001);
+    }
+
+    private static long countBusy(List<CompletableFuture<WithdrawalOutcome>> results) {
+        return results.stream().filter(f -> f.join() == WithdrawalOutcome.BUSY).count();
+    }
+}
@@ -124,4 +124,12 @@ class TransactionProcessorTest {
         acc1.setStatus(AccountStatus.CLOSED);
         assertFalse(processor.processTransfer(acc1, acc2, 10));
     }
+
+    @Test
+    void processTransfer_closedTarget_returnsFalse_andKeepsMoney() {
+        acc2.setStatus(AccountStatus.CLOSED);
+        assertFalse(processor.processTransfer(acc1, acc2, 50));
+        assertEquals(100, acc1.getBalance(), 0.001);
+        assertEquals(50, acc2.getBalance(), 0.001);
+    }
 }
@@ -0,0 +1,51 @@
+package com.example;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures heap bytes allocated per withdrawal on the outcome hot path and
+ * on the String API. Not a unit test; run manually:
+ * java -cp target/classes:target/test-classes com.example.WithdrawalAllocationBenchmark [iterations]
+ */
+public class WithdrawalAllocationBenchmark {
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        CreditScoreFeature feature = new CreditScoreFeature(clientId -> 700, new AccountController());
+        Account account = Account.ofMinor("1001", "Bench", Long.MAX_VALUE / 2, AccountStatus.VERIFIED);
+        StringBuilder amount = new StringBuilder("0.01");
+
+        // Warm-up so both paths are JIT-compiled before measuring
+        for (int i = 0; i < iterations; i++) {
+            feature.handleWithdrawalOutcome(account, amount);
+            feature.handleWithdrawal(account, "0.01");
+        }
+
+        long tid = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(tid);
+        long start = System.nanoTime();
+        int successes = 0;
+        for (int i = 0; i < iterations; i++) {
+            if (feature.handleWithdrawalOutcome(account, amount).isSuccess()) successes++;
+        }
+        long outcomeNanos = System.nanoTime() - start;
+        long outcomeBytes = threads.getThreadAllocatedBytes(tid) - before;
+
+        before = threads.getThreadAllocatedBytes(tid);
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (feature.handleWithdrawal(account, "0.01").toLowerCase().contains("successful")) successes++;
+        }
+        long stringNanos = System.nanoTime() - start;
+        long stringBytes = threads.getThreadAllocatedBytes(tid) - before;
+
+        System.out.printf("outcome API: %.1f ns/op, %.2f bytes/op%n",
+                (double) outcomeNanos / iterations, (double) outcomeBytes / iterations);
+        System.out.printf("string API + contains: %.1f ns/op, %.2f bytes/op%n",
+                (double) stringNanos / iterations, (double) stringBytes / iterations);
+        System.out.println("successes: " + successes);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures per-record append cost of each durability mode.
+ * Not a unit test; run manually:
+ * java -cp target/classes:target/test-classes com.example.WriteAheadLogBenchmark [threads] [records]
+ */
+public class WriteAheadLogBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int records = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        for (WriteAheadLog.Durability mode : WriteAheadLog.Durability.values()) {
+            int perThread = mode == WriteAheadLog.Durability.SYNC ? records / 20 : records;
+            Path dir = Files.createTempDirectory("wal-bench");
+            try (WriteAheadLog wal = new WriteAheadLog(dir, mode)) {
+                // Warm-up
+                for (int i = 0; i < 1_000; i++) {
+                    wal.append(TransactionType.DEPOSIT, "1001", null, 1L);
+                }
+                long forcesBefore = wal.forceCount();
+                long start = System.nanoTime();
+                Thread[] workers = new Thread[threads];
+                for (int t = 0; t < threads; t++) {
+                    workers[t] = new Thread(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            wal.append(TransactionType.TRANSFER, "1001", "1002", 100L);
+                        }
+                    });
+                    workers[t].start();
+                }
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+                long elapsed = System.nanoTime() - start;
+                long total = (long) threads * perThread;
+                long forces = Math.max(1, wal.forceCount() - forcesBefore);
+                System.out.printf("%-5s %,10d records  %,8.0f ns/record  %,10.0f records/s  %6.1f records/fsync%n",
+                        mode, total, (double) elapsed / total, total * 1e9 / elapsed, (double) total / forces);
+            } finally {
+                deleteRecursively(dir);
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path p : files.toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+}
@@ -0,0 +1,237 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class WriteAheadLogTest {
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("wal-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private List<String> readAll(long afterSeq) throws IOException {
+        List<String> records = new ArrayList<>();
+        WriteAheadLog.replay(dir, afterSeq, (seq, type, fromId, toId, amount) ->
+                records.add(seq + ":" + type + ":" + fromId + ":" + toId + ":" + amount));
+        return records;
+    }
+
+    @Test
+    void append_thenReplay_inEveryMode() throws IOException {
+        for (WriteAheadLog.Durability mode : WriteAheadLog.Durability.values()) {
+            tearDown();
+            Files.createDirectories(dir);
+            try (WriteAheadLog wal = new WriteAheadLog(dir, mode)) {
+                assertEquals(1L, wal.append(TransactionType.DEPOSIT, "1001", null, 500L));
+                assertEquals(2L, wal.append(TransactionType.TRANSFER, "1001", "1002", 250L));
+            }
+            assertEquals(List.of("1:DEPOSIT:1001:null:500", "2:TRANSFER:1001:1002:250"), readAll(0L),
+                    mode.name());
+        }
+    }
+
+    @Test
+    void groupMode_sharesForcesAcrossAppenders() throws Exception {
+        try (WriteAheadLog wal = new WriteAheadLog(dir, WriteAheadLog.Durability.GROUP, 1 << 20, 16, 5L)) {
+            Thread[] threads = new Thread[8];
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        wal.append(TransactionType.WITHDRAWAL, "1001", null, 1L);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread t : threads) {
+                t.join();
+            }
+            assertEquals(400L, wal.durableSeq());
+            assertTrue(wal.forceCount() < wal.appendedCount(), "Fewer fsyncs than records");
+        }
+        assertEquals(400, readAll(0L).size());
+    }
+
+    @Test
+    void segments_roll_andReopenContinuesSequence() throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(dir, WriteAheadLog.Durability.SYNC, 1024, 1, 1L)) {
+            for (int i = 0; i < 100; i++) {
+                wal.append(TransactionType.DEPOSIT, "C" + i, null, i + 1);
+            }
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.count() > 1, "Log should span several segments");
+        }
+        try (WriteAheadLog wal = new WriteAheadLog(dir, WriteAheadLog.Durability.SYNC, 1024, 1, 1L)) {
+            assertEquals(101L, wal.append(TransactionType.DEPOSIT, "C100", null, 101L));
+        }
+
+        List<String> tail = readAll(95L);
+        assertEquals(6, tail.size());
+        assertEquals("96:DEPOSIT:C95:null:96", tail.get(0));
+        assertEquals("101:DEPOSIT:C100:null:101", tail.get(5));
+    }
+
+    @Test
+    void tornTail_isClearedOnReopen_andReplayReadsLaterSegments() throws IOException {
+        // Records for "1001" without a counterparty are 31 bytes each
+        try (WriteAheadLog wal = new WriteAheadLog(dir, WriteAheadLog.Durability.SYNC, 1024, 1, 1L)) {
+            for (int i = 0; i < 20; i++) {
+                wal.append(TransactionType.DEPOSIT, "1001", null, 1L);
+            }
+        }
+        Path first;
+        try (Stream<Path> files = Files.list(dir)) {
+            first = files.findFirst().orElseThrow();
+        }
+        // Tear record 10; records 11-20 stay intact behind it
+        flipByte(first, 9 * 31 + 20);
+
+        try (WriteAheadLog wal = new WriteAheadLog(dir, WriteAheadLog.Durability.SYNC, 1024, 1, 1L)) {
+            assertEquals(9L, wal.lastSeq());
+            assertEquals(10L, wal.append(TransactionType.DEPOSIT, "1001", null, 2L));
+        }
+        List<String> records = readAll(0L);
+        assertEquals(10, records.size(), "Records behind the tear must not come back");
+        assertEquals("10:DEPOSIT:1001:null:2", records.get(9));
+
+        try (WriteAheadLog wal = new WriteAheadLog(dir, WriteAheadLog.Durability.SYNC, 1024, 1, 1L)) {
+            for (int i = 0; i < 40; i++) {
+                wal.append(TransactionType.DEPOSIT, "1001", null, 3L);
+            }
+        }
+        // Tearing the last record of the first segment no longer hides the next one
+        flipByte(first, 31 * 31 + 20);
+        records = readAll(0L);
+        assertEquals(49, records.size());
+        assertEquals("50:DEPOSIT:1001:null:3", records.get(48));
+    }
+
+    private static void flipByte(Path file, long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, offset);
+            b.put(0, (byte) (b.get(0) ^ 0x5A));
+            b.rewind();
+            channel.write(b, offset);
+        }
+    }
+
+    @Test
+    void processor_logsOnlyAcceptedCommands() throws IOException {
+        TransactionProcessor processor = new TransactionProcessor();
+        Account a = new Account("1001", "A", 100.0, AccountStatus.VERIFIED);
+        Account b = new Account("1002", "B", 0.0, AccountStatus.VERIFIED);
+        try (WriteAheadLog wal = new WriteAheadLog(dir, WriteAheadLog.Durability.GROUP)) {
+            processor.setWriteAheadLog(wal);
+            processor.processDeposit(a, 10.0);
+            processor.processWithdraw(a, 1000.0);  // rejected
+            processor.processTransfer(a, b, 20.0);
+        }
+
+        assertEquals(List.of("1:DEPOSIT:1001:null:1000", "2:TRANSFER:1001:1002:2000"), readAll(0L));
+    }
+
+    @Test
+    void processor_logsEachAccountInApplyOrder() throws Exception {
+        TransactionProcessor processor = new TransactionProcessor();
+        Account acc = new Account("1001", "A", 0.0, AccountStatus.VERIFIED);
+        try (WriteAheadLog wal = new WriteAheadLog(dir, WriteAheadLog.Durability.ASYNC)) {
+            processor.setWriteAheadLog(wal);
+            Thread depositor = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    processor.processDepositMinor(acc, 1);
+                }
+            });
+            Thread withdrawer = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    processor.processWithdrawMinor(acc, 1);
+                }
+            });
+            depositor.start();
+            withdrawer.start();
+            depositor.join();
+            withdrawer.join();
+        }
+
+        // A withdrawal logged ahead of the deposit that funded it would dip below zero
+        long[] balance = { 0, 0 };
+        WriteAheadLog.replay(dir, 0L, (seq, type, fromId, toId, amount) -> {
+            balance[0] += type == TransactionType.DEPOSIT ? amount : -amount;
+            balance[1] = Math.min(balance[1], balance[0]);
+        });
+        assertEquals(0L, balance[1]);
+        assertEquals(acc.getBalanceMinor(), balance[0]);
+    }
+
+    @Test
+    void processor_undoesChangesTheLogRefuses_andSucceedsWhenInterruptedLater() {
+        TransactionProcessor processor = new TransactionProcessor();
+        Account a = new Account("1001", "A", 100.0, AccountStatus.VERIFIED);
+        Account b = new Account("1002", "B", 0.0, AccountStatus.VERIFIED);
+        WriteAheadLog wal = new WriteAheadLog(dir, WriteAheadLog.Durability.GROUP);
+        processor.setWriteAheadLog(wal);
+        Thread.currentThread().interrupt();
+        assertTrue(processor.processDepositMinor(a, 500), "Applied and logged, so it succeeds");
+        assertTrue(Thread.interrupted(), "Interrupt flag stays set");
+
+        wal.close();
+        assertThrows(IllegalStateException.class, () -> processor.processWithdrawMinor(a, 100));
+        assertThrows(IllegalStateException.class, () -> processor.processTransferMinor(a, b, 100));
+        assertThrows(IllegalStateException.class,
+                () -> processor.processBatch(List.of(new TransferRequest(a, b, 100))));
+        assertEquals(10_500L, a.getBalanceMinor());
+        assertEquals(0L, b.getBalanceMinor());
+    }
+
+    @Test
+    void sync_interrupted_failsUnlessDurable() throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(dir, WriteAheadLog.Durability.GROUP, 1 << 20, 16, 60_000L)) {
+            for (int i = 0; i < 20; i++) {
+                long seq = wal.write(TransactionType.DEPOSIT, "1001", null, 1L);
+                Thread.currentThread().interrupt();
+                try {
+                    wal.sync(seq);
+                    assertTrue(wal.durableSeq() >= seq, "Returned before the record was durable");
+                } catch (IllegalStateException e) {
+                    assertTrue(Thread.currentThread().isInterrupted(), "Interrupt flag stays set");
+                }
+                Thread.interrupted();
+            }
+        }
+        assertEquals(20, readAll(0L).size());
+    }
+
+    @Test
+    void replay_missingDirectory_returnsAfterSeq() throws IOException {
+        assertEquals(7L, WriteAheadLog.replay(dir.resolve("missing"), 7L, (s, t, f, to, a) -> { }));
+        assertNull(TransactionType.fromCode((byte) 9));
+    }
+}